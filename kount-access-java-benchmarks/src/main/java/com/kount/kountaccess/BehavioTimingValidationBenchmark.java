@@ -0,0 +1,68 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.json.JSONArray;
+
+/**
+ * Compares the previous timing validation (a full json-lib parse) with the structural {@link JsonValidator}, and
+ * measures the whole validation of a behavio data submission around it. Run with <code>-prof gc</code> to see the
+ * allocation rate of each.
+ *
+ * @author custserv@kount.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BehavioTimingValidationBenchmark {
+
+	/**
+	 * Number of timing events, 50 is about 3KB and 500 about 30KB.
+	 */
+	@Param({ "50", "500" })
+	int events;
+
+	String timing;
+
+	AccessSdk sdk;
+
+	@Setup
+	public void setUp() throws AccessException {
+		timing = BenchmarkPayloads.behavioTiming(events);
+		sdk = new AccessSdk("api-sandbox01.kountaccess.com", 999666, "apikey");
+	}
+
+	@Benchmark
+	public Object jsonLibParse() {
+		return JSONArray.fromObject(timing);
+	}
+
+	@Benchmark
+	public boolean structuralScan() {
+		return JsonValidator.isWellFormedObjectOrArray(timing);
+	}
+
+	@Benchmark
+	public String verifyBehavioData() throws AccessException {
+		sdk.verifyBehavioData("api.behavio.kaptcha.com", "sandbox", timing, "abc111@abc.com");
+		return timing;
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.Random;
+
+/**
+ * Payloads shared by the benchmarks.
+ *
+ * @author custserv@kount.com
+ */
+final class BenchmarkPayloads {
+
+	/**
+	 * A 32 character session id.
+	 */
+	static final String SESSION = "8f18a81cfb6e3179ece7138ac81019aa";
+
+	private static final String DEVICE = "\"device\":{\"id\":\"75012bd5e5b264c4b324f5c95a769541\","
+			+ "\"ipAddress\":\"64.128.91.251\",\"ipGeo\":\"US\",\"mobile\":1,\"proxy\":0,\"tor\":0,"
+			+ "\"region\":\"ID\",\"country\":\"US\",\"geoLat\":43.6135,\"geoLong\":-116.2034}";
+
+	private static final String VELOCITY = "\"velocity\":{\"account\":{\"dlh\":1,\"dlm\":1,\"iplh\":1,"
+			+ "\"iplm\":1,\"plh\":1,\"plm\":1,\"ulh\":1,\"ulm\":1},\"device\":{\"alh\":2,\"alm\":1,\"iplh\":1,"
+			+ "\"iplm\":1,\"plh\":2,\"plm\":1,\"ulh\":2,\"ulm\":1},\"ip_address\":{\"alh\":3,\"alm\":1,"
+			+ "\"dlh\":2,\"dlm\":1,\"plh\":3,\"plm\":1,\"ulh\":3,\"ulm\":1},\"password\":{\"alh\":1,"
+			+ "\"alm\":1,\"dlh\":1,\"dlm\":1,\"iplh\":1,\"iplm\":1,\"ulh\":1,\"ulm\":1},\"user\":{\"alh\":1,"
+			+ "\"alm\":1,\"dlh\":1,\"dlm\":1,\"iplh\":1,\"iplm\":1,\"plh\":1,\"plm\":1}}";
+
+	private static final String DECISION = "\"decision\":{\"errors\":[],\"warnings\":[],\"reply\":{"
+			+ "\"ruleEvents\":{\"decision\":\"R\",\"total\":2,\"ruleEvents\":[\"Velocity: device logins last "
+			+ "hour > 1\",\"Geo: ip country differs from account country\"]}}}";
+
+	/**
+	 * A velocity response.
+	 */
+	static final String VELOCITY_JSON = "{" + DEVICE + ",\"response_id\":\"bf10cd20cf61286669e87342d029e405\","
+			+ VELOCITY + "}";
+
+	/**
+	 * A decision response, the velocity response with the decision.
+	 */
+	static final String DECISION_JSON = "{" + DECISION + "," + DEVICE
+			+ ",\"response_id\":\"bf10cd20cf61286669e87342d029e405\"," + VELOCITY + "}";
+
+	/**
+	 * An info response with every section.
+	 */
+	static final String INFO_JSON = "{\"behavioSec\":{\"isBot\":false,\"isTrained\":true,\"score\":87,"
+			+ "\"confidence\":92,\"policyId\":4}," + DECISION + "," + DEVICE
+			+ ",\"response_id\":\"bf10cd20cf61286669e87342d029e405\",\"trusted\":{\"state\":\"trusted\"},"
+			+ VELOCITY + "}";
+
+	private BenchmarkPayloads() {
+	}
+
+	/**
+	 * Builds a BehavioSec style timing payload: an array of key and pointer events, roughly
+	 * <code>events * 60</code> characters long.
+	 *
+	 * @param events
+	 *            number of timing events
+	 * @return the timing json
+	 */
+	static String behavioTiming(int events) {
+		Random random = new Random(42);
+		StringBuilder timing = new StringBuilder(events * 64);
+		timing.append('[');
+		long time = 1536000000000L;
+		for (int i = 0; i < events; i++) {
+			if (i > 0) {
+				timing.append(',');
+			}
+			time += random.nextInt(250);
+			if ((i % 5) == 4) {
+				timing.append("{\"t\":\"m\",\"x\":").append(random.nextInt(1920)).append(",\"y\":")
+						.append(random.nextInt(1080)).append(",\"ts\":").append(time).append('}');
+			} else {
+				timing.append("{\"t\":\"k\",\"c\":").append(65 + random.nextInt(26)).append(",\"d\":").append(time)
+						.append(",\"u\":").append(time + 40 + random.nextInt(80)).append(",\"f\":\"password\"}");
+			}
+		}
+		timing.append(']');
+		return timing.toString();
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares hashing the uh, ph and ah parameters of one request the way the SDK used to (a new MessageDigest and byte
+ * array per value, plus the joined <code>username:password</code> String) with {@link CredentialHasher} and with
+ * reusing {@link HashedCredentials} across requests. Run with <code>-prof gc</code> to see the allocation rate of each.
+ *
+ * @author custserv@kount.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialHashingBenchmark {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	String username;
+
+	String password;
+
+	HashedCredentials credentials;
+
+	@Setup
+	public void setUp() {
+		username = "greg.johnson@example.com";
+		password = "correct horse battery staple";
+		credentials = new HashedCredentials(username, password);
+	}
+
+	@Benchmark
+	public void legacyHashValue(Blackhole blackhole) {
+		blackhole.consume(legacyHash(username));
+		blackhole.consume(legacyHash(password));
+		blackhole.consume(legacyHash(username + ":" + password));
+	}
+
+	@Benchmark
+	public void credentialHasher(Blackhole blackhole) {
+		blackhole.consume(CredentialHasher.hash(username));
+		blackhole.consume(CredentialHasher.hash(password));
+		blackhole.consume(CredentialHasher.hash(username, password));
+	}
+
+	@Benchmark
+	public String encodeHashedCredentials() {
+		FormEncoder parameters = FormEncoder.get();
+		credentials.encodeTo(parameters);
+		return parameters.toString();
+	}
+
+	@Benchmark
+	public String encodePlainCredentials() {
+		FormEncoder parameters = FormEncoder.get();
+		new HashedCredentials(username, password).encodeTo(parameters);
+		return parameters.toString();
+	}
+
+	private static String legacyHash(String value) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			md.update(value.getBytes("UTF8"), 0, value.length());
+			byte[] hash = md.digest();
+			char[] hexChars = new char[hash.length * 2];
+			for (int j = 0; j < hash.length; j++) {
+				int v = hash[j] & 0xFF;
+				hexChars[j * 2] = HEX[v >>> 4];
+				hexChars[(j * 2) + 1] = HEX[v & 0x0F];
+			}
+			return new String(hexChars);
+		} catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
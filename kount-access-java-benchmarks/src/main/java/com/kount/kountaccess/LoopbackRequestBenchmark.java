@@ -0,0 +1,140 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpPost;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Measures whole decision and info calls, from the parameters to the parsed response, against an in-process server on
+ * the loopback interface answering with recorded responses. The server answers at once, so what is measured is the
+ * SDK and its HTTP client over plain HTTP; the TLS handshake of the real endpoints is not. Reports the throughput and
+ * the latency distribution, run with <code>-prof gc</code> to see the allocation rate too.
+ *
+ * @author custserv@kount.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoopbackRequestBenchmark {
+
+	/**
+	 * Sends the SDK's requests to the loopback server instead of its host.
+	 */
+	static class LoopbackAccessSdk extends AccessSdk {
+
+		private final URI server;
+
+		LoopbackAccessSdk(URI server) throws AccessException {
+			super("api-sandbox01.kountaccess.com", 999666, "apikey");
+			this.server = server;
+		}
+
+		@Override
+		HttpPost getHttpPost(URI uri) {
+			return super.getHttpPost(server.resolve(uri.getRawPath()));
+		}
+	}
+
+	/**
+	 * Answers every request to a path with the same response.
+	 */
+	static class RecordedResponse implements HttpHandler {
+
+		private final byte[] body;
+
+		RecordedResponse(String body) {
+			this.body = body.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try (InputStream request = exchange.getRequestBody()) {
+				byte[] discard = new byte[4096];
+				while (request.read(discard) >= 0) {
+					// the parameters are not looked at
+				}
+			}
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream response = exchange.getResponseBody()) {
+				response.write(body);
+			}
+		}
+	}
+
+	HttpServer server;
+
+	ExecutorService serverThreads;
+
+	AccessSdk sdk;
+
+	HashedCredentials credentials;
+
+	@Setup
+	public void setUp() throws IOException, AccessException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+		server.createContext("/api/decision", new RecordedResponse(BenchmarkPayloads.DECISION_JSON));
+		server.createContext("/api/info", new RecordedResponse(BenchmarkPayloads.INFO_JSON));
+		serverThreads = Executors.newFixedThreadPool(4);
+		server.setExecutor(serverThreads);
+		server.start();
+		sdk = new LoopbackAccessSdk(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/"));
+		credentials = new HashedCredentials("greg.johnson@example.com", "correct horse battery staple");
+	}
+
+	@TearDown
+	public void tearDown() {
+		sdk.close();
+		server.stop(0);
+		serverThreads.shutdownNow();
+	}
+
+	@Benchmark
+	public JSONObject getDecision() throws AccessException {
+		return sdk.getDecision(BenchmarkPayloads.SESSION, credentials);
+	}
+
+	@Benchmark
+	public JSONObject getInfo() throws AccessException {
+		return sdk.getInfo(InfoQuery.all().getFlag(), BenchmarkPayloads.SESSION, "abc111@abc.com", credentials);
+	}
+
+	/**
+	 * With the behavio section asked for, the query is sent as two requests in parallel.
+	 */
+	@Benchmark
+	public InfoResponse getInfoQuery() throws AccessException {
+		return sdk.getInfo(InfoQuery.all(), BenchmarkPayloads.SESSION, "abc111@abc.com", credentials);
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building a request from the endpoint string with new header objects each time (as the SDK used to) with
+ * building it from the endpoint parsed at construction time and shared immutable headers. Run with
+ * <code>-prof gc</code> to see the allocation rate of each.
+ *
+ * @author custserv@kount.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestConstructionBenchmark {
+
+	String velocityUrl;
+
+	String deviceUrl;
+
+	String authorization;
+
+	URI velocityEndpoint;
+
+	Header authorizationHeader;
+
+	Header contentTypeHeader;
+
+	AccessSdk sdk;
+
+	@Setup
+	public void setUp() throws AccessException {
+		String host = "api-sandbox01.kountaccess.com";
+		velocityUrl = "https://" + host + "/api/velocity";
+		deviceUrl = "https://" + host + "/api/device?v=0400&s=" + BenchmarkPayloads.SESSION;
+		authorization = "Basic " + Base64.encodeBase64String("999666:apikey".getBytes(StandardCharsets.UTF_8));
+		velocityEndpoint = URI.create(velocityUrl);
+		authorizationHeader = new BasicHeader("Authorization", authorization);
+		contentTypeHeader = new BasicHeader("Content-Type", "JSON");
+		sdk = new AccessSdk(host, 999666, "apikey");
+	}
+
+	@Benchmark
+	public HttpPost postFromString() {
+		HttpPost request = new HttpPost(velocityUrl);
+		request.addHeader("Authorization", authorization);
+		return request;
+	}
+
+	@Benchmark
+	public HttpPost postFromTemplate() {
+		HttpPost request = sdk.getHttpPost(velocityEndpoint);
+		request.addHeader(authorizationHeader);
+		return request;
+	}
+
+	@Benchmark
+	public HttpGet getWithNewHeaders() {
+		HttpGet request = new HttpGet(deviceUrl);
+		request.addHeader("Authorization", authorization);
+		request.addHeader("Content-Type", "JSON");
+		return request;
+	}
+
+	@Benchmark
+	public HttpGet getWithSharedHeaders() {
+		HttpGet request = sdk.getHttpGet(deviceUrl);
+		request.addHeader(authorizationHeader);
+		request.addHeader(contentTypeHeader);
+		return request;
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the form parameters of a velocity, decision or info request: the version, the session and the
+ * hashed credentials, hashed per request from the username and password or reused from {@link HashedCredentials}.
+ * Run with <code>-prof gc</code> to see the allocation rate of each.
+ *
+ * @author custserv@kount.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParametersBenchmark {
+
+	String username;
+
+	String password;
+
+	HashedCredentials credentials;
+
+	AccessSdk sdk;
+
+	@Setup
+	public void setUp() throws AccessException {
+		username = "greg.johnson@example.com";
+		password = "correct horse battery staple";
+		credentials = new HashedCredentials(username, password);
+		sdk = new AccessSdk("api-sandbox01.kountaccess.com", 999666, "apikey");
+	}
+
+	@Benchmark
+	public String plainCredentials() {
+		return sdk.encodeRequestParameters(BenchmarkPayloads.SESSION, new HashedCredentials(username, password))
+				.toString();
+	}
+
+	@Benchmark
+	public String hashedCredentials() {
+		return sdk.encodeRequestParameters(BenchmarkPayloads.SESSION, credentials).toString();
+	}
+
+	@Benchmark
+	public String infoParameters() {
+		return sdk.encodeRequestParameters(BenchmarkPayloads.SESSION, credentials).add("i", "31")
+				.add("uniq", "abc111@abc.com").toString();
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Measures parsing a response into the JSONObject the SDK returns. Run with <code>-prof gc</code> to see the
+ * allocation rate of each response.
+ *
+ * @author custserv@kount.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+	/**
+	 * The endpoint whose response is parsed.
+	 */
+	@Param({ "velocity", "decision", "info" })
+	String endpoint;
+
+	String response;
+
+	AccessSdk sdk;
+
+	@Setup
+	public void setUp() throws AccessException {
+		if ("velocity".equals(endpoint)) {
+			response = BenchmarkPayloads.VELOCITY_JSON;
+		} else if ("decision".equals(endpoint)) {
+			response = BenchmarkPayloads.DECISION_JSON;
+		} else {
+			response = BenchmarkPayloads.INFO_JSON;
+		}
+		sdk = new AccessSdk("api-sandbox01.kountaccess.com", 999666, "apikey");
+	}
+
+	@Benchmark
+	public JSONObject processJSONEntity() throws AccessException {
+		return sdk.processJSONEntity(response);
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ *
+ */
+package com.kount.kountaccess.flow;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+import com.kount.kountaccess.AccessException;
+import com.kount.kountaccess.AccessSdk;
+import com.kount.kountaccess.ScoringEngine;
+import com.kount.kountaccess.ScoringRequest;
+import com.kount.kountaccess.ScoringResponse;
+
+/**
+ * A {@link Flow.Processor} that scores a stream of logins: it subscribes to {@link ScoringRequest}s, scores each one
+ * with a getInfo call on the SDK's executor and publishes the {@link ScoringResponse}s to one subscriber.
+ * <p>
+ * The processor honors downstream demand: it requests no more logins from upstream than the in-flight limit, counting
+ * the ones being scored and the responses the subscriber hasn't requested yet, so a slow subscriber slows the source
+ * instead of filling a buffer. Responses are published as the calls complete; with session ordering, the logins of a
+ * session are scored one after the other and published in the order they were received. A failed call is published as
+ * a response with its error. An upstream error is passed on after the responses in flight.
+ * <p>
+ * The processor only adapts the Flow interfaces to the SDK's {@link ScoringEngine}, so it needs Java 9 or later while
+ * the SDK itself doesn't.
+ *
+ * <pre>
+ * FlowScoringProcessor scoring = new FlowScoringProcessor(sdk, 32, true);
+ * loginEvents.subscribe(scoring);
+ * scoring.subscribe(decisionSubscriber);
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class FlowScoringProcessor implements Flow.Processor<ScoringRequest, ScoringResponse> {
+
+	private final ScoringEngine engine;
+
+	/**
+	 * @param sdk
+	 *            The SDK that scores the logins.
+	 * @param maxInFlight
+	 *            The most logins received and not yet published, up to {@link ScoringEngine#MAX_IN_FLIGHT}.
+	 * @param sessionOrder
+	 *            true to publish the responses of a session in the order its logins were received.
+	 * @throws AccessException
+	 *             Thrown if the in-flight limit is out of range.
+	 */
+	public FlowScoringProcessor(AccessSdk sdk, int maxInFlight, boolean sessionOrder) throws AccessException {
+		this.engine = new ScoringEngine(sdk, maxInFlight, sessionOrder);
+	}
+
+	@Override
+	public void onSubscribe(final Flow.Subscription subscription) {
+		Objects.requireNonNull(subscription);
+		engine.onSubscribe(new ScoringEngine.Upstream() {
+			@Override
+			public void request(long n) {
+				subscription.request(n);
+			}
+
+			@Override
+			public void cancel() {
+				subscription.cancel();
+			}
+		});
+	}
+
+	@Override
+	public void onNext(ScoringRequest request) {
+		engine.onNext(Objects.requireNonNull(request));
+	}
+
+	@Override
+	public void onError(Throwable error) {
+		engine.onError(Objects.requireNonNull(error));
+	}
+
+	@Override
+	public void onComplete() {
+		engine.onComplete();
+	}
+
+	/**
+	 * Publishes the responses to a subscriber. A second subscriber gets an {@link IllegalStateException}.
+	 */
+	@Override
+	public void subscribe(final Flow.Subscriber<? super ScoringResponse> subscriber) {
+		Objects.requireNonNull(subscriber);
+		boolean first = engine.subscribe(new ScoringEngine.Downstream() {
+			@Override
+			public void onNext(ScoringResponse response) {
+				subscriber.onNext(response);
+			}
+
+			@Override
+			public void onError(Throwable error) {
+				subscriber.onError(error);
+			}
+
+			@Override
+			public void onComplete() {
+				subscriber.onComplete();
+			}
+		});
+		if (!first) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+					// nothing is published to a second subscriber
+				}
+
+				@Override
+				public void cancel() {
+					// nothing to release
+				}
+			});
+			subscriber.onError(new IllegalStateException("The processor already has a subscriber."));
+			return;
+		}
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				engine.request(n);
+			}
+
+			@Override
+			public void cancel() {
+				engine.cancel();
+			}
+		});
+		engine.start();
+	}
+}
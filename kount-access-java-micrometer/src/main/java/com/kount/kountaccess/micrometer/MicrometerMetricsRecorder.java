@@ -0,0 +1,149 @@
+/**
+ *
+ */
+package com.kount.kountaccess.micrometer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+import com.kount.kountaccess.MetricsRecorder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A {@link MetricsRecorder} that publishes the SDK's requests to a Micrometer {@link MeterRegistry}:
+ * <ul>
+ * <li><code>kount.access.requests</code>, a timer tagged with endpoint, status and error</li>
+ * <li><code>kount.access.bytes.sent</code> and <code>kount.access.bytes.received</code>, summaries tagged with
+ * endpoint</li>
+ * <li><code>kount.access.errors</code>, a counter tagged with endpoint and error</li>
+ * </ul>
+ *
+ * <pre>
+ * sdk.setMetricsRecorder(new MicrometerMetricsRecorder(registry));
+ * </pre>
+ *
+ * Percentiles and histograms are configured on the registry, e.g. with a <code>MeterFilter</code>. The meters are
+ * registered on the first request of every endpoint, status and error, and looked up from a cache afterwards.
+ *
+ * @author custserv@kount.com
+ */
+public final class MicrometerMetricsRecorder implements MetricsRecorder {
+
+	/**
+	 * The default prefix of the meter names.
+	 */
+	public static final String DEFAULT_PREFIX = "kount.access";
+
+	private static final String NONE = "none";
+
+	private final MeterRegistry registry;
+
+	private final String prefix;
+
+	/**
+	 * The meters registered so far, per endpoint
+	 */
+	private final ConcurrentMap<String, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * Publishes with the {@link #DEFAULT_PREFIX}.
+	 *
+	 * @param registry
+	 *            The registry to publish to.
+	 */
+	public MicrometerMetricsRecorder(MeterRegistry registry) {
+		this(registry, DEFAULT_PREFIX);
+	}
+
+	/**
+	 * @param registry
+	 *            The registry to publish to.
+	 * @param prefix
+	 *            The prefix of the meter names.
+	 */
+	public MicrometerMetricsRecorder(MeterRegistry registry, String prefix) {
+		if (registry == null) {
+			throw new IllegalArgumentException("registry is null");
+		}
+		this.registry = registry;
+		this.prefix = (prefix != null) ? prefix : DEFAULT_PREFIX;
+	}
+
+	@Override
+	public void recordRequest(String endpoint, long latencyNanos, int statusCode, long bytesSent,
+			long bytesReceived, AccessErrorType error) {
+		EndpointMeters meters = endpoints.get(endpoint);
+		if (meters == null) {
+			EndpointMeters created = new EndpointMeters(endpoint);
+			meters = endpoints.putIfAbsent(endpoint, created);
+			if (meters == null) {
+				meters = created;
+			}
+		}
+		meters.timer(statusCode, error).record(latencyNanos, TimeUnit.NANOSECONDS);
+		meters.bytesSent.record(bytesSent);
+		meters.bytesReceived.record(bytesReceived);
+		if (error != null) {
+			meters.errors(error).increment();
+		}
+	}
+
+	/**
+	 * The meters of one endpoint; the timers and counters are registered on the first use of their tags.
+	 */
+	private final class EndpointMeters {
+
+		private final String endpoint;
+
+		private final DistributionSummary bytesSent;
+
+		private final DistributionSummary bytesReceived;
+
+		/**
+		 * The timers per status and error, keyed by {@link #timerKey(int, AccessErrorType)}
+		 */
+		private final ConcurrentMap<Long, Timer> timers = new ConcurrentHashMap<>();
+
+		private final ConcurrentMap<AccessErrorType, Counter> errors = new ConcurrentHashMap<>();
+
+		EndpointMeters(String endpoint) {
+			this.endpoint = endpoint;
+			this.bytesSent = DistributionSummary.builder(prefix + ".bytes.sent").baseUnit("bytes")
+					.tag("endpoint", endpoint).register(registry);
+			this.bytesReceived = DistributionSummary.builder(prefix + ".bytes.received").baseUnit("bytes")
+					.tag("endpoint", endpoint).register(registry);
+		}
+
+		Timer timer(int statusCode, AccessErrorType error) {
+			Long key = timerKey(statusCode, error);
+			Timer timer = timers.get(key);
+			if (timer == null) {
+				timer = Timer.builder(prefix + ".requests").description("Kount Access requests")
+						.tag("endpoint", endpoint).tag("status", Integer.toString(statusCode))
+						.tag("error", (error != null) ? error.name() : NONE).register(registry);
+				timers.putIfAbsent(key, timer);
+			}
+			return timer;
+		}
+
+		Counter errors(AccessErrorType error) {
+			Counter counter = errors.get(error);
+			if (counter == null) {
+				counter = Counter.builder(prefix + ".errors").tag("endpoint", endpoint).tag("error", error.name())
+						.register(registry);
+				errors.putIfAbsent(error, counter);
+			}
+			return counter;
+		}
+
+		private long timerKey(int statusCode, AccessErrorType error) {
+			return ((long) statusCode << 8) | ((error != null) ? (error.ordinal() + 1) : 0);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ *
+ */
+package com.kount.kountaccess.micrometer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit Tests around publishing requests to Micrometer.
+ *
+ * @author custserv@kount.com
+ */
+public class MicrometerMetricsRecorderTest {
+
+	/**
+	 * Test method for {@link MicrometerMetricsRecorder#recordRequest}.
+	 */
+	@Test
+	public void testRecordRequest() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		MicrometerMetricsRecorder recorder = new MicrometerMetricsRecorder(registry);
+		recorder.recordRequest("info", TimeUnit.MILLISECONDS.toNanos(40), 200, 0, 512, null);
+		recorder.recordRequest("info", TimeUnit.MILLISECONDS.toNanos(60), 200, 0, 256, null);
+		recorder.recordRequest("velocity", TimeUnit.MILLISECONDS.toNanos(5), 0, 128, 0,
+				AccessErrorType.NETWORK_ERROR);
+
+		assertEquals(2, registry.get("kount.access.requests").tag("endpoint", "info").tag("status", "200").timer()
+				.count());
+		assertEquals(100.0, registry.get("kount.access.requests").tag("endpoint", "info").timer()
+				.totalTime(TimeUnit.MILLISECONDS), 0.001);
+		assertEquals(768.0, registry.get("kount.access.bytes.received").tag("endpoint", "info").summary()
+				.totalAmount(), 0.001);
+		assertEquals(128.0, registry.get("kount.access.bytes.sent").tag("endpoint", "velocity").summary()
+				.totalAmount(), 0.001);
+		assertEquals(1.0, registry.get("kount.access.errors").tag("error", "NETWORK_ERROR").counter().count(),
+				0.001);
+		assertNull(registry.find("kount.access.errors").tag("endpoint", "info").counter());
+	}
+
+	/**
+	 * Test that {@link MicrometerMetricsRecorder#recordRequest} registers every meter once and reuses it.
+	 */
+	@Test
+	public void testMetersCached() {
+		final AtomicInteger registrations = new AtomicInteger();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		registry.config().meterFilter(new MeterFilter() {
+			@Override
+			public Meter.Id map(Meter.Id id) {
+				registrations.incrementAndGet();
+				return id;
+			}
+		});
+		MicrometerMetricsRecorder recorder = new MicrometerMetricsRecorder(registry);
+		for (int i = 0; i < 10; i++) {
+			recorder.recordRequest("info", TimeUnit.MILLISECONDS.toNanos(i), 200, 0, 512, null);
+		}
+		// the timer and the two summaries
+		assertEquals(3, registrations.get());
+		recorder.recordRequest("info", TimeUnit.MILLISECONDS.toNanos(5), 0, 0, 0, AccessErrorType.NETWORK_ERROR);
+		recorder.recordRequest("info", TimeUnit.MILLISECONDS.toNanos(5), 0, 0, 0, AccessErrorType.NETWORK_ERROR);
+		// a timer and a counter for the error
+		assertEquals(5, registrations.get());
+		assertEquals(10, registry.get("kount.access.requests").tag("status", "200").timer().count());
+		assertEquals(2.0, registry.get("kount.access.errors").counter().count(), 0.001);
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ *
+ */
+package com.kount.kountaccess.opentelemetry;
+
+import com.kount.kountaccess.AccessException;
+import com.kount.kountaccess.RequestPhases;
+import com.kount.kountaccess.TracedRequest;
+import com.kount.kountaccess.TracingListener;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+
+/**
+ * A {@link TracingListener} that traces the SDK's requests with OpenTelemetry. Every request is a client span named
+ * <code>kount.access &lt;endpoint&gt;</code>, a child of the current span, whose context is propagated in the request
+ * headers. The span carries the host, the sizes, the status and the phase timings of the request, and is marked as an
+ * error when the request failed.
+ *
+ * <pre>
+ * sdk.setTracingListener(new OpenTelemetryTracingListener(openTelemetry));
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class OpenTelemetryTracingListener implements TracingListener {
+
+	/**
+	 * The instrumentation scope of the spans.
+	 */
+	public static final String INSTRUMENTATION_NAME = "com.kount.kountaccess";
+
+	static final AttributeKey<String> SERVER_ADDRESS = AttributeKey.stringKey("server.address");
+
+	static final AttributeKey<String> ENDPOINT = AttributeKey.stringKey("kount.access.endpoint");
+
+	static final AttributeKey<Long> RESEND_COUNT = AttributeKey.longKey("http.request.resend_count");
+
+	static final AttributeKey<Long> REQUEST_BODY_SIZE = AttributeKey.longKey("http.request.body.size");
+
+	static final AttributeKey<Long> RESPONSE_BODY_SIZE = AttributeKey.longKey("http.response.body.size");
+
+	static final AttributeKey<Long> STATUS_CODE = AttributeKey.longKey("http.response.status_code");
+
+	static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+
+	static final AttributeKey<Boolean> CONNECTION_REUSED = AttributeKey.booleanKey("kount.access.connection_reused");
+
+	static final AttributeKey<Long> POOL_WAIT = AttributeKey.longKey("kount.access.pool_wait_ns");
+
+	static final AttributeKey<Long> DNS = AttributeKey.longKey("kount.access.dns_ns");
+
+	static final AttributeKey<Long> CONNECT = AttributeKey.longKey("kount.access.connect_ns");
+
+	static final AttributeKey<Long> TLS = AttributeKey.longKey("kount.access.tls_ns");
+
+	static final AttributeKey<Long> TIME_TO_FIRST_BYTE = AttributeKey.longKey("kount.access.ttfb_ns");
+
+	static final AttributeKey<Long> BODY_READ = AttributeKey.longKey("kount.access.body_read_ns");
+
+	static final AttributeKey<Long> PARSE = AttributeKey.longKey("kount.access.parse_ns");
+
+	private static final TextMapSetter<TracedRequest> HEADERS = new TextMapSetter<TracedRequest>() {
+		@Override
+		public void set(TracedRequest request, String name, String value) {
+			if (request != null) {
+				request.setHeader(name, value);
+			}
+		}
+	};
+
+	private final Tracer tracer;
+
+	private final TextMapPropagator propagator;
+
+	/**
+	 * @param openTelemetry
+	 *            The OpenTelemetry instance whose tracer and propagators are used.
+	 */
+	public OpenTelemetryTracingListener(OpenTelemetry openTelemetry) {
+		this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+		this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+	}
+
+	@Override
+	public Object requestStarted(TracedRequest request) {
+		Span span = tracer.spanBuilder("kount.access " + request.getEndpoint()).setSpanKind(SpanKind.CLIENT)
+				.setAttribute(ENDPOINT, request.getEndpoint()).startSpan();
+		if (request.getHost() != null) {
+			span.setAttribute(SERVER_ADDRESS, request.getHost());
+		}
+		if (request.getAttempt() > 1) {
+			span.setAttribute(RESEND_COUNT, request.getAttempt() - 1L);
+		}
+		propagator.inject(Context.current().with(span), request, HEADERS);
+		return span;
+	}
+
+	@Override
+	public void requestEnded(Object span, TracedRequest request, RequestPhases phases) {
+		if (span instanceof Span) {
+			end((Span) span, request, phases);
+		}
+	}
+
+	@Override
+	public void requestFailed(Object span, TracedRequest request, RequestPhases phases, AccessException error) {
+		if (span instanceof Span) {
+			Span failed = (Span) span;
+			failed.setAttribute(ERROR_TYPE, error.getAccessErrorType().name());
+			failed.recordException(error);
+			failed.setStatus(StatusCode.ERROR, error.getMessage());
+			end(failed, request, phases);
+		}
+	}
+
+	private static void end(Span span, TracedRequest request, RequestPhases phases) {
+		if (request.getBytesSent() > 0) {
+			span.setAttribute(REQUEST_BODY_SIZE, request.getBytesSent());
+		}
+		if (request.getBytesReceived() > 0) {
+			span.setAttribute(RESPONSE_BODY_SIZE, request.getBytesReceived());
+		}
+		if (request.getStatusCode() > 0) {
+			span.setAttribute(STATUS_CODE, (long) request.getStatusCode());
+		}
+		if (phases != null) {
+			span.setAttribute(CONNECTION_REUSED, phases.isConnectionReused());
+			span.setAttribute(POOL_WAIT, phases.getPoolWait());
+			span.setAttribute(DNS, phases.getDns());
+			span.setAttribute(CONNECT, phases.getConnect());
+			span.setAttribute(TLS, phases.getTls());
+			span.setAttribute(TIME_TO_FIRST_BYTE, phases.getTimeToFirstByte());
+			span.setAttribute(BODY_READ, phases.getBodyRead());
+			span.setAttribute(PARSE, phases.getParse());
+		}
+		span.end();
+	}
+}
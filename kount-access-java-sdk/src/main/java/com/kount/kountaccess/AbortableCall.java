@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.Callable;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * A call run on the SDK's executor that can be given up at a deadline. Interrupting the worker doesn't stop
+ * HttpClient's blocking socket I/O, so {@link #abort()} aborts the request in flight instead, which frees the worker
+ * at once rather than when the socket times out.
+ *
+ * @author custserv@kount.com
+ */
+abstract class AbortableCall<V> implements Callable<V> {
+
+	/**
+	 * The call the current worker thread runs, if any
+	 */
+	private static final ThreadLocal<AbortableCall<?>> CURRENT = new ThreadLocal<>();
+
+	private HttpUriRequest request;
+
+	private boolean aborted;
+
+	@Override
+	public final V call() throws AccessException {
+		CURRENT.set(this);
+		try {
+			return run();
+		} finally {
+			CURRENT.remove();
+			synchronized (this) {
+				request = null;
+			}
+		}
+	}
+
+	/**
+	 * The work of the call, on a worker thread.
+	 */
+	abstract V run() throws AccessException;
+
+	/**
+	 * Aborts the request in flight, and any request the call starts afterwards.
+	 */
+	void abort() {
+		HttpUriRequest inFlight;
+		synchronized (this) {
+			aborted = true;
+			inFlight = request;
+		}
+		if (inFlight != null) {
+			inFlight.abort();
+		}
+	}
+
+	/**
+	 * Tells the call run by the current thread, if any, which request it is about to execute.
+	 */
+	static void started(HttpUriRequest request) {
+		AbortableCall<?> call = CURRENT.get();
+		if (call != null) {
+			boolean abort;
+			synchronized (call) {
+				call.request = request;
+				abort = call.aborted;
+			}
+			if (abort) {
+				request.abort();
+			}
+		}
+	}
+}
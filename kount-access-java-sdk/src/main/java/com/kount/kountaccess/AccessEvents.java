@@ -0,0 +1,60 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * Emits the SDK's Java Flight Recorder events. This class does nothing; on Java 11 and later the multi-release JAR
+ * replaces it with one that commits the events, so a recording shows the SDK's requests next to GC and safepoint
+ * pauses:
+ * <ul>
+ * <li><code>com.kount.kountaccess.AccessRequest</code>, a request slower than its threshold, 100 ms by default, with
+ * endpoint, status, error and bytes</li>
+ * <li><code>com.kount.kountaccess.AccessRetry</code>, a replay of a spooled write</li>
+ * <li><code>com.kount.kountaccess.AccessCacheHit</code> (disabled by default) and
+ * <code>com.kount.kountaccess.AccessCacheMiss</code>, lookups of the behavio endpoint cache</li>
+ * <li><code>com.kount.kountaccess.AccessQueueOverflow</code>, a submission to a full behavio data pipeline or write
+ * spool</li>
+ * </ul>
+ *
+ * @author custserv@kount.com
+ */
+final class AccessEvents {
+
+	private AccessEvents() {
+	}
+
+	/**
+	 * @return The event of a request starting now, to be ended with {@link #requestEnded}, or null if it isn't
+	 *         recorded.
+	 */
+	static Object requestStarted() {
+		return null;
+	}
+
+	/**
+	 * Ends the event of a request, committed if the request took longer than the threshold.
+	 */
+	static void requestEnded(Object event, String endpoint, int status, AccessErrorType error, long bytesSent,
+			long bytesReceived) {
+		// no flight recorder
+	}
+
+	static void retry(String endpoint, int attempt) {
+		// no flight recorder
+	}
+
+	static void cacheHit(String cache, String key) {
+		// no flight recorder
+	}
+
+	static void cacheMiss(String cache, String key) {
+		// no flight recorder
+	}
+
+	static void queueOverflow(String queue, String policy, long depth) {
+		// no flight recorder
+	}
+}
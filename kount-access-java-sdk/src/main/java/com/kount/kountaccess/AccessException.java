@@ -43,6 +43,11 @@ public class AccessException extends Exception {
 	 */
 	private AccessErrorType error;
 
+	/**
+	 * HTTP status of the response that caused this exception, 0 if there was none
+	 */
+	private int statusCode;
+
 	/**
 	 * Custom exception for problems encountered while using the Kount Access API.
 	 *
@@ -74,6 +79,22 @@ public class AccessException extends Exception {
 
 	}
 
+	/**
+	 * Custom exception for an unexpected HTTP response from the Kount Access API.
+	 *
+	 * @param errorType
+	 *            The Error type that was thrown
+	 * @param message
+	 *            Additional information about the error condition.
+	 * @param statusCode
+	 *            The HTTP status of the response.
+	 */
+	AccessException(AccessErrorType errorType, String message, int statusCode) {
+		super(message);
+		this.error = errorType;
+		this.statusCode = statusCode;
+	}
+
 	/**
 	 * Returns the specific AccessErrorType
 	 *
@@ -82,4 +103,13 @@ public class AccessException extends Exception {
 	public AccessErrorType getAccessErrorType() {
 		return this.error;
 	}
+
+	/**
+	 * Returns the HTTP status of the response that caused this exception.
+	 *
+	 * @return The status code, or 0 if the exception wasn't caused by an unexpected response
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
 }
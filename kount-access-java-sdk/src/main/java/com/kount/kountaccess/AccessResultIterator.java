@@ -0,0 +1,152 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Iterates over the entries of a getdevices or getuniques response while they are read from the connection.
+ * <p>
+ * Only one entry is held in memory at a time. The iterator closes itself when the last entry (or the requested limit)
+ * is reached. Callers that stop early must call {@link #close()} to release the connection, preferably in a
+ * try-with-resources block.
+ * <p>
+ * Errors while reading the response are thrown as {@link IllegalStateException} with the {@link AccessException} as
+ * cause.
+ *
+ * @author custserv@kount.com
+ */
+public final class AccessResultIterator implements Iterator<JSONObject>, Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(AccessResultIterator.class);
+
+	private final JsonArrayStreamReader reader;
+
+	private final Closeable[] resources;
+
+	private int remaining;
+
+	private JSONObject next;
+
+	private boolean closed;
+
+	private boolean exhausted;
+
+	/**
+	 * @param reader
+	 *            Reader positioned at the first element of the array.
+	 * @param offset
+	 *            Number of entries to skip.
+	 * @param limit
+	 *            Maximum number of entries to return, 0 for all.
+	 * @param resources
+	 *            Released when the iterator is closed.
+	 */
+	AccessResultIterator(JsonArrayStreamReader reader, int offset, int limit, Closeable... resources)
+			throws AccessException {
+		this.reader = reader;
+		this.resources = resources;
+		this.remaining = (limit > 0) ? limit : Integer.MAX_VALUE;
+		try {
+			for (int i = 0; i < offset; i++) {
+				if (!reader.skipElement()) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			close();
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Unable to parse Response", e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next != null) {
+			return true;
+		}
+		if (closed) {
+			return false;
+		}
+		if (remaining == 0) {
+			close();
+			return false;
+		}
+		String element;
+		try {
+			element = reader.nextElement();
+		} catch (IOException e) {
+			close();
+			throw new IllegalStateException(
+					new AccessException(AccessErrorType.NETWORK_ERROR, "Unable to read Response", e));
+		}
+		if (element == null) {
+			exhausted = true;
+			close();
+			return false;
+		}
+		try {
+			next = JSONObject.fromObject(element);
+		} catch (JSONException e) {
+			close();
+			throw new IllegalStateException(
+					new AccessException(AccessErrorType.INVALID_DATA, "Unable to parse response.", e));
+		}
+		remaining--;
+		return true;
+	}
+
+	@Override
+	public JSONObject next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		JSONObject result = next;
+		next = null;
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	/**
+	 * Releases the underlying connection. Entries that have not been read yet are discarded.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		// closing the content stream drains the rest of the body, so it is only done once the array has been read
+		// completely; otherwise closing the response aborts the connection
+		if (exhausted) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				logger.debug("Unable to close response reader", e);
+			}
+		}
+		for (Closeable resource : resources) {
+			try {
+				resource.close();
+			} catch (IOException e) {
+				logger.debug("Unable to release resources", e);
+			}
+		}
+	}
+}
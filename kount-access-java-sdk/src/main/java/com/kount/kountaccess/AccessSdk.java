@@ -1,34 +1,63 @@
 package com.kount.kountaccess;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.NameValuePair;
 import org.apache.http.ParseException;
 import org.apache.http.StatusLine;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.util.EntityUtils;
-import org.apache.log4j.Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.kount.kountaccess.AccessException.AccessErrorType;
 
-import net.sf.json.JSONArray;
 import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
 
@@ -43,14 +72,16 @@ import net.sf.json.JSONObject;
  * <li>apiKey - The API key assigned to the merchant.</li>
  * </ul>
  * <p>
+ * Calls that run in the background (e.g. {@link AccessSession#assess}) use the SDK's executor, see
+ * {@link #setExecutor(ExecutorService)}. Close the SDK to stop the executor it created.
  *
  * @author custserv@kount.com
  *
  * @version 2.1.0
  */
-public class AccessSdk {
+public class AccessSdk implements Closeable {
 
-	private static final Logger logger = Logger.getLogger(AccessSdk.class);
+	private static final Logger logger = LoggerFactory.getLogger(AccessSdk.class);
 
 	/**
 	 * This is the default version of the API Responses that this SDK will request. Future versions are intended to be
@@ -83,6 +114,54 @@ public class AccessSdk {
 	 */
 	private static final String BEHAVIO_DATA_ENDPOINT_POSTFIX = "/behavio/data";
 
+	/**
+	 * Maximum number of parsed behavio data endpoints (one per host and environment) kept for reuse
+	 */
+	private static final int MAX_BEHAVIO_DATA_ENDPOINTS = 16;
+
+	/**
+	 * The lookups a bulk getdevices or getuniques call runs at the same time by default
+	 */
+	public static final int DEFAULT_BULK_FAN_OUT = 8;
+
+	/**
+	 * The most lookups a bulk getdevices or getuniques call may run at the same time
+	 */
+	public static final int MAX_BULK_FAN_OUT = 64;
+
+	/**
+	 * The most threads of the executor the SDK creates for background calls
+	 */
+	private static final int MAX_WORKERS = 64;
+
+	/**
+	 * The most background calls waiting for a thread of the SDK's executor, beyond which calls are rejected
+	 */
+	private static final int MAX_QUEUED_CALLS = 1024;
+
+	/**
+	 * How long a thread of the SDK's executor without work is kept
+	 */
+	private static final long IDLE_WORKER_SECONDS = 60;
+
+	/**
+	 * Content-Type header sent with get requests, headers are immutable and shared by all requests
+	 */
+	private static final Header JSON_CONTENT_TYPE_HEADER = new BasicHeader("Content-Type", "JSON");
+
+	/**
+	 * Parameter names set by the SDK for each endpoint, additional parameters can't override them.
+	 */
+	private static final String[] NO_RESERVED_PARAMETERS = {};
+
+	private static final String[] TRUST_BY_DEVICE_PARAMETERS = { "d", "uniq", "ts" };
+
+	private static final String[] TRUST_BY_SESSION_PARAMETERS = { "uniq", "ts" };
+
+	private static final String[] BEHAVIO_DATA_PARAMETERS = { "m", "uniq", "timing" };
+
+	private static final String[] INFO_PARAMETERS = { "i", "uniq" };
+
 	/**
 	 * Merchant's ID
 	 */
@@ -106,47 +185,155 @@ public class AccessSdk {
 	/**
 	 * Velocity endpoint
 	 */
-	private final String velocityEndpoint;
+	private final URI velocityEndpoint;
 
 	/**
 	 * Decision endpoint
 	 */
-	private final String decisionEndpoint;
+	private final URI decisionEndpoint;
 
 	/**
 	 * Device endpoint
 	 */
-	private final String deviceEndpoint;
+	private final URI deviceEndpoint;
 
 	/**
 	 * devicetrustbydevice endpoint
 	 */
-	private final String deviceTrustByDeviceEndpoint;
+	private final URI deviceTrustByDeviceEndpoint;
 
 	/**
 	 * devicetrustbysession endpoint
 	 */
-	private final String deviceTrustBySessionEndpoint;
+	private final URI deviceTrustBySessionEndpoint;
 
 	/**
 	 * getdevices endpoint
 	 */
-	private final String getDevicesEndpoint;
+	private final URI getDevicesEndpoint;
 
 	/**
 	 * getuniques endpoint
 	 */
-	private final String getUniquesEndpoint;
+	private final URI getUniquesEndpoint;
 
 	/**
 	 * Info endpoint
 	 */
-	private final String infoEndpoint;
+	private final URI infoEndpoint;
+
+	/**
+	 * Parsed behavio data endpoints by host and environment
+	 */
+	private final ConcurrentMap<String, URI> behavioDataEndpoints = new ConcurrentHashMap<>();
 
 	/**
 	 * Authorization header
 	 */
-	private String authorizationHeader;
+	private final Header authorizationHeader;
+
+	/**
+	 * Whether behavio data request bodies are gzip compressed
+	 */
+	private boolean compressBehavioData;
+
+	/**
+	 * Executor for background calls, created on first use unless one is set
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Whether the executor was created by the SDK, and so is shut down by {@link #close()}
+	 */
+	private boolean ownsExecutor;
+
+	/**
+	 * The spool the writes go through, if one is open
+	 */
+	private volatile WriteSpool writeSpool;
+
+	/**
+	 * Receives the measurements of every request, if set
+	 */
+	private volatile MetricsRecorder metricsRecorder;
+
+	/**
+	 * Is told the phases of every request, if set
+	 */
+	private volatile RequestListener requestListener;
+
+	/**
+	 * Traces every request
+	 */
+	private volatile TracingListener tracingListener = TracingListener.NOOP;
+
+	/**
+	 * The share of requests logged as structured records, 0 by default
+	 */
+	private volatile double requestLogSampleRate;
+
+	/**
+	 * Keeps the last slow requests, if set
+	 */
+	private volatile SlowRequestLog slowRequestLog;
+
+	/**
+	 * Lookups of the behavio data endpoint cache
+	 */
+	private final AtomicLong behavioEndpointHits = new AtomicLong();
+
+	private final AtomicLong behavioEndpointMisses = new AtomicLong();
+
+	/**
+	 * Requests being made, per endpoint
+	 */
+	private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * The connection pools of the open background senders
+	 */
+	private final Set<PoolingHttpClientConnectionManager> connectionPools = Collections
+			.newSetFromMap(new ConcurrentHashMap<PoolingHttpClientConnectionManager, Boolean>());
+
+	/**
+	 * The open background senders
+	 */
+	private final Set<BehavioDataPipeline> behavioDataPipelines = Collections
+			.newSetFromMap(new ConcurrentHashMap<BehavioDataPipeline, Boolean>());
+
+	private final Set<DeviceTrustQueue> deviceTrustQueues = Collections
+			.newSetFromMap(new ConcurrentHashMap<DeviceTrustQueue, Boolean>());
+
+	/**
+	 * The connections of each background pool, 0 to let every sender size its own
+	 */
+	private volatile int poolMaxConnections;
+
+	/**
+	 * Timeouts in milliseconds, -1 for the HttpClient default
+	 */
+	private int connectTimeout = -1;
+
+	private int socketTimeout = -1;
+
+	private int connectionRequestTimeout = -1;
+
+	/**
+	 * The request configuration with the timeouts, null while they are all defaults
+	 */
+	private volatile RequestConfig requestConfig;
+
+	/**
+	 * Where the SDK's MBean is registered, if it is
+	 */
+	private MBeanServer mbeanServer;
+
+	private ObjectName mbeanName;
+
+	/**
+	 * Numbers the MBeans of SDKs with the same merchant
+	 */
+	private static final AtomicInteger MBEAN_INSTANCES = new AtomicInteger();
 
 	/**
 	 * Creates an instance of the AccessSdk associated with a specific host and merchant.
@@ -177,30 +364,36 @@ public class AccessSdk {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid merchantId");
 		}
 
-		// initialize the Access SDK endpoints
-		this.velocityEndpoint = "https://" + host + "/api/velocity";
-		this.deviceEndpoint = "https://" + host + "/api/device";
-		this.decisionEndpoint = "https://" + host + "/api/decision";
-		this.deviceTrustByDeviceEndpoint = "https://" + host + "/api/devicetrustbydevice";
-		this.deviceTrustBySessionEndpoint = "https://" + host + "/api/devicetrustbysession";
-		this.getDevicesEndpoint = "https://" + host + "/api/getdevices";
-		this.getUniquesEndpoint = "https://" + host + "/api/getuniques";
-		this.infoEndpoint = "https://" + host + "/api/info";
+		// initialize the Access SDK endpoints, parsed once so requests don't have to
+		try {
+			this.velocityEndpoint = URI.create("https://" + host + "/api/velocity");
+			this.deviceEndpoint = URI.create("https://" + host + "/api/device");
+			this.decisionEndpoint = URI.create("https://" + host + "/api/decision");
+			this.deviceTrustByDeviceEndpoint = URI.create("https://" + host + "/api/devicetrustbydevice");
+			this.deviceTrustBySessionEndpoint = URI.create("https://" + host + "/api/devicetrustbysession");
+			this.getDevicesEndpoint = URI.create("https://" + host + "/api/getdevices");
+			this.getUniquesEndpoint = URI.create("https://" + host + "/api/getuniques");
+			this.infoEndpoint = URI.create("https://" + host + "/api/info");
+		} catch (IllegalArgumentException iae) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid host(" + host + ")");
+		}
 
 		this.merchantId = merchantId;
 		this.apiKey = apiKey;
 		this.version = DEFAULT_API_VERSION;
-
-		logger.info("Access SDK using merchantId = " + this.merchantId + ", host = " + host + ", version = " + version
-				+ " and API key starting with " + apiKey.substring(0, 4));
-		logger.debug("velocity endpoint: " + velocityEndpoint);
-		logger.debug("decision endpoint: " + decisionEndpoint);
-		logger.debug("device endpoint: " + deviceEndpoint);
-		logger.debug("devicetrustbydevice endpoint: " + deviceTrustByDeviceEndpoint);
-		logger.debug("devicetrustbysession endpoint: " + deviceTrustBySessionEndpoint);
-		logger.debug("getdevices endpoint: " + getDevicesEndpoint);
-		logger.debug("getuniques endpoint: " + getUniquesEndpoint);
-		logger.debug("info endpoint: " + infoEndpoint);
+		this.authorizationHeader = new BasicHeader("Authorization", "Basic "
+				+ Base64.encodeBase64String((merchantId + ":" + apiKey).getBytes(StandardCharsets.UTF_8)));
+
+		logger.info("Access SDK using merchantId = {}, host = {}, version = {} and API key {}", this.merchantId, host,
+				version, LogRedactor.mask(apiKey));
+		logger.debug("velocity endpoint: {}", velocityEndpoint);
+		logger.debug("decision endpoint: {}", decisionEndpoint);
+		logger.debug("device endpoint: {}", deviceEndpoint);
+		logger.debug("devicetrustbydevice endpoint: {}", deviceTrustByDeviceEndpoint);
+		logger.debug("devicetrustbysession endpoint: {}", deviceTrustBySessionEndpoint);
+		logger.debug("getdevices endpoint: {}", getDevicesEndpoint);
+		logger.debug("getuniques endpoint: {}", getUniquesEndpoint);
+		logger.debug("info endpoint: {}", infoEndpoint);
 	}
 
 	/**
@@ -222,6 +415,42 @@ public class AccessSdk {
 		this.version = version;
 	}
 
+	/**
+	 * Starts the calls of one login. The session id is validated and the username and password are hashed once, for
+	 * all calls made through the returned {@link AccessSession}.
+	 *
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param username
+	 *            The username of the user.
+	 * @param password
+	 *            The password of the user.
+	 * @return The session context.
+	 * @throws AccessException
+	 *             Thrown if the session id is invalid.
+	 */
+	public AccessSession newSession(String session, String username, String password) throws AccessException {
+		return newSession(session, new HashedCredentials(username, password));
+	}
+
+	/**
+	 * Starts the calls of one login with already hashed credentials, see
+	 * {@link #newSession(String, String, String)}.
+	 *
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param credentials
+	 *            The hashed username and password of the user.
+	 * @return The session context.
+	 * @throws AccessException
+	 *             Thrown if the session id or the credentials are invalid.
+	 */
+	public AccessSession newSession(String session, HashedCredentials credentials) throws AccessException {
+		verifySessionId(session);
+		verifyCredentials(credentials);
+		return new AccessSession(this, session, credentials);
+	}
+
 	/**
 	 * Gets the access (velocity) data for the session's username and password.
 	 *
@@ -257,20 +486,47 @@ public class AccessSdk {
 	 */
 	public JSONObject getVelocity(String session, String username, String password,
 			Map<String, String> additionalParameters) throws AccessException {
+		return postVelocity(session, new HashedCredentials(username, password), additionalParameters);
+	}
+
+	/**
+	 * Gets the access (velocity) data for the session's already hashed username and password.
+	 *
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param credentials
+	 *            The hashed username and password of the user.
+	 * @return A JSONObject containing the response.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public JSONObject getVelocity(String session, HashedCredentials credentials) throws AccessException {
+		verifyCredentials(credentials);
+		return postVelocity(session, credentials, null);
+	}
+
+	/**
+	 * Posts a velocity request, the credentials may be null.
+	 */
+	private JSONObject postVelocity(String session, HashedCredentials credentials,
+			Map<String, String> additionalParameters) throws AccessException {
 
 		verifySessionId(session);
 
-		List<NameValuePair> parameters = createRequestParameters(session, username, password, additionalParameters);
+		FormEncoder parameters = encodeRequestParameters(session, credentials);
+		parameters.addAll(additionalParameters, NO_RESERVED_PARAMETERS);
 
-		logger.debug("velocity request: host = " + velocityEndpoint + ", parameters = " + parameters.toString());
-		long startTime = System.currentTimeMillis();
-		String response = this.postRequest(velocityEndpoint, parameters);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime) + ", response = " + response);
-		if (response != null) {
-			return processJSONEntity(response);
+		if (logger.isDebugEnabled()) {
+			logger.debug("velocity request: host = {}, parameters = {}", velocityEndpoint,
+					LogRedactor.parameters(parameters));
 		}
-
-		return null;
+		long startTime = System.nanoTime();
+		JSONObject response = this.postJSON(velocityEndpoint, parameters.toEntity());
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}, response = {}",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), response);
+		}
+		return response;
 	}
 
 	/**
@@ -301,29 +557,23 @@ public class AccessSdk {
 
 		verifySessionId(session);
 
-		StringBuilder parameters = new StringBuilder("?");
 		// version and session
-		parameters.append("v=").append(version).append("&s=").append(session);
-
-		// Add the additional parameters, if they exist.
-		if (additionalParameters != null) {
-			for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
-				parameters.append("&").append(entry.getKey()).append("=").append(entry.getValue());
-			}
-		}
-
-		String urlString = deviceEndpoint + parameters;
+		FormEncoder parameters = FormEncoder.get().add("v", version).add("s", session);
+		parameters.addAll(additionalParameters, NO_RESERVED_PARAMETERS);
 
-		logger.debug("device info request: url = " + urlString);
+		String urlString = deviceEndpoint + "?" + parameters;
 
-		long startTime = System.currentTimeMillis();
-		String response = this.getRequest(urlString);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime) + ", response = " + response);
-		if (response != null) {
-			return processJSONEntity(response);
+		if (logger.isDebugEnabled()) {
+			logger.debug("device info request: url = {}", LogRedactor.url(urlString));
 		}
 
-		return null;
+		long startTime = System.nanoTime();
+		JSONObject response = this.getJSON(urlString);
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}, response = {}",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), response);
+		}
+		return response;
 	}
 
 
@@ -333,32 +583,34 @@ public class AccessSdk {
 
 
 	public JSONObject getDevices(String uniq, Map<String, String> additionalParameters) throws AccessException {
-		if ((uniq == null) || uniq.isEmpty()) {
+		if ((uniq == null) || uniq.isEmpty() || uniq.trim().isEmpty()) {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing uniq.");
 		}
 
-		StringBuilder parameters = new StringBuilder("?");
-		// version and uniq
-		parameters.append("v=").append(version).append("&uniq=").append(uniq);
+		return requestDevices(null, uniq, additionalParameters);
+	}
 
-		// Add the additional parameters, if they exist.
-		if (additionalParameters != null) {
-			for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
-				parameters.append("&").append(entry.getKey()).append("=").append(entry.getValue());
-			}
-		}
+	/**
+	 * Gets the devices of a validated uniq. Uses the given client, or a new one if it is null.
+	 */
+	JSONObject requestDevices(CloseableHttpClient client, String uniq, Map<String, String> additionalParameters)
+			throws AccessException {
+		// version and uniq
+		FormEncoder parameters = FormEncoder.get().add("v", version).add("uniq", uniq);
+		parameters.addAll(additionalParameters, NO_RESERVED_PARAMETERS);
 
-		String urlString = getDevicesEndpoint + parameters;
+		String urlString = getDevicesEndpoint + "?" + parameters;
 
-		logger.debug("getdevices request: url = " + urlString);
-		long startTime = System.currentTimeMillis();
-		String response = this.getRequest(urlString);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime) + ", response = " + response);
-		if (response != null) {
-			return processJSONEntity(response);
+		if (logger.isDebugEnabled()) {
+			logger.debug("getdevices request: url = {}", LogRedactor.url(urlString));
 		}
-
-		return null;
+		long startTime = System.nanoTime();
+		JSONObject response = (client != null) ? this.getJSON(client, urlString) : this.getJSON(urlString);
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}, response = {}",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), response);
+		}
+		return response;
 	}
 
 	/**
@@ -396,6 +648,101 @@ public class AccessSdk {
 	 */
 	public void setDeviceTrustByDevice(String deviceId, String uniq, String trustedState,
 			Map<String, String> additionalParameters) throws AccessException {
+		verifyDeviceTrust(deviceId, uniq, trustedState);
+
+		WriteSpool spool = writeSpool;
+		if (spool != null) {
+			spool.write(SpoolRecord.deviceTrust(deviceId, uniq, trustedState, additionalParameters), null);
+		} else {
+			postDeviceTrust(null, deviceId, uniq, trustedState, additionalParameters);
+		}
+	}
+
+	/**
+	 * Creates a queue that sets device trust in the background. Updates for a device and uniq that are still waiting
+	 * are merged, so only the latest trusted state is sent. The queue has its own threads and pooled connections;
+	 * close it when it is no longer needed.
+	 *
+	 * @param parallelism
+	 *            The most updates sent at the same time.
+	 * @return The started queue.
+	 * @throws AccessException
+	 *             Thrown if the parallelism is less than one.
+	 */
+	public DeviceTrustQueue newDeviceTrustQueue(int parallelism) throws AccessException {
+		if (parallelism < 1) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid parallelism (" + parallelism + ").");
+		}
+		DeviceTrustQueue queue = new DeviceTrustQueue(this, parallelism);
+		deviceTrustQueues.add(queue);
+		return queue;
+	}
+
+	/**
+	 * Opens a write spool in a directory and routes the device trust and behavio data writes through it, so they
+	 * aren't lost while Kount is unreachable: a write that fails with a network error is journaled on disk instead of
+	 * throwing, and replayed in order in the background once the service answers again. Writes already in the
+	 * directory from an earlier run are replayed too. Behavio data streamed from an InputStream is never spooled.
+	 *
+	 * @param directory
+	 *            The directory of the segment files, created if missing.
+	 * @param segmentBytes
+	 *            The size of one segment file, which is also the largest write that can be spooled.
+	 * @param maxBytes
+	 *            The most disk space all segment files may take; writes that don't fit fail with their network error.
+	 * @return The open spool. Closing it detaches it from the SDK.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid, a spool is already open, or the directory can't be
+	 *             read or written.
+	 */
+	public synchronized WriteSpool openWriteSpool(File directory, int segmentBytes, long maxBytes)
+			throws AccessException {
+		if (directory == null) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing spool directory.");
+		}
+		if (segmentBytes < WriteSpool.MIN_SEGMENT_BYTES) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid segment size (" + segmentBytes
+					+ ").  Must be at least " + WriteSpool.MIN_SEGMENT_BYTES + " bytes.");
+		}
+		if (maxBytes < segmentBytes) {
+			throw new AccessException(AccessErrorType.INVALID_DATA,
+					"Invalid spool limit (" + maxBytes + ").  Must be at least one segment.");
+		}
+		if (writeSpool != null) {
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "A write spool is already open.");
+		}
+		WriteSpool spool = new WriteSpool(this, directory, segmentBytes, maxBytes);
+		writeSpool = spool;
+		return spool;
+	}
+
+	/**
+	 * Stops routing writes through a spool that is closing.
+	 */
+	synchronized void detachWriteSpool(WriteSpool spool) {
+		if (writeSpool == spool) {
+			writeSpool = null;
+		}
+	}
+
+	/**
+	 * Forgets a device trust queue that is closing.
+	 */
+	void detachDeviceTrustQueue(DeviceTrustQueue queue) {
+		deviceTrustQueues.remove(queue);
+	}
+
+	/**
+	 * Forgets a behavio data pipeline that is closing.
+	 */
+	void detachBehavioDataPipeline(BehavioDataPipeline pipeline) {
+		behavioDataPipelines.remove(pipeline);
+	}
+
+	/**
+	 * Checks a device trust update by device id.
+	 */
+	void verifyDeviceTrust(String deviceId, String uniq, String trustedState) throws AccessException {
 		if ((deviceId == null) || deviceId.isEmpty() || deviceId.trim().isEmpty()) {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing deviceId.");
 		}
@@ -403,20 +750,44 @@ public class AccessSdk {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing uniq.");
 		}
 		verifyTrustedState(trustedState);
+	}
 
-		if (additionalParameters == null) {
-			additionalParameters = new HashMap<>();
+	/**
+	 * Sends a checked device trust update over a client that stays open, through the write spool if one is open.
+	 */
+	void sendDeviceTrust(CloseableHttpClient client, String deviceId, String uniq, String trustedState)
+			throws AccessException {
+		WriteSpool spool = writeSpool;
+		if (spool != null) {
+			spool.write(SpoolRecord.deviceTrust(deviceId, uniq, trustedState, null), client);
+		} else {
+			postDeviceTrust(client, deviceId, uniq, trustedState, null);
 		}
-		additionalParameters.put("d", deviceId);
-		additionalParameters.put("uniq", uniq);
-		additionalParameters.put("ts", trustedState);
+	}
+
+	/**
+	 * Posts a validated device trust update by device id, bypassing any write spool. Uses the given client, or a new
+	 * one if it is null.
+	 */
+	void postDeviceTrust(CloseableHttpClient client, String deviceId, String uniq, String trustedState,
+			Map<String, String> additionalParameters) throws AccessException {
+		FormEncoder parameters = encodeRequestParameters(null, null);
+		parameters.add("d", deviceId).add("uniq", uniq).add("ts", trustedState);
+		parameters.addAll(additionalParameters, TRUST_BY_DEVICE_PARAMETERS);
 
-		List<NameValuePair> parameters = createRequestParameters(null, null, null, additionalParameters);
-		logger.debug("devicetrustbydevice request: host = " + deviceTrustByDeviceEndpoint + ", parameters = "
-				+ parameters.toString());
-		long startTime = System.currentTimeMillis();
-		this.postRequest(deviceTrustByDeviceEndpoint, parameters);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime));
+		if (logger.isDebugEnabled()) {
+			logger.debug("devicetrustbydevice request: host = {}, parameters = {}", deviceTrustByDeviceEndpoint,
+					LogRedactor.parameters(parameters));
+		}
+		long startTime = System.nanoTime();
+		if (client != null) {
+			this.postRequest(client, deviceTrustByDeviceEndpoint, parameters.toEntity());
+		} else {
+			this.postRequest(deviceTrustByDeviceEndpoint, parameters.toEntity());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		}
 	}
 
 	/**
@@ -460,18 +831,37 @@ public class AccessSdk {
 		}
 		verifyTrustedState(trustedState);
 
-		if (additionalParameters == null) {
-			additionalParameters = new HashMap<>();
+		WriteSpool spool = writeSpool;
+		if (spool != null) {
+			spool.write(SpoolRecord.sessionTrust(session, uniq, trustedState, additionalParameters), null);
+		} else {
+			postDeviceTrustBySession(null, session, uniq, trustedState, additionalParameters);
 		}
-		additionalParameters.put("uniq", uniq);
-		additionalParameters.put("ts", trustedState);
+	}
+
+	/**
+	 * Posts a validated device trust update by session, bypassing any write spool. Uses the given client, or a new one
+	 * if it is null.
+	 */
+	void postDeviceTrustBySession(CloseableHttpClient client, String session, String uniq, String trustedState,
+			Map<String, String> additionalParameters) throws AccessException {
+		FormEncoder parameters = encodeRequestParameters(session, null);
+		parameters.add("uniq", uniq).add("ts", trustedState);
+		parameters.addAll(additionalParameters, TRUST_BY_SESSION_PARAMETERS);
 
-		List<NameValuePair> parameters = createRequestParameters(session, null, null, additionalParameters);
-		logger.debug("devicetrustbysession request: host = " + deviceTrustBySessionEndpoint + ", parameters = "
-				+ parameters.toString());
-		long startTime = System.currentTimeMillis();
-		this.postRequest(deviceTrustBySessionEndpoint, parameters);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime));
+		if (logger.isDebugEnabled()) {
+			logger.debug("devicetrustbysession request: host = {}, parameters = {}", deviceTrustBySessionEndpoint,
+					LogRedactor.parameters(parameters));
+		}
+		long startTime = System.nanoTime();
+		if (client != null) {
+			this.postRequest(client, deviceTrustBySessionEndpoint, parameters.toEntity());
+		} else {
+			this.postRequest(deviceTrustBySessionEndpoint, parameters.toEntity());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		}
 	}
 
 	/**
@@ -509,19 +899,47 @@ public class AccessSdk {
 	 */
 	public JSONObject getDecision(String session, String username, String password,
 			Map<String, String> additionalParameters) throws AccessException {
+		return postDecision(session, new HashedCredentials(username, password), additionalParameters);
+	}
+
+	/**
+	 * Gets the threshold decision and velocity data for the session's already hashed username and password.
+	 *
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param credentials
+	 *            The hashed username and password of the user.
+	 * @return A JSONObject containing the response.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public JSONObject getDecision(String session, HashedCredentials credentials) throws AccessException {
+		verifyCredentials(credentials);
+		return postDecision(session, credentials, null);
+	}
+
+	/**
+	 * Posts a decision request, the credentials may be null.
+	 */
+	private JSONObject postDecision(String session, HashedCredentials credentials,
+			Map<String, String> additionalParameters) throws AccessException {
 
 		verifySessionId(session);
 
-		List<NameValuePair> parameters = createRequestParameters(session, username, password, additionalParameters);
-		logger.debug("decision request: host = " + decisionEndpoint + ", parameters = " + parameters.toString());
-		long startTime = System.currentTimeMillis();
-		String response = this.postRequest(decisionEndpoint, parameters);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime) + ", response = " + response);
-		if (response != null) {
-			return processJSONEntity(response);
-		}
+		FormEncoder parameters = encodeRequestParameters(session, credentials);
+		parameters.addAll(additionalParameters, NO_RESERVED_PARAMETERS);
 
-		return null;
+		if (logger.isDebugEnabled()) {
+			logger.debug("decision request: host = {}, parameters = {}", decisionEndpoint,
+					LogRedactor.parameters(parameters));
+		}
+		long startTime = System.nanoTime();
+		JSONObject response = this.postJSON(decisionEndpoint, parameters.toEntity());
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}, response = {}",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), response);
+		}
+		return response;
 	}
 
 	/**
@@ -549,48 +967,727 @@ public class AccessSdk {
 	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
 	 */
 	public JSONObject getUniques(String deviceId, Map<String, String> additionalParameters) throws AccessException {
-		if ((deviceId == null) || deviceId.isEmpty()) {
+		if ((deviceId == null) || deviceId.isEmpty() || deviceId.trim().isEmpty()) {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing deviceId.");
 		}
 
-		StringBuilder parameters = new StringBuilder("?");
-		// version and deviceId
-		parameters.append("v=").append(version).append("&d=").append(deviceId);
+		return requestUniques(null, deviceId, additionalParameters);
+	}
 
-		// Add the additional parameters, if they exist.
-		if (additionalParameters != null) {
-			for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
-				parameters.append("&").append(entry.getKey()).append("=").append(entry.getValue());
-			}
-		}
+	/**
+	 * Gets the uniques of a validated deviceId. Uses the given client, or a new one if it is null.
+	 */
+	JSONObject requestUniques(CloseableHttpClient client, String deviceId,
+			Map<String, String> additionalParameters) throws AccessException {
+		// version and deviceId
+		FormEncoder parameters = FormEncoder.get().add("v", version).add("d", deviceId);
+		parameters.addAll(additionalParameters, NO_RESERVED_PARAMETERS);
 
-		String urlString = getUniquesEndpoint + parameters;
+		String urlString = getUniquesEndpoint + "?" + parameters;
 
-		logger.debug("getuniques request: url = " + urlString);
-		long startTime = System.currentTimeMillis();
-		String response = this.getRequest(urlString);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime) + ", response = " + response);
-		if (response != null) {
-			return processJSONEntity(response);
+		if (logger.isDebugEnabled()) {
+			logger.debug("getuniques request: url = {}", LogRedactor.url(urlString));
 		}
-
-		return null;
+		long startTime = System.nanoTime();
+		JSONObject response = (client != null) ? this.getJSON(client, urlString) : this.getJSON(urlString);
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}, response = {}",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), response);
+		}
+		return response;
 	}
 
 
-	public void setBehavioData(String host, String environment, String session, String timing, String uniq)
-			throws AccessException {
-		setBehavioData(host, environment, session, timing, uniq, null);
-	}
-	
 	/**
-	 * Sets behavio data for a uniq customer identifier.
+	 * Streams the devices related to a uniq customer identifier. Entries are parsed one at a time while they are read
+	 * from the connection, so memory use does not depend on the number of devices.
 	 *
-	 * @param host
-	 *            of the behavio data endpoint
-	 * @param environment
-	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
-	 * @param session
+	 * @param uniq
+	 *            customer identifier
+	 * @param offset
+	 *            Number of devices to skip.
+	 * @param limit
+	 *            Maximum number of devices to return, 0 for all.
+	 * @return An iterator over the "devices" entries. It must be closed if not read to the end.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public AccessResultIterator getDevicesIterator(String uniq, int offset, int limit) throws AccessException {
+		return getDevicesIterator(uniq, offset, limit, null);
+	}
+
+	/**
+	 * Streams the devices related to a uniq customer identifier. Contains argument for passing additional parameters.
+	 *
+	 * @param uniq
+	 *            customer identifier
+	 * @param offset
+	 *            Number of devices to skip.
+	 * @param limit
+	 *            Maximum number of devices to return, 0 for all.
+	 * @param additionalParameters
+	 *            Additional parameters to send to server.
+	 * @return An iterator over the "devices" entries. It must be closed if not read to the end.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public AccessResultIterator getDevicesIterator(String uniq, int offset, int limit,
+			Map<String, String> additionalParameters) throws AccessException {
+		if ((uniq == null) || uniq.isEmpty() || uniq.trim().isEmpty()) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing uniq.");
+		}
+		verifyPage(offset, limit);
+
+		// version and uniq
+		FormEncoder parameters = FormEncoder.get().add("v", version).add("uniq", uniq);
+		parameters.addAll(additionalParameters, NO_RESERVED_PARAMETERS);
+
+		String urlString = getDevicesEndpoint + "?" + parameters;
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("getdevices stream request: url = {}, offset = {}, limit = {}", LogRedactor.url(urlString),
+					offset, limit);
+		}
+		return this.getResultIterator(urlString, "devices", offset, limit);
+	}
+
+	/**
+	 * Streams the uniq customer IDs for the given deviceId. Entries are parsed one at a time while they are read from
+	 * the connection, so memory use does not depend on the number of uniques.
+	 *
+	 * @param deviceId
+	 *            Device ID(fingerprint).
+	 * @param offset
+	 *            Number of uniques to skip.
+	 * @param limit
+	 *            Maximum number of uniques to return, 0 for all.
+	 * @return An iterator over the "uniques" entries. It must be closed if not read to the end.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public AccessResultIterator getUniquesIterator(String deviceId, int offset, int limit) throws AccessException {
+		return getUniquesIterator(deviceId, offset, limit, null);
+	}
+
+	/**
+	 * Streams the uniq customer IDs for the given deviceId. Contains argument for passing additional parameters.
+	 *
+	 * @param deviceId
+	 *            Device ID(fingerprint).
+	 * @param offset
+	 *            Number of uniques to skip.
+	 * @param limit
+	 *            Maximum number of uniques to return, 0 for all.
+	 * @param additionalParameters
+	 *            Additional parameters to send to server.
+	 * @return An iterator over the "uniques" entries. It must be closed if not read to the end.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public AccessResultIterator getUniquesIterator(String deviceId, int offset, int limit,
+			Map<String, String> additionalParameters) throws AccessException {
+		if ((deviceId == null) || deviceId.isEmpty() || deviceId.trim().isEmpty()) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing deviceId.");
+		}
+		verifyPage(offset, limit);
+
+		// version and deviceId
+		FormEncoder parameters = FormEncoder.get().add("v", version).add("d", deviceId);
+		parameters.addAll(additionalParameters, NO_RESERVED_PARAMETERS);
+
+		String urlString = getUniquesEndpoint + "?" + parameters;
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("getuniques stream request: url = {}, offset = {}, limit = {}", LogRedactor.url(urlString),
+					offset, limit);
+		}
+		return this.getResultIterator(urlString, "uniques", offset, limit);
+	}
+
+	/**
+	 * Gets the devices of many uniq customer identifiers, running up to {@value #DEFAULT_BULK_FAN_OUT} lookups at the
+	 * same time. See {@link #getDevicesBulk(Collection, int)}.
+	 *
+	 * @param uniqs
+	 *            customer identifiers
+	 * @return The results, as the lookups complete.
+	 * @throws AccessException
+	 *             Thrown if any of the uniqs is invalid.
+	 */
+	public BulkLookupIterator getDevicesBulk(Collection<String> uniqs) throws AccessException {
+		return getDevicesBulk(uniqs, DEFAULT_BULK_FAN_OUT);
+	}
+
+	/**
+	 * Gets the devices of many uniq customer identifiers. The lookups run in parallel on the SDK's executor over
+	 * pooled connections, duplicate uniqs are looked up once, and the results are returned as the lookups complete. A
+	 * failed lookup is returned as a result with its error.
+	 *
+	 * @param uniqs
+	 *            customer identifiers
+	 * @param fanOut
+	 *            The most lookups run at the same time, up to {@value #MAX_BULK_FAN_OUT}.
+	 * @return The results, as the lookups complete. Close it to cancel the remaining lookups.
+	 * @throws AccessException
+	 *             Thrown if any of the uniqs or the fan-out is invalid.
+	 */
+	public BulkLookupIterator getDevicesBulk(Collection<String> uniqs, int fanOut) throws AccessException {
+		verifyBulkLookup(uniqs, "uniq", fanOut);
+		return new BulkLookupIterator(this, BulkLookupIterator.Lookup.DEVICES, uniqs, fanOut);
+	}
+
+	/**
+	 * Gets the uniq customer identifiers of many devices, running up to {@value #DEFAULT_BULK_FAN_OUT} lookups at the
+	 * same time. See {@link #getUniquesBulk(Collection, int)}.
+	 *
+	 * @param deviceIds
+	 *            Device IDs(fingerprints).
+	 * @return The results, as the lookups complete.
+	 * @throws AccessException
+	 *             Thrown if any of the device ids is invalid.
+	 */
+	public BulkLookupIterator getUniquesBulk(Collection<String> deviceIds) throws AccessException {
+		return getUniquesBulk(deviceIds, DEFAULT_BULK_FAN_OUT);
+	}
+
+	/**
+	 * Gets the uniq customer identifiers of many devices. The lookups run in parallel on the SDK's executor over
+	 * pooled connections, duplicate device ids are looked up once, and the results are returned as the lookups
+	 * complete. A failed lookup is returned as a result with its error.
+	 *
+	 * @param deviceIds
+	 *            Device IDs(fingerprints).
+	 * @param fanOut
+	 *            The most lookups run at the same time, up to {@value #MAX_BULK_FAN_OUT}.
+	 * @return The results, as the lookups complete. Close it to cancel the remaining lookups.
+	 * @throws AccessException
+	 *             Thrown if any of the device ids or the fan-out is invalid.
+	 */
+	public BulkLookupIterator getUniquesBulk(Collection<String> deviceIds, int fanOut) throws AccessException {
+		verifyBulkLookup(deviceIds, "deviceId", fanOut);
+		return new BulkLookupIterator(this, BulkLookupIterator.Lookup.UNIQUES, deviceIds, fanOut);
+	}
+
+	/**
+	 * Checks the keys and fan-out of a bulk lookup before any request is made.
+	 */
+	private void verifyBulkLookup(Collection<String> keys, String name, int fanOut) throws AccessException {
+		if (keys == null) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing " + name + "s.");
+		}
+		for (String key : keys) {
+			if ((key == null) || key.isEmpty() || key.trim().isEmpty()) {
+				throw new AccessException(AccessErrorType.INVALID_DATA, "Missing " + name + ".");
+			}
+		}
+		if ((fanOut < 1) || (fanOut > MAX_BULK_FAN_OUT)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA,
+					"Invalid fanOut (" + fanOut + ").  Must be between 1 and " + MAX_BULK_FAN_OUT + ".");
+		}
+	}
+
+	/**
+	 * Sets behavio data for a uniq customer identifier.
+	 *
+	 * @param host
+	 *            of the behavio data endpoint
+	 * @param environment
+	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param timing
+	 *            data gathered from a BehavioSec collection
+	 * @param uniq
+	 *            customer identifier
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public void setBehavioData(String host, String environment, String session, String timing, String uniq)
+			throws AccessException {
+		setBehavioData(host, environment, session, timing, uniq, null);
+	}
+
+	/**
+	 * Sets behavio data for a uniq customer identifier, with the timing data as UTF-8 encoded bytes. The bytes are
+	 * encoded straight into the request body without further copies.
+	 *
+	 * @param host
+	 *            of the behavio data endpoint
+	 * @param environment
+	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param timing
+	 *            data gathered from a BehavioSec collection, UTF-8 encoded json
+	 * @param uniq
+	 *            customer identifier
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public void setBehavioDataBytes(String host, String environment, String session, byte[] timing, String uniq)
+			throws AccessException {
+		setBehavioDataBytes(host, environment, session, (timing != null) ? ByteBuffer.wrap(timing) : null, uniq);
+	}
+
+	/**
+	 * Sets behavio data for a uniq customer identifier, with the timing data as UTF-8 encoded bytes between the
+	 * buffer's position and limit. The buffer's position is not changed.
+	 *
+	 * @param host
+	 *            of the behavio data endpoint
+	 * @param environment
+	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param timing
+	 *            data gathered from a BehavioSec collection, UTF-8 encoded json
+	 * @param uniq
+	 *            customer identifier
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public void setBehavioDataBytes(String host, String environment, String session, ByteBuffer timing,
+			String uniq)
+			throws AccessException {
+		verifyBehavioRequest(host, environment, session, timing, uniq);
+
+		sendBehavioData(null, host, environment, session, uniq, timing);
+	}
+
+	/**
+	 * Sets behavio data for a uniq customer identifier, streaming the timing data from an InputStream. The stream is
+	 * read in chunks while the request is sent, and closed when this returns, also if the parameters are invalid or the
+	 * request fails. Since it is never buffered, the timing data is not checked for valid json before sending.
+	 *
+	 * @param host
+	 *            of the behavio data endpoint
+	 * @param environment
+	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param timing
+	 *            data gathered from a BehavioSec collection, UTF-8 encoded json
+	 * @param uniq
+	 *            customer identifier
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public void setBehavioDataStream(String host, String environment, String session, InputStream timing,
+			String uniq)
+			throws AccessException {
+		try {
+			verifySessionId(session);
+			verifyBehavioEndpoint(host, environment);
+			if (timing == null) {
+				throw new AccessException(AccessErrorType.INVALID_DATA, "Missing timing data.");
+			}
+			verifyBehavioUniq(uniq);
+
+			postBehavioData(null, host, environment, session, uniq, null, timing, null);
+		} finally {
+			if (timing != null) {
+				try {
+					timing.close();
+				} catch (IOException ioe) {
+					logger.debug("Unable to close the timing stream", ioe);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Enables gzip compression of the behavio data request body. Disabled by default, enable it only if the behavio
+	 * host accepts gzip encoded requests.
+	 *
+	 * @param compress
+	 *            true to send Content-Encoding: gzip request bodies.
+	 */
+	public void setBehavioDataCompression(boolean compress) {
+		this.compressBehavioData = compress;
+	}
+
+	/**
+	 * Sets the executor that runs the SDK's background calls. The SDK doesn't shut it down. If none is set, a pool of
+	 * up to 64 daemon threads is created on first use and shut down by {@link #close()}; it queues up to 1024 calls and
+	 * rejects calls beyond that, which then fail with {@link AccessErrorType#INTERNAL_ERROR}.
+	 *
+	 * @param executor
+	 *            The executor, or null to use the SDK's own.
+	 */
+	public synchronized void setExecutor(ExecutorService executor) {
+		if (ownsExecutor) {
+			this.executor.shutdown();
+			ownsExecutor = false;
+		}
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the recorder that receives the latency, status, size and error of every request, per endpoint. None is set
+	 * by default.
+	 *
+	 * @param recorder
+	 *            The recorder, or null to stop recording.
+	 * @see InMemoryMetricsRecorder
+	 */
+	public void setMetricsRecorder(MetricsRecorder recorder) {
+		this.metricsRecorder = recorder;
+	}
+
+	/**
+	 * @return The recorder of request metrics, or null if none is set.
+	 */
+	public MetricsRecorder getMetricsRecorder() {
+		return metricsRecorder;
+	}
+
+	/**
+	 * Sets the listener that is told the endpoint, outcome and phase timings (pool wait, DNS, connect, TLS, time to
+	 * first byte, body read and JSON decode) of every request. None is set by default.
+	 *
+	 * @param listener
+	 *            The listener, or null to stop telling.
+	 */
+	public void setRequestListener(RequestListener listener) {
+		this.requestListener = listener;
+	}
+
+	/**
+	 * @return The request listener, or null if none is set.
+	 */
+	public RequestListener getRequestListener() {
+		return requestListener;
+	}
+
+	/**
+	 * Sets the listener that traces every request: it is told when a request starts, and can set its headers to
+	 * propagate a trace context, and when it ends or fails. {@link TracingListener#NOOP} by default.
+	 *
+	 * @param listener
+	 *            The listener, or null to stop tracing.
+	 */
+	public void setTracingListener(TracingListener listener) {
+		this.tracingListener = (listener != null) ? listener : TracingListener.NOOP;
+	}
+
+	/**
+	 * @return The tracing listener, {@link TracingListener#NOOP} if none is set.
+	 */
+	public TracingListener getTracingListener() {
+		return tracingListener;
+	}
+
+	/**
+	 * Logs a sample of the requests as structured key=value records, at INFO on the
+	 * <code>com.kount.kountaccess.requests</code> logger: endpoint, host, status, error, attempt, connection reuse, the
+	 * phase timings and the sizes. The records hold no request parameters. Off by default.
+	 *
+	 * @param rate
+	 *            The share of requests logged, from 0 (none) to 1 (all).
+	 * @throws AccessException
+	 *             Thrown if the rate is out of range.
+	 */
+	public void setRequestLogSampleRate(double rate) throws AccessException {
+		if (!((rate >= 0.0) && (rate <= 1.0))) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid sample rate (" + rate + ").");
+		}
+		this.requestLogSampleRate = rate;
+	}
+
+	/**
+	 * @return The share of requests logged as structured records.
+	 */
+	public double getRequestLogSampleRate() {
+		return requestLogSampleRate;
+	}
+
+	/**
+	 * Sets the log that keeps the last requests slower than its threshold, dumpable with
+	 * {@link SlowRequestLog#dump()} or from the MXBean.
+	 *
+	 * @param log
+	 *            The log, or null to keep none.
+	 */
+	public void setSlowRequestLog(SlowRequestLog log) {
+		this.slowRequestLog = log;
+	}
+
+	/**
+	 * @return The slow request log, or null if none is set.
+	 */
+	public SlowRequestLog getSlowRequestLog() {
+		return slowRequestLog;
+	}
+
+	/**
+	 * Sets how long a request waits to connect. Applies to requests started afterwards.
+	 *
+	 * @param millis
+	 *            The timeout in milliseconds, 0 for none, or -1 for the HttpClient default.
+	 */
+	public synchronized void setConnectTimeout(int millis) {
+		connectTimeout = Math.max(-1, millis);
+		updateRequestConfig();
+	}
+
+	/**
+	 * @return The connect timeout in milliseconds, -1 for the HttpClient default.
+	 */
+	public synchronized int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * Sets how long a request waits for data from the server. Applies to requests started afterwards.
+	 *
+	 * @param millis
+	 *            The timeout in milliseconds, 0 for none, or -1 for the HttpClient default.
+	 */
+	public synchronized void setSocketTimeout(int millis) {
+		socketTimeout = Math.max(-1, millis);
+		updateRequestConfig();
+	}
+
+	/**
+	 * @return The socket timeout in milliseconds, -1 for the HttpClient default.
+	 */
+	public synchronized int getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	/**
+	 * Sets how long a background request waits for a connection from its pool. Applies to requests started
+	 * afterwards.
+	 *
+	 * @param millis
+	 *            The timeout in milliseconds, 0 for none, or -1 for the HttpClient default.
+	 */
+	public synchronized void setConnectionRequestTimeout(int millis) {
+		connectionRequestTimeout = Math.max(-1, millis);
+		updateRequestConfig();
+	}
+
+	/**
+	 * @return The connection request timeout in milliseconds, -1 for the HttpClient default.
+	 */
+	public synchronized int getConnectionRequestTimeout() {
+		return connectionRequestTimeout;
+	}
+
+	private void updateRequestConfig() {
+		if ((connectTimeout < 0) && (socketTimeout < 0) && (connectionRequestTimeout < 0)) {
+			requestConfig = null;
+		} else {
+			requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout)
+					.setConnectionRequestTimeout(connectionRequestTimeout).build();
+		}
+	}
+
+	/**
+	 * Sets the number of connections of every background sender's pool (pipelines, queues, spools and bulk lookups),
+	 * including the pools already open.
+	 *
+	 * @param maxConnections
+	 *            The connections per pool, or 0 to let every sender size its pool by its parallelism.
+	 * @throws AccessException
+	 *             Thrown if the number is negative.
+	 */
+	public void setPoolMaxConnections(int maxConnections) throws AccessException {
+		if (maxConnections < 0) {
+			throw new AccessException(AccessErrorType.INVALID_DATA,
+					"Invalid pool size (" + maxConnections + ").");
+		}
+		poolMaxConnections = maxConnections;
+		if (maxConnections > 0) {
+			for (PoolingHttpClientConnectionManager pool : connectionPools) {
+				pool.setMaxTotal(maxConnections);
+				pool.setDefaultMaxPerRoute(maxConnections);
+			}
+		}
+	}
+
+	/**
+	 * @return The connections per background pool, 0 if every sender sizes its own.
+	 */
+	public int getPoolMaxConnections() {
+		return poolMaxConnections;
+	}
+
+	/**
+	 * Registers an {@link AccessSdkMXBean} for this SDK with the platform MBean server, under
+	 * <code>com.kount.kountaccess:type=AccessSdk,merchant=&lt;merchantId&gt;,instance=&lt;n&gt;</code>. It shows the
+	 * connection pools, the requests in flight, the queues and the write spool, and lets the pool size and the
+	 * timeouts be changed live. {@link #close()} unregisters it.
+	 *
+	 * @return The name of the MBean.
+	 * @throws AccessException
+	 *             Thrown if the MBean can't be registered.
+	 */
+	public ObjectName registerMBean() throws AccessException {
+		return registerMBean(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * Registers an {@link AccessSdkMXBean} for this SDK with an MBean server, see {@link #registerMBean()}.
+	 *
+	 * @param server
+	 *            The MBean server.
+	 * @return The name of the MBean, the same if it is already registered.
+	 * @throws AccessException
+	 *             Thrown if the server is missing or the MBean can't be registered.
+	 */
+	public synchronized ObjectName registerMBean(MBeanServer server) throws AccessException {
+		if (server == null) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing MBean server.");
+		}
+		if (mbeanName != null) {
+			return mbeanName;
+		}
+		Hashtable<String, String> properties = new Hashtable<>();
+		properties.put("type", "AccessSdk");
+		properties.put("merchant", Integer.toString(merchantId));
+		properties.put("instance", Integer.toString(MBEAN_INSTANCES.incrementAndGet()));
+		try {
+			ObjectName name = new ObjectName(AccessSdk.class.getPackage().getName(), properties);
+			server.registerMBean(new AccessSdkMonitor(this), name);
+			mbeanServer = server;
+			mbeanName = name;
+			return name;
+		} catch (JMException jme) {
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Unable to register the MBean.", jme);
+		}
+	}
+
+	/**
+	 * Unregisters the SDK's MBean, if it is registered.
+	 */
+	public synchronized void unregisterMBean() {
+		if (mbeanName == null) {
+			return;
+		}
+		try {
+			mbeanServer.unregisterMBean(mbeanName);
+		} catch (JMException jme) {
+			logger.warn("Unable to unregister {}", mbeanName, jme);
+		}
+		mbeanServer = null;
+		mbeanName = null;
+	}
+
+	/**
+	 * @return The summed statistics of the open background connection pools.
+	 */
+	PoolStats getPoolStats() {
+		int leased = 0;
+		int pending = 0;
+		int available = 0;
+		int max = 0;
+		for (PoolingHttpClientConnectionManager pool : connectionPools) {
+			PoolStats stats = pool.getTotalStats();
+			leased += stats.getLeased();
+			pending += stats.getPending();
+			available += stats.getAvailable();
+			max += stats.getMax();
+		}
+		return new PoolStats(leased, pending, available, max);
+	}
+
+	/**
+	 * @return The number of open background connection pools.
+	 */
+	int getPoolCount() {
+		return connectionPools.size();
+	}
+
+	/**
+	 * @return The requests being made per endpoint, for endpoints called so far.
+	 */
+	Map<String, Integer> getInFlightRequests() {
+		Map<String, Integer> counts = new TreeMap<>();
+		for (Map.Entry<String, AtomicInteger> count : inFlight.entrySet()) {
+			counts.put(count.getKey(), count.getValue().get());
+		}
+		return counts;
+	}
+
+	int getBehavioEndpointCacheSize() {
+		return behavioDataEndpoints.size();
+	}
+
+	long getBehavioEndpointCacheHits() {
+		return behavioEndpointHits.get();
+	}
+
+	long getBehavioEndpointCacheMisses() {
+		return behavioEndpointMisses.get();
+	}
+
+	/**
+	 * @return The submissions waiting in all open behavio data pipelines.
+	 */
+	int getBehavioDataQueueDepth() {
+		int depth = 0;
+		for (BehavioDataPipeline pipeline : behavioDataPipelines) {
+			depth += pipeline.getQueueDepth();
+		}
+		return depth;
+	}
+
+	/**
+	 * @return The updates waiting in all open device trust queues.
+	 */
+	int getDeviceTrustQueueDepth() {
+		int depth = 0;
+		for (DeviceTrustQueue queue : deviceTrustQueues) {
+			depth += queue.getQueueDepth();
+		}
+		return depth;
+	}
+
+	/**
+	 * @return The open write spool, or null.
+	 */
+	WriteSpool getWriteSpool() {
+		return writeSpool;
+	}
+
+	/**
+	 * @return The executor for background calls, created if none was set.
+	 */
+	synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			ThreadPoolExecutor workers = new ThreadPoolExecutor(MAX_WORKERS, MAX_WORKERS, IDLE_WORKER_SECONDS,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED_CALLS), new AccessThreadFactory("worker"),
+					new ThreadPoolExecutor.AbortPolicy());
+			workers.allowCoreThreadTimeOut(true);
+			executor = workers;
+			ownsExecutor = true;
+		}
+		return executor;
+	}
+
+	/**
+	 * Unregisters the SDK's MBean and shuts down the executor created by the SDK, if any. Calls already running are
+	 * completed.
+	 */
+	@Override
+	public synchronized void close() {
+		unregisterMBean();
+		if (ownsExecutor) {
+			executor.shutdown();
+			executor = null;
+			ownsExecutor = false;
+		}
+	}
+
+	/**
+	 * Sets behavio data for a uniq customer identifier.
+	 *
+	 * @param host
+	 *            of the behavio data endpoint
+	 * @param environment
+	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
+	 * @param session
 	 *            The Session ID generated for the Data Collector service.
 	 * @param timing
 	 *            data gathered from a BehavioSec collection
@@ -598,38 +1695,135 @@ public class AccessSdk {
 	 *            customer identifier
 	 * @param additionalParameters
 	 *            Additional parameters to send to server.
-	 * @return A JSONObject containing the response.
 	 * @throws AccessException
 	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
 	 */
-	
-	/* */
-	private void setBehavioData(String host, String environment, String session, String timing, String uniq,
-			Map<String, String> additionalParameters) throws AccessException {
+	private void setBehavioData(String host, String environment, String session, String timing, String uniq,
+			Map<String, String> additionalParameters) throws AccessException {
+		ByteBuffer timingBytes = verifyBehavioRequest(host, environment, session, timing, uniq);
+
+		WriteSpool spool = writeSpool;
+		if (spool != null) {
+			spool.write(SpoolRecord.behavioData(host, environment, session, uniq, timingBytes, additionalParameters),
+					null);
+		} else {
+			postBehavioData(null, host, environment, session, uniq, timingBytes, null, additionalParameters);
+		}
+	}
+
+	/**
+	 * Creates a pipeline that sends behavio data in the background, so submitting it doesn't wait for the request.
+	 * The pipeline has its own threads and pooled connections; close it when it is no longer needed.
+	 *
+	 * @param capacity
+	 *            The number of submissions the pipeline queues before applying the overflow policy, rounded up to a
+	 *            power of two of at least two.
+	 * @param drainThreads
+	 *            The number of threads that send the queued data.
+	 * @param overflowPolicy
+	 *            What a submission to a full queue does.
+	 * @return The started pipeline.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid.
+	 */
+	public BehavioDataPipeline newBehavioDataPipeline(int capacity, int drainThreads,
+			BehavioDataPipeline.OverflowPolicy overflowPolicy) throws AccessException {
+		if ((capacity < 1) || (capacity > BehavioDataPipeline.MAX_CAPACITY)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid capacity (" + capacity + ").");
+		}
+		if (drainThreads < 1) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid drain threads (" + drainThreads + ").");
+		}
+		if (overflowPolicy == null) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing overflow policy.");
+		}
+		BehavioDataPipeline pipeline = new BehavioDataPipeline(this, capacity, drainThreads, overflowPolicy);
+		behavioDataPipelines.add(pipeline);
+		return pipeline;
+	}
+
+	/**
+	 * Checks a behavio data request with the timing as a String.
+	 *
+	 * @return The timing data, UTF-8 encoded.
+	 */
+	ByteBuffer verifyBehavioRequest(String host, String environment, String session, String timing, String uniq)
+			throws AccessException {
 		verifySessionId(session);
 		verifyBehavioData(host, environment, timing, uniq);
+		return ByteBuffer.wrap(timing.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Checks a behavio data request with the timing as UTF-8 encoded bytes.
+	 */
+	void verifyBehavioRequest(String host, String environment, String session, ByteBuffer timing, String uniq)
+			throws AccessException {
+		verifySessionId(session);
+		verifyBehavioEndpoint(host, environment);
+		if ((timing == null) || !timing.hasRemaining()) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing timing data.");
+		}
+		if (!JsonValidator.isWellFormedObjectOrArray(timing)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Timing is not a valid json.");
+		}
+		verifyBehavioUniq(uniq);
+	}
+
+	/**
+	 * Sends checked behavio data over a client that stays open, or a new one if it is null, through the write spool if
+	 * one is open.
+	 */
+	void sendBehavioData(CloseableHttpClient client, String host, String environment, String session, String uniq,
+			ByteBuffer timing) throws AccessException {
+		WriteSpool spool = writeSpool;
+		if (spool != null) {
+			spool.write(SpoolRecord.behavioData(host, environment, session, uniq, timing, null), client);
+		} else {
+			postBehavioData(client, host, environment, session, uniq, timing, null, null);
+		}
+	}
 
-		if (additionalParameters == null) {
-			additionalParameters = new HashMap<>();
+	/**
+	 * Posts validated behavio data, the timing given either as bytes or as a stream, bypassing any write spool. Uses
+	 * the given client, or a new one if it is null.
+	 */
+	void postBehavioData(CloseableHttpClient client, String host, String environment, String session,
+			String uniq, ByteBuffer timing, InputStream timingStream, Map<String, String> additionalParameters)
+			throws AccessException {
+		FormEncoder parameters = encodeRequestParameters(session, null);
+		parameters.add("m", Integer.toString(merchantId)).add("uniq", uniq);
+		parameters.addAll(additionalParameters, BEHAVIO_DATA_PARAMETERS);
+		// timing goes last, so it can be encoded straight into the request body
+		byte[] prefix = parameters.addName("timing").toByteArray();
+		HttpEntity entity = (timing != null) ? new BehavioDataEntity(prefix, timing)
+				: new BehavioDataEntity(prefix, timingStream);
+		if (compressBehavioData) {
+			entity = new GzipCompressingEntity(entity);
 		}
-		additionalParameters.put("m", Integer.toString(merchantId));
-		additionalParameters.put("timing", timing);
-		additionalParameters.put("uniq", uniq);
 
-		List<NameValuePair> parameters = createRequestParameters(session, null, null, additionalParameters);
-		String behavioDataEndpoint = BEHAVIO_DATA_ENDPOINT_PREFIX + host + "/" + environment
-				+ BEHAVIO_DATA_ENDPOINT_POSTFIX;
-		logger.debug("info request: host = " + behavioDataEndpoint + ", parameters = " + parameters.toString());
-		long startTime = System.currentTimeMillis();
-		this.postRequest(behavioDataEndpoint, parameters);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime));
+		URI behavioDataEndpoint = getBehavioDataEndpoint(host, environment);
+		if (logger.isDebugEnabled()) {
+			logger.debug("behavio data request: host = {}, parameters = {}, timing bytes = {}", behavioDataEndpoint,
+					LogRedactor.parameters(parameters),
+					(timing != null) ? Integer.toString(timing.remaining()) : "streamed");
+		}
+		long startTime = System.nanoTime();
+		if (client != null) {
+			this.postRequest(client, behavioDataEndpoint, entity);
+		} else {
+			this.postRequest(behavioDataEndpoint, entity);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		}
 	}
 
 	/**
 	 * Gets the device info, threshold decision, velocity data, Trusted Device information and/or BehavioSec. Which data
 	 * sets will be returned depends on the infoFlag that is build with
-	 * {@link com.kount.kountaccess.InfoEndpointDataSet}, the unique customer identifier and the supplied for the
-	 * session's username and password.
+	 * {@link com.kount.kountaccess.InfoEndpointDataSet} or taken from an {@link InfoQuery}, the unique customer
+	 * identifier and the supplied for the session's username and password.
 	 *
 	 * @param infoFlag
 	 *            the requested set of data elements | int (bytes represented inside) | mandatory
@@ -653,8 +1847,8 @@ public class AccessSdk {
 	/**
 	 * Gets the device info, threshold decision, velocity data, Trusted Device information and/or BehavioSec. Which data
 	 * sets will be returned depends on the infoFlag that is build with
-	 * {@link com.kount.kountaccess.InfoEndpointDataSet}, the unique customer identifier and the supplied for the
-	 * session's username and password.
+	 * {@link com.kount.kountaccess.InfoEndpointDataSet} or taken from an {@link InfoQuery}, the unique customer
+	 * identifier and the supplied for the session's username and password.
 	 *
 	 * @param infoFlag
 	 *            the requested set of data elements | int (bytes represented inside) | mandatory
@@ -678,37 +1872,237 @@ public class AccessSdk {
 		verifySessionId(session);
 		verifyInfoParams(infoFlag, uniq, username, password);
 
-		if (additionalParameters == null) {
-			additionalParameters = new HashMap<>();
+		return postInfo(infoFlag, session, uniq, new HashedCredentials(username, password), additionalParameters);
+	}
+
+	/**
+	 * Gets the device info, threshold decision, velocity data, Trusted Device information and/or BehavioSec for the
+	 * session's already hashed username and password. See
+	 * {@link #getInfo(int, String, String, String, String, Map)}.
+	 *
+	 * @param infoFlag
+	 *            the requested set of data elements | int (bytes represented inside) | mandatory
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param uniq
+	 *            customer identifier
+	 * @param credentials
+	 *            The hashed username and password of the user, may be null if neither velocity nor decision is
+	 *            requested.
+	 * @return A JSONObject containing the response.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public JSONObject getInfo(int infoFlag, String session, String uniq, HashedCredentials credentials)
+			throws AccessException {
+
+		verifySessionId(session);
+		verifyInfoParams(InfoQuery.fromFlag(infoFlag), uniq, (credentials != null) && credentials.isComplete(),
+				"hashed");
+
+		return postInfo(infoFlag, session, uniq, credentials, null);
+	}
+
+	/**
+	 * Gets the data sets of an {@link InfoQuery} for the session's already hashed username and password, split into
+	 * the requested sections. Sections that were requested but are not in the response are reported by
+	 * {@link InfoResponse#getMissingSections()}.
+	 *
+	 * @param query
+	 *            The requested data sets.
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param uniq
+	 *            customer identifier
+	 * @param credentials
+	 *            The hashed username and password of the user, may be null if neither velocity nor decision is
+	 *            requested.
+	 * @return The response.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public InfoResponse getInfo(InfoQuery query, String session, String uniq, HashedCredentials credentials)
+			throws AccessException {
+
+		verifySessionId(session);
+		verifyInfoParams(query, uniq, (credentials != null) && credentials.isComplete(), "hashed");
+
+		JSONObject json = postInfo(query.getFlag(), session, uniq, credentials, null);
+		return new InfoResponse((json != null) ? json : new JSONObject(), query, EnumSet.noneOf(InfoSection.class),
+				phasesOf(RequestTimer.takeLastPhases()));
+	}
+
+	/**
+	 * Gets the data sets of an {@link InfoQuery} like {@link #getInfo(InfoQuery, String, String, HashedCredentials)},
+	 * but waits no longer than the timeout for the whole query. BehavioSec data is slower than the other sections, so
+	 * when it is requested together with other sections it is fetched with a separate, concurrent info call on the
+	 * SDK's executor (see {@link #setExecutor(ExecutorService)}). The response holds the sections that arrived in time;
+	 * the others are reported by {@link InfoResponse#getMissingSections()} and
+	 * {@link InfoResponse#getTimedOutSections()}, and their calls are cancelled.
+	 *
+	 * @param query
+	 *            The requested data sets.
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param uniq
+	 *            customer identifier
+	 * @param credentials
+	 *            The hashed username and password of the user, may be null if neither velocity nor decision is
+	 *            requested.
+	 * @param timeout
+	 *            The time to wait for the whole query.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return The sections that arrived in time.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid, or if no part of the query arrived because of a
+	 *             problem getting a response.
+	 */
+	public InfoResponse getInfo(InfoQuery query, final String session, final String uniq,
+			final HashedCredentials credentials, long timeout, TimeUnit unit) throws AccessException {
+
+		verifySessionId(session);
+		verifyInfoParams(query, uniq, (credentials != null) && credentials.isComplete(), "hashed");
+
+		InfoQuery[] parts;
+		InfoQuery rest = query.without(InfoSection.BEHAVIOSEC);
+		if (query.contains(InfoSection.BEHAVIOSEC) && (rest != null)) {
+			parts = new InfoQuery[] { rest, InfoQuery.of(InfoSection.BEHAVIOSEC) };
+		} else {
+			parts = new InfoQuery[] { query };
 		}
-		additionalParameters.put("i", Integer.toString(infoFlag));
-		additionalParameters.put("uniq", uniq);
 
-		List<NameValuePair> parameters = createRequestParameters(session, username, password, additionalParameters);
-		logger.debug("info request: host = " + infoEndpoint + ", parameters = " + parameters.toString());
-		long startTime = System.currentTimeMillis();
-		String response = this.postRequest(infoEndpoint, parameters);
-		logger.debug("request elapsed time = " + (System.currentTimeMillis() - startTime) + ", response = " + response);
-		if (response != null) {
-			return processJSONEntity(response);
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		ExecutorService workers = getExecutor();
+		List<AbortableCall<InfoResponse>> tasks = new ArrayList<>(parts.length);
+		List<Future<InfoResponse>> calls = new ArrayList<>(parts.length);
+		try {
+			for (final InfoQuery part : parts) {
+				AbortableCall<InfoResponse> task = new AbortableCall<InfoResponse>() {
+					@Override
+					InfoResponse run() throws AccessException {
+						JSONObject json = postInfo(part.getFlag(), session, uniq, credentials, null);
+						return new InfoResponse((json != null) ? json : new JSONObject(), part,
+								EnumSet.noneOf(InfoSection.class), phasesOf(RequestTimer.takeLastPhases()));
+					}
+				};
+				tasks.add(task);
+				calls.add(workers.submit(task));
+			}
+		} catch (RejectedExecutionException ree) {
+			for (int i = 0; i < calls.size(); i++) {
+				calls.get(i).cancel(true);
+				tasks.get(i).abort();
+			}
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Executor rejected the info calls", ree);
 		}
 
-		return null;
+		JSONObject merged = new JSONObject();
+		List<RequestPhases> phases = new ArrayList<>(parts.length);
+		Set<InfoSection> timedOut = EnumSet.noneOf(InfoSection.class);
+		AccessException failure = null;
+		boolean arrived = false;
+		boolean interrupted = false;
+		for (int i = 0; i < parts.length; i++) {
+			Future<InfoResponse> call = calls.get(i);
+			if (interrupted) {
+				call.cancel(true);
+				tasks.get(i).abort();
+				timedOut.addAll(parts[i].getSections());
+				continue;
+			}
+			try {
+				InfoResponse part = call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				arrived = true;
+				mergeInfo(merged, part.getJSON(), parts[i]);
+				phases.addAll(part.getRequestPhases());
+			} catch (TimeoutException te) {
+				// interrupting doesn't stop the blocking I/O, aborting the request does
+				call.cancel(true);
+				tasks.get(i).abort();
+				timedOut.addAll(parts[i].getSections());
+			} catch (InterruptedException ie) {
+				// give up waiting, the interrupt is restored below
+				interrupted = true;
+				call.cancel(true);
+				tasks.get(i).abort();
+				timedOut.addAll(parts[i].getSections());
+			} catch (ExecutionException ee) {
+				Throwable cause = ee.getCause();
+				if (failure == null) {
+					failure = (cause instanceof AccessException) ? (AccessException) cause
+							: new AccessException(AccessErrorType.INTERNAL_ERROR, "Info call failed", ee);
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (!arrived && (failure != null)) {
+			throw failure;
+		}
+		return new InfoResponse(merged, query, timedOut, phases);
 	}
 
-	private void verifyInfoParams(int infoFlag, String uniq, String username, String password) throws AccessException {
-		if ((infoFlag < 1) || (infoFlag > 31)) {
-			throw new AccessException(AccessErrorType.INVALID_DATA,
-					"Invalid infoFlag (" + infoFlag + ").  Must be an integer between 1 and 31 (including).");
+	/**
+	 * @return A list of the phases, empty if there are none.
+	 */
+	private static List<RequestPhases> phasesOf(RequestPhases phases) {
+		return (phases != null) ? Collections.singletonList(phases) : Collections.<RequestPhases> emptyList();
+	}
+
+	/**
+	 * Copies the sections of one part of a split info call, and the first response id, into the merged response.
+	 */
+	private void mergeInfo(JSONObject merged, JSONObject part, InfoQuery partQuery) {
+		for (InfoSection section : partQuery.sectionArray()) {
+			if (part.has(section.getResponseKey())) {
+				merged.put(section.getResponseKey(), part.get(section.getResponseKey()));
+			}
+		}
+		if (!merged.has("response_id") && part.has("response_id")) {
+			merged.put("response_id", part.get("response_id"));
+		}
+	}
+
+	/**
+	 * Posts a validated info request.
+	 */
+	private JSONObject postInfo(int infoFlag, String session, String uniq, HashedCredentials credentials,
+			Map<String, String> additionalParameters) throws AccessException {
+		FormEncoder parameters = encodeRequestParameters(session, credentials);
+		parameters.add("i", Integer.toString(infoFlag)).add("uniq", uniq);
+		parameters.addAll(additionalParameters, INFO_PARAMETERS);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("info request: host = {}, parameters = {}", infoEndpoint, LogRedactor.parameters(parameters));
 		}
+		long startTime = System.nanoTime();
+		JSONObject response = this.postJSON(infoEndpoint, parameters.toEntity());
+		if (logger.isDebugEnabled()) {
+			logger.debug("request elapsed time = {}, response = {}",
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), response);
+		}
+		return response;
+	}
 
-		int behavio = new InfoEndpointDataSet().withBehavioSec().build();
-		int decision = new InfoEndpointDataSet().withDecision().build();
-		int trusted = new InfoEndpointDataSet().withTrustedDevice().build();
-		int velocity = new InfoEndpointDataSet().withVelocity().build();
+	private InfoQuery verifyInfoParams(int infoFlag, String uniq, String username, String password)
+			throws AccessException {
+		boolean credentialsPresent = (username != null) && !username.trim().isEmpty() && (password != null)
+				&& !password.trim().isEmpty();
+		InfoQuery query = InfoQuery.fromFlag(infoFlag);
+		verifyInfoParams(query, uniq, credentialsPresent, username + "/" + password);
+		return query;
+	}
+
+	private void verifyInfoParams(InfoQuery query, String uniq, boolean credentialsPresent, String credentials)
+			throws AccessException {
+		if (query == null) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing info query.");
+		}
 
 		// uniq is required for trusted and behavio request
-		if (((infoFlag & trusted) == trusted) || ((infoFlag & behavio) == behavio)) {
+		if (query.requiresUniq()) {
 			if ((uniq == null) || uniq.isEmpty() || uniq.trim().isEmpty()) {
 				throw new AccessException(AccessErrorType.INVALID_DATA,
 						"Missing uniq (" + uniq + ").  Must be present for trusted and behavio requests.");
@@ -716,15 +2110,29 @@ public class AccessSdk {
 		}
 
 		// user and password are required for velocity and decision
-		if (((infoFlag & velocity) == velocity) || ((infoFlag & decision) == decision)) {
-			if ((username == null) || username.isEmpty() || username.trim().isEmpty() || (password == null)
-					|| password.isEmpty() || password.trim().isEmpty()) {
-				throw new AccessException(AccessErrorType.INVALID_DATA, "Missing username/password (" + username + "/"
-						+ password + ").  Must be present for velocity and decision requests.");
+		if (query.requiresCredentials()) {
+			if (!credentialsPresent) {
+				throw new AccessException(AccessErrorType.INVALID_DATA, "Missing username/password (" + credentials
+						+ ").  Must be present for velocity and decision requests.");
 			}
 		}
 	}
 
+	private void verifyCredentials(HashedCredentials credentials) throws AccessException {
+		if (credentials == null) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing credentials.");
+		}
+	}
+
+	private void verifyPage(int offset, int limit) throws AccessException {
+		if (offset < 0) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid offset (" + offset + ").");
+		}
+		if (limit < 0) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid limit (" + limit + ").");
+		}
+	}
+
 	private void verifySessionId(String session) throws AccessException {
 		if ((session == null) || (session.length() != 32)) {
 			throw new AccessException(AccessErrorType.INVALID_DATA,
@@ -743,124 +2151,125 @@ public class AccessSdk {
 		}
 	}
 
-	private void verifyBehavioData(String host, String environment, String timing, String uniq) throws AccessException {
+	void verifyBehavioData(String host, String environment, String timing, String uniq) throws AccessException {
+		verifyBehavioEndpoint(host, environment);
+		if ((timing == null) || timing.isEmpty() || timing.trim().isEmpty()) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing timing data.");
+		}
+		if (!JsonValidator.isWellFormedObjectOrArray(timing)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Timing is not a valid json.");
+		}
+		verifyBehavioUniq(uniq);
+	}
+
+	private void verifyBehavioEndpoint(String host, String environment) throws AccessException {
 		if ((host == null) || host.isEmpty() || host.trim().isEmpty()) {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing host.");
 		}
 		if ((environment == null) || environment.isEmpty() || environment.trim().isEmpty()) {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing environment.");
 		}
-		if ((timing == null) || timing.isEmpty() || timing.trim().isEmpty()) {
-			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing timing data.");
-		}
-		try {
-			if (timing.startsWith("[")) {
-				JSONArray.fromObject(timing);
-			} else {
-				JSONObject.fromObject(timing);
-			}
-		} catch (JSONException e) {
-			throw new AccessException(AccessErrorType.INVALID_DATA, "Timing is not a valid json.", e);
-		}
+	}
+
+	private void verifyBehavioUniq(String uniq) throws AccessException {
 		if ((uniq == null) || uniq.isEmpty() || uniq.trim().isEmpty()) {
 			throw new AccessException(AccessErrorType.INVALID_DATA, "Missing uniq customer identifier.");
 		}
 	}
 
-	private List<NameValuePair> createRequestParameters(String session, String username, String password,
-			Map<String, String> additionalParameters) {
-
-		List<NameValuePair> values = new ArrayList<>();
-		values.add(new BasicNameValuePair("v", this.version));
+	/**
+	 * Starts the parameters of a request on the current thread's encoder: the version, session and the hashed
+	 * credentials.
+	 */
+	FormEncoder encodeRequestParameters(String session, HashedCredentials credentials) {
+		FormEncoder values = FormEncoder.get();
+		values.add("v", this.version);
 		if (session != null) {
-			values.add(new BasicNameValuePair("s", session));
-		}
-		if (username != null) {
-			values.add(new BasicNameValuePair("uh", hashValue(username)));
-		}
-		if (password != null) {
-			values.add(new BasicNameValuePair("ph", hashValue(password)));
+			values.add("s", session);
 		}
-		if ((username != null) || (password != null)) {
-			values.add(new BasicNameValuePair("ah", hashValue(username + ":" + password)));
+		if (credentials != null) {
+			credentials.encodeTo(values);
 		}
+		return values;
+	}
 
-		// Add the additional parameters, if they exist.
-		if (additionalParameters != null) {
-			for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
-				values.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
+	/**
+	 * Gets the parsed behavio data endpoint for a host and environment.
+	 */
+	private URI getBehavioDataEndpoint(String host, String environment) throws AccessException {
+		String key = host + "/" + environment;
+		URI endpoint = behavioDataEndpoints.get(key);
+		if (endpoint != null) {
+			behavioEndpointHits.incrementAndGet();
+			AccessEvents.cacheHit("behavio-endpoint", key);
+		} else {
+			behavioEndpointMisses.incrementAndGet();
+			AccessEvents.cacheMiss("behavio-endpoint", key);
+			try {
+				endpoint = URI.create(BEHAVIO_DATA_ENDPOINT_PREFIX + key + BEHAVIO_DATA_ENDPOINT_POSTFIX);
+			} catch (IllegalArgumentException iae) {
+				throw new AccessException(AccessErrorType.INVALID_DATA,
+						"BAD URL(" + BEHAVIO_DATA_ENDPOINT_PREFIX + key + BEHAVIO_DATA_ENDPOINT_POSTFIX + ")");
+			}
+			if (behavioDataEndpoints.size() < MAX_BEHAVIO_DATA_ENDPOINTS) {
+				behavioDataEndpoints.putIfAbsent(key, endpoint);
 			}
 		}
-
-		return values;
+		return endpoint;
 	}
 
 	/**
-	 * Creates the authentication header.
+	 * Handles the get request for the device info and decodes the response.
 	 */
-	private String getAuthorizationHeader() {
-		if (authorizationHeader != null) {
-			return authorizationHeader;
+	private JSONObject getJSON(String urlString) throws AccessException {
+		try (CloseableHttpClient client = getHttpClient()) {
+			return getJSON(client, urlString);
+		} catch (IOException e) {
+			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN NETWORK ISSUE, try again later)");
 		}
-
-		String header = merchantId + ":" + apiKey;
-		authorizationHeader = "Basic " + Base64.encodeBase64String(header.getBytes(StandardCharsets.UTF_8));
-		return authorizationHeader;
 	}
 
 	/**
-	 * Returns a SHA-256 hashed value for a string.
-	 *
-	 * @param value
-	 *            The String to convert
-	 * @return The converted string.
+	 * Handles the get request over a client that is left open and decodes the response.
 	 */
-	private String hashValue(String value) {
-		// Don't do anything if the value is empty
-		if ((value == null) || value.isEmpty()) {
-			return null;
-		}
-		MessageDigest md;
+	private JSONObject getJSON(CloseableHttpClient client, String urlString) throws AccessException {
+		RequestTimer timer = startTimer(urlString, null);
 		try {
-			md = MessageDigest.getInstance("SHA-256");
-			md.update(value.getBytes("UTF8"), 0, value.length());
-			byte[] hash = md.digest();
-			char[] hexChars = new char[hash.length * 2];
-			int v;
-			for (int j = 0; j < hash.length; j++) {
-				v = hash[j] & 0xFF;
-				hexChars[j * 2] = hexArray[v >>> 4];
-				hexChars[(j * 2) + 1] = hexArray[v & 0x0F];
-			}
-			return new String(hexChars);
-		} catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
-			// ignoring
-			logger.warn("Could not hash parameter value", e);
+			return parseJSON(getRequest(client, urlString, timer), timer);
+		} catch (AccessException ae) {
+			timer.failed(ae);
+			throw ae;
+		} finally {
+			timer.stop();
 		}
-
-		return null;
 	}
 
-	/**
-	 * Handles the get request for the device info
-	 */
-	private String getRequest(String urlString) throws AccessException {
+	private String getRequest(CloseableHttpClient client, String urlString, RequestTimer timer)
+			throws AccessException {
 		CloseableHttpResponse response = null;
 
-		try (CloseableHttpClient client = getHttpClient()) {
+		try {
 			HttpGet request = this.getHttpGet(urlString);
-			request.addHeader("Authorization", this.getAuthorizationHeader());
-			request.addHeader("Content-Type", "JSON");
+			request.addHeader(authorizationHeader);
+			request.addHeader(JSON_CONTENT_TYPE_HEADER);
 			
+			timer.started(request);
+			AbortableCall.started(request);
 			response = client.execute(request);
 			StatusLine status = response.getStatusLine();
+			timer.status(status.getStatusCode());
 			if (status.getStatusCode() != 200) {
 				throw new AccessException(AccessErrorType.NETWORK_ERROR,
-						"Bad Response(" + status.getStatusCode() + ")" + status.getReasonPhrase() + " " + urlString);
+						"Bad Response(" + status.getStatusCode() + ")" + status.getReasonPhrase() + " " + urlString,
+						status.getStatusCode());
 
 			}
 
-			return this.getResponseAsString(response);
+			timer.reading();
+			String body = this.getResponseAsString(response);
+			timer.read();
+			timer.received(response.getEntity(), body);
+			return body;
 		} catch (UnknownHostException uhe) {
 			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN HOST(" + urlString + ")");
 		} catch (IOException e) {
@@ -879,41 +2288,198 @@ public class AccessSdk {
 		}
 	}
 
+	/**
+	 * Handles the get request for the getdevices and getuniques streams. The response is left open and handed to the
+	 * iterator, which releases it once the array has been read or it is closed.
+	 */
+	private AccessResultIterator getResultIterator(String urlString, String arrayName, int offset, int limit)
+			throws AccessException {
+		RequestTimer timer = startTimer(urlString, null);
+		try {
+			return getResultIterator(urlString, arrayName, offset, limit, timer);
+		} catch (AccessException ae) {
+			timer.failed(ae);
+			throw ae;
+		} finally {
+			timer.stop();
+		}
+	}
+
+	private AccessResultIterator getResultIterator(String urlString, String arrayName, int offset, int limit,
+			RequestTimer timer) throws AccessException {
+		CloseableHttpClient client = getHttpClient();
+		CloseableHttpResponse response = null;
+		AccessResultIterator iterator = null;
+
+		try {
+			HttpGet request = this.getHttpGet(urlString);
+			request.addHeader(authorizationHeader);
+			request.addHeader(JSON_CONTENT_TYPE_HEADER);
+
+			timer.started(request);
+			AbortableCall.started(request);
+			response = client.execute(request);
+			StatusLine status = response.getStatusLine();
+			timer.status(status.getStatusCode());
+			if (status.getStatusCode() != 200) {
+				throw new AccessException(AccessErrorType.NETWORK_ERROR,
+						"Bad Response(" + status.getStatusCode() + ")" + status.getReasonPhrase() + " " + urlString,
+						status.getStatusCode());
+			}
+
+			HttpEntity entity = response.getEntity();
+			if (entity == null) {
+				throw new AccessException(AccessErrorType.INVALID_DATA, "Unable to parse Response");
+			}
+			// the body is streamed, only its announced length is known
+			timer.received(entity, null);
+			Charset charset = ContentType.getOrDefault(entity).getCharset();
+			JsonArrayStreamReader reader = new JsonArrayStreamReader(
+					new InputStreamReader(entity.getContent(), (charset != null) ? charset : StandardCharsets.UTF_8));
+			if (!reader.openArray(arrayName)) {
+				// no entries, nothing to stream
+				reader.close();
+			}
+			iterator = new AccessResultIterator(reader, offset, limit, response, client);
+			return iterator;
+		} catch (UnknownHostException uhe) {
+			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN HOST(" + urlString + ")");
+		} catch (IOException e) {
+			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN NETWORK ISSUE, try again later)", e);
+		} catch (IllegalArgumentException iae) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "BAD URL(" + urlString + ")");
+
+		} finally {
+			if (iterator == null) {
+				try {
+					if (response != null) {
+						response.close();
+					}
+					client.close();
+				} catch (IOException ioe) {
+					throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Unable to release resources", ioe);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Handles the post for the access request.
 	 *
-	 * @param urlString
-	 *            The URL to post to
-	 * @param values
-	 *            The Form parameters
+	 * @param uri
+	 *            The endpoint to post to
+	 * @param entity
+	 *            The request body
 	 * @return The Response as a String.
 	 * @throws AccessException
 	 *             Thrown if the URL is bad or we can't connect or parse the response.
 	 */
-	private String postRequest(String urlString, List<NameValuePair> values) throws AccessException {
-		CloseableHttpResponse response = null;
-		
+	private String postRequest(URI uri, HttpEntity entity) throws AccessException {
 		try (CloseableHttpClient client = getHttpClient()) {
-			
-			HttpPost request = getHttpPost(urlString);
-			request.addHeader("Authorization", this.getAuthorizationHeader());
-			HttpEntity entity = new UrlEncodedFormEntity(values);
+			return postRequest(client, uri, entity);
+		} catch (IOException e) {
+			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN NETWORK ISSUE, try again later)", e);
+		}
+	}
+
+	/**
+	 * Handles the post for the access request and decodes the response.
+	 *
+	 * @param uri
+	 *            The endpoint to post to
+	 * @param entity
+	 *            The request body
+	 * @return The decoded response, or null if there was none.
+	 * @throws AccessException
+	 *             Thrown if the URL is bad or we can't connect or parse the response.
+	 */
+	private JSONObject postJSON(URI uri, HttpEntity entity) throws AccessException {
+		try (CloseableHttpClient client = getHttpClient()) {
+			RequestTimer timer = startTimer(uri.getPath(), entity);
+			try {
+				return parseJSON(postRequest(client, uri, entity, timer), timer);
+			} catch (AccessException ae) {
+				timer.failed(ae);
+				throw ae;
+			} finally {
+				timer.stop();
+			}
+		} catch (IOException e) {
+			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN NETWORK ISSUE, try again later)", e);
+		}
+	}
+
+	/**
+	 * Decodes a response as part of its request's timing.
+	 */
+	private JSONObject parseJSON(String body, RequestTimer timer) throws AccessException {
+		if (body == null) {
+			return null;
+		}
+		timer.parsing();
+		try {
+			return processJSONEntity(body);
+		} finally {
+			timer.parsed();
+		}
+	}
+
+	/**
+	 * Handles the post for the access request over a client that is left open.
+	 *
+	 * @param client
+	 *            The client to post with
+	 * @param uri
+	 *            The endpoint to post to
+	 * @param entity
+	 *            The request body
+	 * @return The Response as a String.
+	 * @throws AccessException
+	 *             Thrown if the URL is bad or we can't connect or parse the response.
+	 */
+	private String postRequest(CloseableHttpClient client, URI uri, HttpEntity entity) throws AccessException {
+		RequestTimer timer = startTimer(uri.getPath(), entity);
+		try {
+			return postRequest(client, uri, entity, timer);
+		} catch (AccessException ae) {
+			timer.failed(ae);
+			throw ae;
+		} finally {
+			timer.stop();
+		}
+	}
+
+	private String postRequest(CloseableHttpClient client, URI uri, HttpEntity entity, RequestTimer timer)
+			throws AccessException {
+		CloseableHttpResponse response = null;
+
+		try {
+			HttpPost request = getHttpPost(uri);
+			request.addHeader(authorizationHeader);
 			request.setEntity(entity);
 
+			timer.started(request);
+			AbortableCall.started(request);
 			response = client.execute(request);
 			StatusLine status = response.getStatusLine();
+			timer.status(status.getStatusCode());
 			if (status.getStatusCode() != 200) {
 				throw new AccessException(AccessErrorType.NETWORK_ERROR,
-						"Bad Response(" + status.getStatusCode() + ")" + status.getReasonPhrase() + " " + urlString);
+						"Bad Response(" + status.getStatusCode() + ")" + status.getReasonPhrase() + " " + uri,
+						status.getStatusCode());
 			}
 
-			return getResponseAsString(response);
+			timer.reading();
+			String body = getResponseAsString(response);
+			timer.read();
+			timer.received(response.getEntity(), body);
+			return body;
 		} catch (UnknownHostException uhe) {
-			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN HOST(" + urlString + ")");
+			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN HOST(" + uri + ")");
 		} catch (IOException e) {
 			throw new AccessException(AccessErrorType.NETWORK_ERROR, "UNKNOWN NETWORK ISSUE, try again later)", e);
 		} catch (IllegalArgumentException iae) {
-			throw new AccessException(AccessErrorType.INVALID_DATA, "BAD URL(" + urlString + ")");
+			throw new AccessException(AccessErrorType.INVALID_DATA, "BAD URL(" + uri + ")");
 			
 		} finally {
 			try {
@@ -926,6 +2492,40 @@ public class AccessSdk {
 		}
 	}
 
+	/**
+	 * Starts measuring a request for the metrics recorder and request listener, and counts it in flight.
+	 *
+	 * @param url
+	 *            The URL or path of the request, which names the endpoint.
+	 * @param sent
+	 *            The request body, or null.
+	 */
+	private RequestTimer startTimer(String url, HttpEntity sent) {
+		String endpoint = endpointName(url);
+		AtomicInteger count = inFlight.get(endpoint);
+		if (count == null) {
+			AtomicInteger created = new AtomicInteger();
+			count = inFlight.putIfAbsent(endpoint, created);
+			if (count == null) {
+				count = created;
+			}
+		}
+		return new RequestTimer(metricsRecorder, requestListener, tracingListener, endpoint, count, sent,
+				requestLogSampleRate, slowRequestLog);
+	}
+
+	/**
+	 * @return The endpoint of a request URL: the last path segment, or behavio for behavio data.
+	 */
+	static String endpointName(String url) {
+		int end = url.indexOf('?');
+		String path = (end >= 0) ? url.substring(0, end) : url;
+		if (path.endsWith(BEHAVIO_DATA_ENDPOINT_POSTFIX)) {
+			return "behavio";
+		}
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
 	/**
 	 * Processes the Response to generate a JSONObject.
 	 *
@@ -933,7 +2533,7 @@ public class AccessSdk {
 	 *            The Http response data as a string
 	 * @return The access JSONObject or null.
 	 */
-	private JSONObject processJSONEntity(String response) throws AccessException {
+	JSONObject processJSONEntity(String response) throws AccessException {
 		JSONObject result = null;
 		try {
 			result = JSONObject.fromObject(response);
@@ -950,7 +2550,8 @@ public class AccessSdk {
 	 *            The Response to convert
 	 * @return Response converted toString (if possible), or null if it's null.
 	 * @throws AccessException
-	 *             Thrown if unable to parse the response.
+	 *             Thrown if unable to parse the response, or as a network error if the connection fails while it is
+	 *             read (reset, timeout), so that the write spool retries the write.
 	 */
 	String getResponseAsString(CloseableHttpResponse response) throws AccessException {
 		if (response != null) {
@@ -959,7 +2560,7 @@ public class AccessSdk {
 			} catch (ParseException e) {
 				throw new AccessException(AccessErrorType.INVALID_DATA, "Unable to parse Response");
 			} catch (IOException e) {
-				throw new AccessException(AccessErrorType.INVALID_DATA, "Unable to parse Response");
+				throw new AccessException(AccessErrorType.NETWORK_ERROR, "Unable to read Response", e);
 			}
 		}
 		return null;
@@ -977,8 +2578,10 @@ public class AccessSdk {
 	 *
 	 * @return An HttpPost object
 	 */
-	HttpPost getHttpPost(String url) throws IllegalArgumentException {
-		return new HttpPost(url);
+	HttpPost getHttpPost(URI uri) {
+		HttpPost post = new HttpPost(uri);
+		post.setConfig(requestConfig);
+		return post;
 	}
 
 	/*
@@ -987,7 +2590,9 @@ public class AccessSdk {
 	 * @return An HttpGet object
 	 */
 	HttpGet getHttpGet(String url) throws IllegalArgumentException {
-		return new HttpGet(url);
+		HttpGet get = new HttpGet(url);
+		get.setConfig(requestConfig);
+		return get;
 	}
 
 	/*
@@ -996,7 +2601,16 @@ public class AccessSdk {
 	 * @return A CloseableHttpClient object.
 	 */
 	CloseableHttpClient getHttpClient() {
-		return HttpClients.createDefault();
+		return TimedHttpClients.create(null, 0);
+	}
+
+	/*
+	 * Getting the pooled httpclient of a background sender by itself so we can mock it.
+	 *
+	 * @return A CloseableHttpClient object keeping up to the given number of connections alive.
+	 */
+	CloseableHttpClient getPooledHttpClient(int maxConnections) {
+		return TimedHttpClients.create(connectionPools, (poolMaxConnections > 0) ? poolMaxConnections : maxConnections);
 	}
 
 	///////////////////////////////////////////////////////////////////////////////////////////////
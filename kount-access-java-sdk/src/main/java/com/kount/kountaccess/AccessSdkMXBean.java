@@ -0,0 +1,140 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.Map;
+
+/**
+ * The management view of one {@link AccessSdk}, registered with {@link AccessSdk#registerMBean()}. The connection
+ * pools are those of the background senders (behavio data pipelines, device trust queues, the write spool and bulk
+ * lookups); the synchronous calls open a connection per request.
+ *
+ * @author custserv@kount.com
+ */
+public interface AccessSdkMXBean {
+
+	/**
+	 * @return The number of open background connection pools.
+	 */
+	int getPoolCount();
+
+	/**
+	 * @return The connections in use, over all open pools.
+	 */
+	int getPoolLeased();
+
+	/**
+	 * @return The idle connections kept alive, over all open pools.
+	 */
+	int getPoolAvailable();
+
+	/**
+	 * @return The requests waiting for a connection, over all open pools.
+	 */
+	int getPoolPending();
+
+	/**
+	 * @return The most connections, over all open pools.
+	 */
+	int getPoolMax();
+
+	/**
+	 * @return The connections per pool, 0 if every sender sizes its own.
+	 */
+	int getPoolMaxConnections();
+
+	/**
+	 * @param maxConnections
+	 *            The connections per pool, applied to the open pools too, or 0 to let every sender size its own.
+	 */
+	void setPoolMaxConnections(int maxConnections);
+
+	/**
+	 * @return The connect timeout in milliseconds, -1 for the HttpClient default.
+	 */
+	int getConnectTimeoutMillis();
+
+	/**
+	 * @param millis
+	 *            The connect timeout in milliseconds, -1 for the HttpClient default.
+	 */
+	void setConnectTimeoutMillis(int millis);
+
+	/**
+	 * @return The socket timeout in milliseconds, -1 for the HttpClient default.
+	 */
+	int getSocketTimeoutMillis();
+
+	/**
+	 * @param millis
+	 *            The socket timeout in milliseconds, -1 for the HttpClient default.
+	 */
+	void setSocketTimeoutMillis(int millis);
+
+	/**
+	 * @return The timeout for a connection from a pool in milliseconds, -1 for the HttpClient default.
+	 */
+	int getConnectionRequestTimeoutMillis();
+
+	/**
+	 * @param millis
+	 *            The timeout for a connection from a pool in milliseconds, -1 for the HttpClient default.
+	 */
+	void setConnectionRequestTimeoutMillis(int millis);
+
+	/**
+	 * @return The requests being made per endpoint, for the endpoints called so far.
+	 */
+	Map<String, Integer> getInFlightRequests();
+
+	/**
+	 * @return The number of behavio data endpoints cached.
+	 */
+	int getBehavioEndpointCacheSize();
+
+	/**
+	 * @return The behavio data endpoint lookups found in the cache.
+	 */
+	long getBehavioEndpointCacheHits();
+
+	/**
+	 * @return The behavio data endpoint lookups not found in the cache.
+	 */
+	long getBehavioEndpointCacheMisses();
+
+	/**
+	 * @return The submissions waiting in all open behavio data pipelines.
+	 */
+	int getBehavioDataQueueDepth();
+
+	/**
+	 * @return The updates waiting in all open device trust queues.
+	 */
+	int getDeviceTrustQueueDepth();
+
+	/**
+	 * @return true if a write spool is open.
+	 */
+	boolean isWriteSpoolOpen();
+
+	/**
+	 * @return The writes waiting in the write spool, 0 if none is open.
+	 */
+	int getWriteSpoolPendingCount();
+
+	/**
+	 * @return true if the write spool found Kount unreachable and is waiting to retry.
+	 */
+	boolean isWriteSpoolCircuitOpen();
+
+	/**
+	 * @return The number of slow requests recorded by the slow request log, 0 if none is set.
+	 */
+	long getSlowRequestCount();
+
+	/**
+	 * @return The slow requests kept by the slow request log, oldest first, one per line; empty if none is set.
+	 */
+	String dumpSlowRequests();
+}
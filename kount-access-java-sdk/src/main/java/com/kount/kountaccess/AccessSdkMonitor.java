@@ -0,0 +1,148 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.Map;
+
+/**
+ * The {@link AccessSdkMXBean} of an SDK, reading its state on every call.
+ *
+ * @author custserv@kount.com
+ */
+final class AccessSdkMonitor implements AccessSdkMXBean {
+
+	private final AccessSdk sdk;
+
+	AccessSdkMonitor(AccessSdk sdk) {
+		this.sdk = sdk;
+	}
+
+	@Override
+	public int getPoolCount() {
+		return sdk.getPoolCount();
+	}
+
+	@Override
+	public int getPoolLeased() {
+		return sdk.getPoolStats().getLeased();
+	}
+
+	@Override
+	public int getPoolAvailable() {
+		return sdk.getPoolStats().getAvailable();
+	}
+
+	@Override
+	public int getPoolPending() {
+		return sdk.getPoolStats().getPending();
+	}
+
+	@Override
+	public int getPoolMax() {
+		return sdk.getPoolStats().getMax();
+	}
+
+	@Override
+	public int getPoolMaxConnections() {
+		return sdk.getPoolMaxConnections();
+	}
+
+	@Override
+	public void setPoolMaxConnections(int maxConnections) {
+		try {
+			sdk.setPoolMaxConnections(maxConnections);
+		} catch (AccessException ae) {
+			throw new IllegalArgumentException(ae.getMessage());
+		}
+	}
+
+	@Override
+	public int getConnectTimeoutMillis() {
+		return sdk.getConnectTimeout();
+	}
+
+	@Override
+	public void setConnectTimeoutMillis(int millis) {
+		sdk.setConnectTimeout(millis);
+	}
+
+	@Override
+	public int getSocketTimeoutMillis() {
+		return sdk.getSocketTimeout();
+	}
+
+	@Override
+	public void setSocketTimeoutMillis(int millis) {
+		sdk.setSocketTimeout(millis);
+	}
+
+	@Override
+	public int getConnectionRequestTimeoutMillis() {
+		return sdk.getConnectionRequestTimeout();
+	}
+
+	@Override
+	public void setConnectionRequestTimeoutMillis(int millis) {
+		sdk.setConnectionRequestTimeout(millis);
+	}
+
+	@Override
+	public Map<String, Integer> getInFlightRequests() {
+		return sdk.getInFlightRequests();
+	}
+
+	@Override
+	public int getBehavioEndpointCacheSize() {
+		return sdk.getBehavioEndpointCacheSize();
+	}
+
+	@Override
+	public long getBehavioEndpointCacheHits() {
+		return sdk.getBehavioEndpointCacheHits();
+	}
+
+	@Override
+	public long getBehavioEndpointCacheMisses() {
+		return sdk.getBehavioEndpointCacheMisses();
+	}
+
+	@Override
+	public int getBehavioDataQueueDepth() {
+		return sdk.getBehavioDataQueueDepth();
+	}
+
+	@Override
+	public int getDeviceTrustQueueDepth() {
+		return sdk.getDeviceTrustQueueDepth();
+	}
+
+	@Override
+	public boolean isWriteSpoolOpen() {
+		return sdk.getWriteSpool() != null;
+	}
+
+	@Override
+	public int getWriteSpoolPendingCount() {
+		WriteSpool spool = sdk.getWriteSpool();
+		return (spool != null) ? spool.getPendingCount() : 0;
+	}
+
+	@Override
+	public boolean isWriteSpoolCircuitOpen() {
+		WriteSpool spool = sdk.getWriteSpool();
+		return (spool != null) && spool.isCircuitOpen();
+	}
+
+	@Override
+	public long getSlowRequestCount() {
+		SlowRequestLog log = sdk.getSlowRequestLog();
+		return (log != null) ? log.getRecordedCount() : 0;
+	}
+
+	@Override
+	public String dumpSlowRequests() {
+		SlowRequestLog log = sdk.getSlowRequestLog();
+		return (log != null) ? log.dump() : "";
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+import net.sf.json.JSONObject;
+
+/**
+ * The calls of one login, all for the same session and user. Created with
+ * {@link AccessSdk#newSession(String, String, String)}; the session id is validated and the credentials are hashed
+ * once, when the session is created.
+ * <p>
+ * The device result is fetched at most once and then served from the session. Velocity and decision are sent to the
+ * server on every call, since each is recorded as a login attempt. The most recent info response is kept for later
+ * steps of the login. Use {@link #planInfo(String)} to get device, velocity and decision data with one info call
+ * instead of one call each.
+ *
+ * <pre>
+ * AccessSession login = sdk.newSession(session, username, password);
+ * JSONObject decision = login.getDecision();
+ * ...
+ * login.setDeviceTrust(uniq, AccessSdk.TRUSTED_STATE_TRUSTED);
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class AccessSession {
+
+	private final AccessSdk sdk;
+
+	private final String session;
+
+	private final HashedCredentials credentials;
+
+	private JSONObject device;
+
+	private volatile JSONObject latestInfo;
+
+	AccessSession(AccessSdk sdk, String session, HashedCredentials credentials) {
+		this.sdk = sdk;
+		this.session = session;
+		this.credentials = credentials;
+	}
+
+	/**
+	 * @return The Session ID generated for the Data Collector service.
+	 */
+	public String getSession() {
+		return session;
+	}
+
+	/**
+	 * @return The hashed username and password of the user.
+	 */
+	public HashedCredentials getCredentials() {
+		return credentials;
+	}
+
+	/**
+	 * Gets the device information for the session, fetched on the first call only.
+	 *
+	 * @return The JSONObject with data about the device.
+	 * @throws AccessException
+	 *             Thrown if there was a problem getting a response.
+	 */
+	public synchronized JSONObject getDevice() throws AccessException {
+		if (device == null) {
+			device = sdk.getDevice(session);
+		}
+		return device;
+	}
+
+	/**
+	 * Gets the access (velocity) data for the session's user.
+	 *
+	 * @return A JSONObject containing the response.
+	 * @throws AccessException
+	 *             Thrown if there was a problem getting a response.
+	 */
+	public JSONObject getVelocity() throws AccessException {
+		return sdk.getVelocity(session, credentials);
+	}
+
+	/**
+	 * Gets the threshold decision and velocity data for the session's user.
+	 *
+	 * @return A JSONObject containing the response.
+	 * @throws AccessException
+	 *             Thrown if there was a problem getting a response.
+	 */
+	public JSONObject getDecision() throws AccessException {
+		return sdk.getDecision(session, credentials);
+	}
+
+	/**
+	 * Gets the requested info data sets for the session's user and keeps the response, see
+	 * {@link #getLatestInfo()}.
+	 *
+	 * @param infoFlag
+	 *            The requested set of data elements, built with {@link InfoEndpointDataSet}.
+	 * @param uniq
+	 *            Customer identifier, required for trusted device and BehavioSec data.
+	 * @return A JSONObject containing the response.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public JSONObject getInfo(int infoFlag, String uniq) throws AccessException {
+		JSONObject info = sdk.getInfo(infoFlag, session, uniq, credentials);
+		latestInfo = info;
+		return info;
+	}
+
+	/**
+	 * Gets the data sets of an {@link InfoQuery} for the session's user, split into the requested sections. The JSON of
+	 * the response is kept, see {@link #getLatestInfo()}.
+	 *
+	 * @param query
+	 *            The requested data sets.
+	 * @param uniq
+	 *            Customer identifier, required for trusted device and BehavioSec data.
+	 * @return The response.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public InfoResponse getInfo(InfoQuery query, String uniq) throws AccessException {
+		InfoResponse info = sdk.getInfo(query, session, uniq, credentials);
+		latestInfo = info.getJSON();
+		return info;
+	}
+
+	/**
+	 * Gets the data sets of an {@link InfoQuery} for the session's user, waiting no longer than the timeout. Sections
+	 * that don't arrive in time are reported as missing, see
+	 * {@link AccessSdk#getInfo(InfoQuery, String, String, HashedCredentials, long, TimeUnit)}. The JSON of the
+	 * response is kept, see {@link #getLatestInfo()}.
+	 *
+	 * @param query
+	 *            The requested data sets.
+	 * @param uniq
+	 *            Customer identifier, required for trusted device and BehavioSec data.
+	 * @param timeout
+	 *            The time to wait for the whole query.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return The sections that arrived in time.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or no part of the query arrived because of a
+	 *             problem getting a response.
+	 */
+	public InfoResponse getInfo(InfoQuery query, String uniq, long timeout, TimeUnit unit) throws AccessException {
+		InfoResponse info = sdk.getInfo(query, session, uniq, credentials, timeout, unit);
+		latestInfo = info.getJSON();
+		return info;
+	}
+
+	/**
+	 * @return The response of the last info call, or null if there was none.
+	 */
+	public JSONObject getLatestInfo() {
+		return latestInfo;
+	}
+
+	/**
+	 * Runs the device, velocity and decision calls of this login concurrently on the SDK's executor (see
+	 * {@link AccessSdk#setExecutor(ExecutorService)}) and waits until all of them complete or the timeout elapses.
+	 * Calls still running at the deadline are cancelled and reported as timed out; failed calls are reported with
+	 * their error. Use this instead of {@link #planInfo(String)} when the calls can't be fused into one info call.
+	 *
+	 * @param timeout
+	 *            The time to wait for all calls.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @param sections
+	 *            Any of {@link InfoSection#DEVICE}, {@link InfoSection#VELOCITY} and {@link InfoSection#DECISION}; all
+	 *            three if none are given.
+	 * @return The results, with missing parts marked.
+	 * @throws AccessException
+	 *             Thrown if a section other than device, velocity or decision is requested or the executor doesn't
+	 *             accept the calls.
+	 */
+	public LoginAssessment assess(long timeout, TimeUnit unit, InfoSection... sections) throws AccessException {
+		Set<InfoSection> requested = EnumSet.noneOf(InfoSection.class);
+		for (InfoSection section : sections) {
+			if ((section != InfoSection.DEVICE) && (section != InfoSection.VELOCITY)
+					&& (section != InfoSection.DECISION)) {
+				throw new AccessException(AccessErrorType.INVALID_DATA,
+						"Invalid section (" + section + "). Only device, velocity and decision can be assessed.");
+			}
+			requested.add(section);
+		}
+		if (requested.isEmpty()) {
+			requested = EnumSet.of(InfoSection.DEVICE, InfoSection.VELOCITY, InfoSection.DECISION);
+		}
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		ExecutorService executor = sdk.getExecutor();
+		Map<InfoSection, AbortableCall<JSONObject>> tasks = new EnumMap<>(InfoSection.class);
+		Map<InfoSection, Future<JSONObject>> calls = new EnumMap<>(InfoSection.class);
+		try {
+			for (final InfoSection section : requested) {
+				AbortableCall<JSONObject> task = new AbortableCall<JSONObject>() {
+					@Override
+					JSONObject run() throws AccessException {
+						return fetch(section);
+					}
+				};
+				tasks.put(section, task);
+				calls.put(section, executor.submit(task));
+			}
+		} catch (RejectedExecutionException ree) {
+			for (Map.Entry<InfoSection, Future<JSONObject>> call : calls.entrySet()) {
+				call.getValue().cancel(true);
+				tasks.get(call.getKey()).abort();
+			}
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Executor rejected the calls", ree);
+		}
+
+		Map<InfoSection, JSONObject> results = new EnumMap<>(InfoSection.class);
+		Map<InfoSection, AccessException> errors = new EnumMap<>(InfoSection.class);
+		Set<InfoSection> timedOut = EnumSet.noneOf(InfoSection.class);
+		boolean interrupted = false;
+		for (Map.Entry<InfoSection, Future<JSONObject>> call : calls.entrySet()) {
+			if (interrupted) {
+				call.getValue().cancel(true);
+				tasks.get(call.getKey()).abort();
+				timedOut.add(call.getKey());
+				continue;
+			}
+			try {
+				JSONObject result = call.getValue().get(Math.max(0, deadline - System.nanoTime()),
+						TimeUnit.NANOSECONDS);
+				if (result != null) {
+					results.put(call.getKey(), result);
+				}
+			} catch (TimeoutException te) {
+				// interrupting doesn't stop the blocking I/O, aborting the request does
+				call.getValue().cancel(true);
+				tasks.get(call.getKey()).abort();
+				timedOut.add(call.getKey());
+			} catch (InterruptedException ie) {
+				// give up waiting, the interrupt is restored below
+				interrupted = true;
+				call.getValue().cancel(true);
+				tasks.get(call.getKey()).abort();
+				timedOut.add(call.getKey());
+			} catch (ExecutionException ee) {
+				Throwable cause = ee.getCause();
+				errors.put(call.getKey(), (cause instanceof AccessException) ? (AccessException) cause
+						: new AccessException(AccessErrorType.INTERNAL_ERROR, "Call failed", ee));
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return new LoginAssessment(requested, results, errors, timedOut);
+	}
+
+	private JSONObject fetch(InfoSection section) throws AccessException {
+		switch (section) {
+		case DEVICE:
+			return getDevice();
+		case VELOCITY:
+			return getVelocity();
+		default:
+			return getDecision();
+		}
+	}
+
+	/**
+	 * Starts planning the info sections needed by this login, so they can be fetched with a single info call. See
+	 * {@link InfoPlan}.
+	 *
+	 * @param uniq
+	 *            Customer identifier, required for trusted device and BehavioSec data, may be null otherwise.
+	 * @return A new, empty plan.
+	 */
+	public InfoPlan planInfo(String uniq) {
+		return new InfoPlan(sdk, session, uniq, credentials);
+	}
+
+	/**
+	 * Sets the trusted state of the session's device.
+	 *
+	 * @param uniq
+	 *            Customer identifier.
+	 * @param trustedState
+	 *            One of {@link AccessSdk#TRUSTED_STATE_TRUSTED}, {@link AccessSdk#TRUSTED_STATE_NOT_TRUSTED} or
+	 *            {@link AccessSdk#TRUSTED_STATE_BANNED}.
+	 * @return This session, for further calls.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or there was a problem getting a response.
+	 */
+	public AccessSession setDeviceTrust(String uniq, String trustedState) throws AccessException {
+		sdk.setDeviceTrustBySession(session, uniq, trustedState);
+		return this;
+	}
+}
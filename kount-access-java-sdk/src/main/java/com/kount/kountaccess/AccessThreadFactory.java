@@ -0,0 +1,35 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the daemon threads of the SDK's own executors, named <code>kount-access-&lt;purpose&gt;-&lt;n&gt;</code>, so
+ * they never keep the application from exiting.
+ *
+ * @author custserv@kount.com
+ */
+final class AccessThreadFactory implements ThreadFactory {
+
+	private final String prefix;
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	/**
+	 * @param purpose
+	 *            Part of the thread names, e.g. "worker".
+	 */
+	AccessThreadFactory(String purpose) {
+		this.prefix = "kount-access-" + purpose + "-";
+	}
+
+	@Override
+	public Thread newThread(Runnable task) {
+		Thread thread = new Thread(task, prefix + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
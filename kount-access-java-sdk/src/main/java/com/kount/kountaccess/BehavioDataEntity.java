@@ -0,0 +1,126 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+/**
+ * Form entity for the behavio data endpoint. The already encoded form fields are written first, then the timing
+ * payload is percent-encoded straight from the caller's bytes (or stream) into the request body in chunks, so the
+ * payload is never copied into an intermediate String or form buffer.
+ *
+ * @author custserv@kount.com
+ */
+final class BehavioDataEntity extends AbstractHttpEntity {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Encoded form fields, ending with "timing=".
+	 */
+	private final byte[] prefix;
+
+	private final ByteBuffer timing;
+
+	private final InputStream timingStream;
+
+	private boolean consumed;
+
+	/**
+	 * @param prefix
+	 *            Encoded form fields, ending with "timing=".
+	 * @param timing
+	 *            UTF-8 timing json, read from its position to its limit without changing either.
+	 */
+	BehavioDataEntity(byte[] prefix, ByteBuffer timing) {
+		this.prefix = prefix;
+		this.timing = timing.duplicate();
+		this.timingStream = null;
+		init();
+	}
+
+	/**
+	 * @param prefix
+	 *            Encoded form fields, ending with "timing=".
+	 * @param timing
+	 *            UTF-8 timing json, read to its end and closed when the entity is written.
+	 */
+	BehavioDataEntity(byte[] prefix, InputStream timing) {
+		this.prefix = prefix;
+		this.timing = null;
+		this.timingStream = timing;
+		init();
+	}
+
+	private void init() {
+		setContentType(FormEncoder.CONTENT_TYPE.toString());
+		setChunked(true);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return timing != null;
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return (timingStream != null) && !consumed;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		writeTo(content);
+		return new ByteArrayInputStream(content.toByteArray());
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		if (timing == null) {
+			if (consumed) {
+				throw new IllegalStateException("Timing stream has already been sent");
+			}
+			consumed = true;
+		}
+		out.write(prefix);
+		byte[] encoded = new byte[BUFFER_SIZE];
+		int length = 0;
+		if (timing != null) {
+			ByteBuffer source = timing.duplicate();
+			while (source.hasRemaining()) {
+				if (length > (BUFFER_SIZE - 3)) {
+					out.write(encoded, 0, length);
+					length = 0;
+				}
+				length = FormEncoder.encode(source.get(), encoded, length);
+			}
+		} else {
+			byte[] chunk = new byte[BUFFER_SIZE / 3];
+			try (InputStream source = timingStream) {
+				int read;
+				while ((read = source.read(chunk)) != -1) {
+					for (int i = 0; i < read; i++) {
+						length = FormEncoder.encode(chunk[i], encoded, length);
+					}
+					out.write(encoded, 0, length);
+					length = 0;
+				}
+			}
+		}
+		out.write(encoded, 0, length);
+		out.flush();
+	}
+}
@@ -0,0 +1,412 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * Sends behavio data in the background. A submission is checked like {@link AccessSdk#setBehavioData} and put on a
+ * bounded lock-free queue, so the caller doesn't wait for the request; a pool of drain threads posts the queued data
+ * back to back over pooled keep-alive connections. What happens when the queue is full is set by
+ * the {@link OverflowPolicy}. Data that can't be sent is logged and counted, see {@link #getFailedCount()}.
+ * <p>
+ * Created with {@link AccessSdk#newBehavioDataPipeline(int, int, OverflowPolicy)}.
+ *
+ * <pre>
+ * BehavioDataPipeline behavio = sdk.newBehavioDataPipeline(4096, 2, OverflowPolicy.DROP_OLDEST);
+ * behavio.submit(behavioHost, environment, session, timing, uniq); // returns once queued
+ * ...
+ * behavio.close(); // sends what is still queued
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class BehavioDataPipeline implements Closeable {
+
+	/**
+	 * What a submission does when the queue is full.
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Drops the oldest queued data to make room, counted by {@link BehavioDataPipeline#getDroppedCount()}.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Waits until there is room.
+		 */
+		BLOCK,
+
+		/**
+		 * Sends the data on the submitting thread, counted by {@link BehavioDataPipeline#getCallerRunsCount()}.
+		 */
+		CALLER_RUNS
+	}
+
+	/**
+	 * The largest queue capacity.
+	 */
+	static final int MAX_CAPACITY = 1 << 20;
+
+	/**
+	 * How long an idle drain thread waits before checking the queue again.
+	 */
+	private static final long IDLE_WAIT_MILLIS = 100;
+
+	/**
+	 * The longest a blocked submission parks before retrying.
+	 */
+	private static final long MAX_BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final Logger logger = LoggerFactory.getLogger(BehavioDataPipeline.class);
+
+	private final AccessSdk sdk;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final BoundedRingQueue<Submission> queue;
+
+	private final CloseableHttpClient client;
+
+	private final Thread[] drainers;
+
+	/**
+	 * Wakes idle drain threads, released only while some are idle.
+	 */
+	private final Semaphore wakeup = new Semaphore(0);
+
+	private final AtomicInteger idleDrainers = new AtomicInteger();
+
+	/**
+	 * Submissions that are queued or being sent.
+	 */
+	private final AtomicLong pending = new AtomicLong();
+
+	private final AtomicLong submitted = new AtomicLong();
+
+	private final AtomicLong sent = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong callerRuns = new AtomicLong();
+
+	private volatile boolean closed;
+
+	BehavioDataPipeline(AccessSdk sdk, int capacity, int drainThreads, OverflowPolicy overflowPolicy) {
+		this.sdk = sdk;
+		this.overflowPolicy = overflowPolicy;
+		this.queue = new BoundedRingQueue<>(capacity);
+		// one connection per drain thread, and one for a caller running a submission itself
+		this.client = sdk.getPooledHttpClient(drainThreads + 1);
+		this.drainers = new Thread[drainThreads];
+		AccessThreadFactory threads = new AccessThreadFactory("behavio");
+		for (int i = 0; i < drainThreads; i++) {
+			drainers[i] = threads.newThread(new Drainer());
+			drainers[i].start();
+		}
+	}
+
+	/**
+	 * Queues behavio data for a uniq customer identifier.
+	 *
+	 * @param host
+	 *            of the behavio data endpoint
+	 * @param environment
+	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param timing
+	 *            data gathered from a BehavioSec collection
+	 * @param uniq
+	 *            customer identifier
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid, the pipeline is closed, or the data was sent by
+	 *             the caller ({@link OverflowPolicy#CALLER_RUNS}) and there was a problem getting a response.
+	 */
+	public void submit(String host, String environment, String session, String timing, String uniq)
+			throws AccessException {
+		ByteBuffer timingBytes = sdk.verifyBehavioRequest(host, environment, session, timing, uniq);
+		enqueue(new Submission(host, environment, session, uniq, timingBytes));
+	}
+
+	/**
+	 * Queues behavio data for a uniq customer identifier, with the timing data as UTF-8 encoded bytes. The array is
+	 * sent as it is when the data leaves the queue, so it must not be changed after submitting it.
+	 *
+	 * @param host
+	 *            of the behavio data endpoint
+	 * @param environment
+	 *            as in https://api.behavio.kaptcha.com/<environment>/behavio/data
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param timing
+	 *            data gathered from a BehavioSec collection, UTF-8 encoded json
+	 * @param uniq
+	 *            customer identifier
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid, the pipeline is closed, or the data was sent by
+	 *             the caller ({@link OverflowPolicy#CALLER_RUNS}) and there was a problem getting a response.
+	 */
+	public void submitBytes(String host, String environment, String session, byte[] timing, String uniq)
+			throws AccessException {
+		ByteBuffer timingBytes = (timing != null) ? ByteBuffer.wrap(timing) : null;
+		sdk.verifyBehavioRequest(host, environment, session, timingBytes, uniq);
+		enqueue(new Submission(host, environment, session, uniq, timingBytes));
+	}
+
+	/**
+	 * Waits until all data submitted so far has been sent or given up on.
+	 *
+	 * @param timeout
+	 *            The longest time to wait.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return true if nothing is left to send, false if the timeout elapsed first.
+	 * @throws InterruptedException
+	 *             Thrown if the thread is interrupted while waiting.
+	 */
+	public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		long park = 1000;
+		while (pending.get() > 0) {
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+			LockSupport.parkNanos(this, park);
+			park = Math.min(park * 2, MAX_BLOCK_PARK_NANOS);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Stops accepting data, sends what is still queued and releases the pipeline's threads and connections. Data
+	 * submitted while the pipeline is closing may be left unsent.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		sdk.detachBehavioDataPipeline(this);
+		wakeup.release(drainers.length);
+		boolean interrupted = false;
+		for (Thread drainer : drainers) {
+			while (drainer.isAlive()) {
+				try {
+					drainer.join();
+				} catch (InterruptedException ie) {
+					// keep waiting for the queued data, the interrupt is restored below
+					interrupted = true;
+				}
+			}
+		}
+		try {
+			client.close();
+		} catch (IOException ioe) {
+			logger.warn("Unable to release behavio data connections", ioe);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return The number of submissions waiting in the queue.
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * @return The number of submissions the queue holds.
+	 */
+	public int getCapacity() {
+		return queue.capacity();
+	}
+
+	/**
+	 * @return The number of accepted submissions.
+	 */
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	/**
+	 * @return The number of submissions sent successfully.
+	 */
+	public long getSentCount() {
+		return sent.get();
+	}
+
+	/**
+	 * @return The number of submissions whose request failed.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * @return The number of queued submissions dropped to make room, with {@link OverflowPolicy#DROP_OLDEST}.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return The number of submissions sent by the submitting thread, with {@link OverflowPolicy#CALLER_RUNS}.
+	 */
+	public long getCallerRunsCount() {
+		return callerRuns.get();
+	}
+
+	private void enqueue(Submission submission) throws AccessException {
+		if (closed) {
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Behavio data pipeline is closed.");
+		}
+		submitted.incrementAndGet();
+		pending.incrementAndGet();
+		if (!queue.offer(submission)) {
+			AccessEvents.queueOverflow("behavio-data", overflowPolicy.name(), queue.size());
+			switch (overflowPolicy) {
+			case DROP_OLDEST:
+				do {
+					if (queue.poll() != null) {
+						dropped.incrementAndGet();
+						pending.decrementAndGet();
+					}
+				} while (!queue.offer(submission));
+				break;
+			case BLOCK:
+				waitForRoom(submission);
+				break;
+			case CALLER_RUNS:
+				callerRuns.incrementAndGet();
+				try {
+					send(submission);
+				} finally {
+					pending.decrementAndGet();
+				}
+				return;
+			}
+		}
+		if (idleDrainers.get() > 0) {
+			wakeup.release();
+		}
+	}
+
+	private void waitForRoom(Submission submission) throws AccessException {
+		long park = 1000;
+		while (!queue.offer(submission)) {
+			if (closed || Thread.currentThread().isInterrupted()) {
+				pending.decrementAndGet();
+				throw new AccessException(AccessErrorType.INTERNAL_ERROR,
+						closed ? "Behavio data pipeline is closed." : "Interrupted while waiting for the queue.");
+			}
+			LockSupport.parkNanos(this, park);
+			park = Math.min(park * 2, MAX_BLOCK_PARK_NANOS);
+		}
+	}
+
+	/**
+	 * Sends one submission, counting the outcome.
+	 */
+	private void send(Submission submission) throws AccessException {
+		try {
+			sdk.sendBehavioData(client, submission.host, submission.environment, submission.session,
+					submission.uniq, submission.timing);
+			sent.incrementAndGet();
+		} catch (AccessException ae) {
+			failed.incrementAndGet();
+			throw ae;
+		}
+	}
+
+	/**
+	 * Sends queued submissions back to back while there are any, until the pipeline is closed and the queue empty.
+	 * Submissions stay in the queue until a drain thread is ready to send them, so they remain visible to the queue
+	 * depth and to {@link OverflowPolicy#DROP_OLDEST}.
+	 */
+	private final class Drainer implements Runnable {
+
+		@Override
+		public void run() {
+			while (true) {
+				Submission submission = queue.poll();
+				if (submission == null) {
+					if (closed) {
+						return;
+					}
+					idle();
+					continue;
+				}
+				try {
+					send(submission);
+				} catch (AccessException ae) {
+					logger.warn("Unable to send behavio data for session {}: {}", LogRedactor.mask(submission.session),
+							ae.getMessage());
+				} finally {
+					pending.decrementAndGet();
+				}
+			}
+		}
+
+		private void idle() {
+			idleDrainers.incrementAndGet();
+			try {
+				// a submission queued before this thread counted as idle didn't wake it, so look again
+				if ((queue.size() == 0) && !closed) {
+					wakeup.tryAcquire(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+				}
+			} catch (InterruptedException ie) {
+				// only close() stops a drain thread
+			} finally {
+				idleDrainers.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Checked behavio data waiting to be sent.
+	 */
+	private static final class Submission {
+
+		final String host;
+
+		final String environment;
+
+		final String session;
+
+		final String uniq;
+
+		final ByteBuffer timing;
+
+		Submission(String host, String environment, String session, String uniq, ByteBuffer timing) {
+			this.host = host;
+			this.environment = environment;
+			this.session = session;
+			this.uniq = uniq;
+			this.timing = timing;
+		}
+	}
+}
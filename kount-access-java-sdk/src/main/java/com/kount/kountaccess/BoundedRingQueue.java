@@ -0,0 +1,118 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue on a ring of slots. Every slot carries a sequence number telling whether it is ready to
+ * be written or read in the current lap, so producers and consumers only ever compete with a compare-and-set on the
+ * tail or head counter. Any number of threads may offer and poll concurrently; offering to a full queue and polling
+ * an empty one fail immediately instead of waiting.
+ *
+ * @param <E>
+ *            The element type.
+ * @author custserv@kount.com
+ */
+final class BoundedRingQueue<E> {
+
+	private final int mask;
+
+	private final AtomicReferenceArray<E> elements;
+
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * @param capacity
+	 *            The minimum number of elements the queue holds, rounded up to a power of two of at least two (with a
+	 *            single slot, a written slot and a slot ready for the next lap would have the same sequence number).
+	 */
+	BoundedRingQueue(int capacity) {
+		if ((capacity < 1) || (capacity > (1 << 30))) {
+			throw new IllegalArgumentException("Invalid capacity (" + capacity + ")");
+		}
+		int size = Math.max(2, Integer.highestOneBit(capacity));
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.mask = size - 1;
+		this.elements = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds an element to the tail of the queue.
+	 *
+	 * @param element
+	 *            The element, not null.
+	 * @return false if the queue is full.
+	 */
+	boolean offer(E element) {
+		while (true) {
+			long position = tail.get();
+			int slot = (int) position & mask;
+			long difference = sequences.get(slot) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(slot, element);
+					// publishes the element to the consumer of this lap
+					sequences.set(slot, position + 1);
+					return true;
+				}
+			} else if (difference < 0) {
+				return false;
+			}
+			// another producer took the slot, try the next one
+		}
+	}
+
+	/**
+	 * Removes the element at the head of the queue.
+	 *
+	 * @return The element, or null if the queue is empty.
+	 */
+	E poll() {
+		while (true) {
+			long position = head.get();
+			int slot = (int) position & mask;
+			long difference = sequences.get(slot) - (position + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					E element = elements.get(slot);
+					elements.lazySet(slot, null);
+					// hands the slot to the producer of the next lap
+					sequences.set(slot, position + mask + 1);
+					return element;
+				}
+			} else if (difference < 0) {
+				return null;
+			}
+			// another consumer took the element, try the next one
+		}
+	}
+
+	/**
+	 * @return The number of elements in the queue, exact only while no other thread changes it.
+	 */
+	int size() {
+		long size = tail.get() - head.get();
+		return (int) Math.max(0, Math.min(size, mask + 1));
+	}
+
+	/**
+	 * @return The number of elements the queue holds.
+	 */
+	int capacity() {
+		return mask + 1;
+	}
+}
@@ -0,0 +1,275 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Runs the getdevices or getuniques lookups of many uniqs or device ids in parallel and returns their results as they
+ * complete, in completion order. Duplicate keys are looked up once. At most the fan-out number of lookups run at the
+ * same time, over pooled keep-alive connections; the next key is started as soon as a lookup completes, whether or not
+ * its result has been taken yet.
+ * <p>
+ * A failed lookup is returned as a result with its {@link AccessException}, it doesn't end the iteration. If the SDK's
+ * executor rejects a lookup, that key and those not started yet are returned failed with
+ * {@link AccessErrorType#INTERNAL_ERROR} at once. The iterator
+ * closes itself after the last result. Callers that stop early must call {@link #close()} to cancel the remaining
+ * lookups and release the connections, preferably in a try-with-resources block.
+ *
+ * @author custserv@kount.com
+ */
+public final class BulkLookupIterator implements Iterator<BulkLookupResult>, Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkLookupIterator.class);
+
+	/**
+	 * The lookup run for every key.
+	 */
+	enum Lookup {
+		DEVICES, UNIQUES
+	}
+
+	private final AccessSdk sdk;
+
+	private final Lookup lookup;
+
+	private final CloseableHttpClient client;
+
+	private final ExecutorService executor;
+
+	private final Iterator<String> keys;
+
+	private final int total;
+
+	private final BlockingQueue<BulkLookupResult> completed = new LinkedBlockingQueue<>();
+
+	/**
+	 * The lookups started and not completed, cancelled on close.
+	 */
+	private final List<Future<?>> running = new ArrayList<>();
+
+	private int returned;
+
+	private boolean closed;
+
+	/**
+	 * @param keys
+	 *            The validated uniqs or device ids.
+	 * @param fanOut
+	 *            The most lookups run at the same time.
+	 */
+	BulkLookupIterator(AccessSdk sdk, Lookup lookup, Collection<String> keys, int fanOut) {
+		this.sdk = sdk;
+		this.lookup = lookup;
+		LinkedHashSet<String> unique = new LinkedHashSet<>(keys);
+		this.keys = unique.iterator();
+		this.total = unique.size();
+		this.client = (total > 0) ? sdk.getPooledHttpClient(Math.min(fanOut, total)) : null;
+		this.executor = sdk.getExecutor();
+		synchronized (this) {
+			for (int i = 0; i < fanOut; i++) {
+				if (!startNext()) {
+					break;
+				}
+			}
+		}
+		if (total == 0) {
+			close();
+		}
+	}
+
+	/**
+	 * @return The number of distinct keys looked up.
+	 */
+	public int size() {
+		return total;
+	}
+
+	@Override
+	public synchronized boolean hasNext() {
+		return !closed && (returned < total);
+	}
+
+	/**
+	 * Waits for the next completed lookup.
+	 *
+	 * @throws IllegalStateException
+	 *             Thrown if the thread is interrupted while waiting, with an {@link AccessException} as cause.
+	 */
+	@Override
+	public BulkLookupResult next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		try {
+			return returned(completed.take());
+		} catch (InterruptedException ie) {
+			// restored before wrapping, so the caller still sees the interrupt
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(new AccessException(AccessErrorType.INTERNAL_ERROR,
+					"Interrupted while waiting for a lookup", ie));
+		}
+	}
+
+	/**
+	 * Waits up to the given time for the next completed lookup.
+	 *
+	 * @param timeout
+	 *            The most time to wait.
+	 * @param unit
+	 *            The unit of the timeout.
+	 * @return The next result, or null if no lookup completed in time.
+	 * @throws InterruptedException
+	 *             Thrown if the thread is interrupted while waiting.
+	 */
+	public BulkLookupResult next(long timeout, TimeUnit unit) throws InterruptedException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		BulkLookupResult result = completed.poll(timeout, unit);
+		return (result != null) ? returned(result) : null;
+	}
+
+	private BulkLookupResult returned(BulkLookupResult result) {
+		boolean last;
+		synchronized (this) {
+			returned++;
+			last = returned >= total;
+		}
+		if (last) {
+			close();
+		}
+		return result;
+	}
+
+	/**
+	 * The remaining lookups can't be removed.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Cancels the lookups not completed yet and releases the connections. Safe to call more than once.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			for (Future<?> lookup : running) {
+				lookup.cancel(true);
+			}
+			running.clear();
+		}
+		if (client != null) {
+			try {
+				client.close();
+			} catch (IOException ioe) {
+				logger.warn("Unable to release lookup connections", ioe);
+			}
+		}
+	}
+
+	/**
+	 * Starts the lookup of the next key, if any.
+	 *
+	 * @return false if there was no key left or the iterator is closed.
+	 */
+	private boolean startNext() {
+		if (closed || !keys.hasNext()) {
+			return false;
+		}
+		String key = keys.next();
+		Task task = new Task(key);
+		try {
+			task.future = executor.submit(task);
+			running.add(task.future);
+		} catch (RejectedExecutionException ree) {
+			// no completing lookup would start the keys left, so they are failed now rather than never returned
+			failRemaining(key, ree);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a rejected key and the keys not started yet as failed.
+	 */
+	private void failRemaining(String key, RejectedExecutionException ree) {
+		String failed = key;
+		while (true) {
+			completed.add(new BulkLookupResult(failed, null,
+					new AccessException(AccessErrorType.INTERNAL_ERROR, "The SDK executor rejected the lookup.", ree),
+					null));
+			if (!keys.hasNext()) {
+				return;
+			}
+			failed = keys.next();
+		}
+	}
+
+	/**
+	 * Replaces a completed lookup with the next one.
+	 */
+	private synchronized void completed(Task task) {
+		running.remove(task.future);
+		startNext();
+	}
+
+	/**
+	 * The lookup of one key.
+	 */
+	private final class Task implements Runnable {
+
+		private final String key;
+
+		volatile Future<?> future;
+
+		Task(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void run() {
+			BulkLookupResult result;
+			try {
+				JSONObject response = (lookup == Lookup.DEVICES) ? sdk.requestDevices(client, key, null)
+						: sdk.requestUniques(client, key, null);
+				result = new BulkLookupResult(key, response, null, RequestTimer.takeLastPhases());
+			} catch (AccessException ae) {
+				result = new BulkLookupResult(key, null, ae, RequestTimer.takeLastPhases());
+			} catch (RuntimeException re) {
+				result = new BulkLookupResult(key, null,
+						new AccessException(AccessErrorType.INTERNAL_ERROR, "Lookup failed", re),
+						RequestTimer.takeLastPhases());
+			}
+			completed.add(result);
+			completed(this);
+		}
+	}
+}
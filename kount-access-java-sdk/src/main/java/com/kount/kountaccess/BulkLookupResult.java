@@ -0,0 +1,70 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import net.sf.json.JSONObject;
+
+/**
+ * The outcome of one lookup of a bulk getdevices or getuniques call: the response for a uniq or device id, or the error
+ * of its request.
+ *
+ * @author custserv@kount.com
+ */
+public final class BulkLookupResult {
+
+	private final String key;
+
+	private final JSONObject response;
+
+	private final AccessException error;
+
+	private final RequestPhases requestPhases;
+
+	BulkLookupResult(String key, JSONObject response, AccessException error, RequestPhases requestPhases) {
+		this.key = key;
+		this.response = response;
+		this.error = error;
+		this.requestPhases = requestPhases;
+	}
+
+	/**
+	 * @return The uniq or device id looked up.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return The response, or null if the request failed.
+	 */
+	public JSONObject getResponse() {
+		return response;
+	}
+
+	/**
+	 * @return The error of the request, or null if it succeeded.
+	 */
+	public AccessException getError() {
+		return error;
+	}
+
+	/**
+	 * @return The phase timings of the request, or null if it was never made.
+	 */
+	public RequestPhases getRequestPhases() {
+		return requestPhases;
+	}
+
+	/**
+	 * @return true if the request succeeded.
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return key + ": " + (isSuccess() ? response : error.getMessage());
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * SHA-256 hex hashing of usernames and passwords (the uh, ph and ah request parameters). Each thread keeps its own
+ * digest and buffers, and characters are UTF-8 encoded straight into the reused buffer, so a hash allocates nothing
+ * but the resulting String. The buffer is zeroed once hashed.
+ * <p>
+ * Only the first <code>value.length()</code> bytes of the UTF-8 encoding are hashed. For values with non-ASCII
+ * characters that is a prefix of the encoding; the SDK has always hashed this way and the hashes are matched against
+ * earlier requests, so it must not change.
+ *
+ * @author custserv@kount.com
+ */
+final class CredentialHasher {
+
+	private static final Logger logger = LoggerFactory.getLogger(CredentialHasher.class);
+
+	private static final int INITIAL_CAPACITY = 128;
+
+	/**
+	 * Buffers that grew beyond this size are not kept for the next hash.
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 4096;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ThreadLocal<CredentialHasher> HASHERS = new ThreadLocal<CredentialHasher>() {
+		@Override
+		protected CredentialHasher initialValue() {
+			return new CredentialHasher();
+		}
+	};
+
+	private final MessageDigest digest;
+
+	private final char[] hex;
+
+	private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+	private int length;
+
+	private CredentialHasher() {
+		MessageDigest sha256 = null;
+		try {
+			sha256 = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			logger.warn("Could not create SHA-256 digest", e);
+		}
+		this.digest = sha256;
+		this.hex = new char[(sha256 != null) ? sha256.getDigestLength() * 2 : 0];
+	}
+
+	/**
+	 * Hashes a single value.
+	 *
+	 * @param value
+	 *            The value to hash.
+	 * @return The lowercase hex SHA-256 hash, or null if the value is null or empty.
+	 */
+	static String hash(String value) {
+		if ((value == null) || value.isEmpty()) {
+			return null;
+		}
+		CredentialHasher hasher = HASHERS.get();
+		hasher.reset();
+		hasher.encode(value);
+		return hasher.digest(value.length());
+	}
+
+	/**
+	 * Hashes <code>username + ":" + password</code> without building the joined String. A null username or password
+	 * is written as "null", like the concatenation would.
+	 *
+	 * @param username
+	 *            The username.
+	 * @param password
+	 *            The password.
+	 * @return The lowercase hex SHA-256 hash.
+	 */
+	static String hash(String username, String password) {
+		String user = String.valueOf(username);
+		String pass = String.valueOf(password);
+		CredentialHasher hasher = HASHERS.get();
+		hasher.reset();
+		hasher.encode(user);
+		hasher.encode(":");
+		hasher.encode(pass);
+		return hasher.digest(user.length() + 1 + pass.length());
+	}
+
+	private void reset() {
+		if (buffer.length > MAX_RETAINED_CAPACITY) {
+			buffer = new byte[INITIAL_CAPACITY];
+		}
+		length = 0;
+	}
+
+	private String digest(int count) {
+		if (digest == null) {
+			wipe();
+			return null;
+		}
+		digest.update(buffer, 0, Math.min(count, length));
+		byte[] hash = digest.digest();
+		wipe();
+		for (int j = 0; j < hash.length; j++) {
+			int v = hash[j] & 0xFF;
+			hex[j * 2] = HEX[v >>> 4];
+			hex[(j * 2) + 1] = HEX[v & 0x0F];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * Appends the UTF-8 encoding of value, unpaired surrogates are written as '?' like String.getBytes does.
+	 */
+	private void encode(String value) {
+		int n = value.length();
+		ensureCapacity(n * 3);
+		for (int i = 0; i < n; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				buffer[length++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[length++] = (byte) (0xC0 | (c >> 6));
+				buffer[length++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && ((i + 1) < n) && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+				buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				buffer[length++] = '?';
+			} else {
+				buffer[length++] = (byte) (0xE0 | (c >> 12));
+				buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[length++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private void ensureCapacity(int additional) {
+		if ((length + additional) > buffer.length) {
+			byte[] grown = new byte[Math.max(buffer.length * 2, length + additional)];
+			System.arraycopy(buffer, 0, grown, 0, length);
+			Arrays.fill(buffer, 0, length, (byte) 0);
+			buffer = grown;
+		}
+	}
+
+	/**
+	 * Zeroes the encoded credentials, so they don't stay readable in the buffer for the lifetime of the thread.
+	 */
+	private void wipe() {
+		Arrays.fill(buffer, 0, length, (byte) 0);
+		length = 0;
+	}
+}
@@ -0,0 +1,281 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * Sets device trust by device id in the background, merging redundant updates. An update for a device and uniq that
+ * is still waiting to be sent is replaced by a newer one, so only the latest trusted state is sent (last write wins);
+ * updates for the same device and uniq are sent one after the other, in submission order. Up to the configured number
+ * of updates are sent at the same time, over pooled keep-alive connections.
+ * <p>
+ * Every submission returns a {@link Future} with its outcome: the trusted state that was sent for the device and uniq,
+ * which for a replaced update is the state of the update that replaced it, or an {@link ExecutionException} caused by
+ * the {@link AccessException} of a failed request.
+ * <p>
+ * Created with {@link AccessSdk#newDeviceTrustQueue(int)}.
+ *
+ * <pre>
+ * DeviceTrustQueue trust = sdk.newDeviceTrustQueue(4);
+ * Future&lt;String&gt; outcome = trust.submit(deviceId, uniq, AccessSdk.TRUSTED_STATE_BANNED);
+ * ...
+ * trust.close(); // sends what is still queued
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class DeviceTrustQueue implements Closeable {
+
+	/**
+	 * How long a sending thread without work is kept.
+	 */
+	private static final long IDLE_THREAD_SECONDS = 60;
+
+	private final AccessSdk sdk;
+
+	private final CloseableHttpClient client;
+
+	private final ThreadPoolExecutor senders;
+
+	/**
+	 * The latest update per device and uniq, until it is sent.
+	 */
+	private final ConcurrentMap<Key, Update> waiting = new ConcurrentHashMap<>();
+
+	private final AtomicLong submitted = new AtomicLong();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	private final AtomicLong sent = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private volatile boolean closed;
+
+	DeviceTrustQueue(AccessSdk sdk, int parallelism) {
+		this.sdk = sdk;
+		this.client = sdk.getPooledHttpClient(parallelism);
+		this.senders = new ThreadPoolExecutor(parallelism, parallelism, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new AccessThreadFactory("trust"));
+		this.senders.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queues a trusted state for a device and uniq, replacing an update for them that is still waiting.
+	 *
+	 * @param deviceId
+	 *            The unique device identifier
+	 * @param uniq
+	 *            customer identifier
+	 * @param trustedState
+	 *            trusted state
+	 * @return The outcome of the update.
+	 * @throws AccessException
+	 *             Thrown if any of the parameter values are invalid or the queue is closed.
+	 */
+	public Future<String> submit(String deviceId, String uniq, String trustedState) throws AccessException {
+		sdk.verifyDeviceTrust(deviceId, uniq, trustedState);
+		if (closed) {
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Device trust queue is closed.");
+		}
+		submitted.incrementAndGet();
+
+		Key key = new Key(deviceId, uniq);
+		while (true) {
+			Update previous = waiting.get(key);
+			if ((previous != null) && previous.replace(trustedState)) {
+				coalesced.incrementAndGet();
+				return previous.outcome;
+			}
+			// the previous update for the same device and uniq, if any, is being sent; this one goes after it
+			Update update = new Update(key, trustedState, previous);
+			boolean added = (previous == null) ? (waiting.putIfAbsent(key, update) == null)
+					: waiting.replace(key, previous, update);
+			if (added) {
+				try {
+					senders.execute(update.outcome);
+				} catch (RejectedExecutionException ree) {
+					waiting.remove(key, update);
+					throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Device trust queue is closed.");
+				}
+				return update.outcome;
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting updates, sends what is still queued and releases the queue's threads and connections.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		sdk.detachDeviceTrustQueue(this);
+		senders.shutdown();
+		boolean interrupted = false;
+		while (!senders.isTerminated()) {
+			try {
+				senders.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException ie) {
+				// keep waiting for the queued updates, the interrupt is restored below
+				interrupted = true;
+			}
+		}
+		try {
+			client.close();
+		} catch (IOException ioe) {
+			// the updates are all sent, nothing is lost
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return The number of devices and uniqs with an update waiting or being sent.
+	 */
+	public int getQueueDepth() {
+		return waiting.size();
+	}
+
+	/**
+	 * @return The number of accepted submissions.
+	 */
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	/**
+	 * @return The number of submissions merged into an update that was still waiting.
+	 */
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	/**
+	 * @return The number of updates sent successfully.
+	 */
+	public long getSentCount() {
+		return sent.get();
+	}
+
+	/**
+	 * @return The number of updates whose request failed.
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * The latest trusted state for a device and uniq, replaceable until it starts sending. An update that is being sent
+	 * stays in the waiting map, so a newer one for the same device and uniq is queued behind it.
+	 */
+	private final class Update implements Callable<String> {
+
+		private final Key key;
+
+		private Update previous;
+
+		final FutureTask<String> outcome = new FutureTask<>(this);
+
+		private String trustedState;
+
+		private boolean started;
+
+		Update(Key key, String trustedState, Update previous) {
+			this.key = key;
+			this.trustedState = trustedState;
+			this.previous = previous;
+		}
+
+		synchronized boolean replace(String newState) {
+			if (started) {
+				return false;
+			}
+			trustedState = newState;
+			return true;
+		}
+
+		@Override
+		public String call() throws Exception {
+			Update before;
+			synchronized (this) {
+				before = previous;
+				previous = null;
+			}
+			String state;
+			try {
+				if (before != null) {
+					// the previous update was being sent when this one was queued, wait for it to keep the order;
+					// this one isn't started yet, so the submissions meanwhile still replace its state
+					try {
+						before.outcome.get();
+					} catch (ExecutionException ee) {
+						// its outcome is reported to its own submitters
+					}
+				}
+				synchronized (this) {
+					started = true;
+					state = trustedState;
+				}
+				sdk.sendDeviceTrust(client, key.deviceId, key.uniq, state);
+				sent.incrementAndGet();
+				return state;
+			} catch (AccessException ae) {
+				failed.incrementAndGet();
+				throw ae;
+			} finally {
+				waiting.remove(key, this);
+			}
+		}
+	}
+
+	/**
+	 * A device id and uniq.
+	 */
+	private static final class Key {
+
+		final String deviceId;
+
+		final String uniq;
+
+		Key(String deviceId, String uniq) {
+			this.deviceId = deviceId;
+			this.uniq = uniq;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return deviceId.equals(key.deviceId) && uniq.equals(key.uniq);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * deviceId.hashCode()) + uniq.hashCode();
+		}
+	}
+}
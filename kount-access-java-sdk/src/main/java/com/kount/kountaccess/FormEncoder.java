@@ -0,0 +1,239 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Encodes request parameters as application/x-www-form-urlencoded UTF-8, used for both POST bodies and GET query
+ * strings. Characters are encoded straight into a byte buffer that is reused by every request made on the same
+ * thread, so building a request allocates no parameter objects or intermediate strings.
+ * <p>
+ * Obtain an encoder with {@link #get()}. Its content (including an entity returned by {@link #toEntity()}) is only
+ * valid until the next call to {@link #get()} on the same thread.
+ *
+ * @author custserv@kount.com
+ */
+final class FormEncoder {
+
+	static final ContentType CONTENT_TYPE = ContentType.create("application/x-www-form-urlencoded",
+			StandardCharsets.UTF_8);
+
+	private static final int INITIAL_CAPACITY = 512;
+
+	/**
+	 * Buffers that grew beyond this size (large behavio or additional parameters) are not kept for the next request.
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+	private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Characters that are written as is, everything else except space is percent-encoded.
+	 */
+	private static final boolean[] UNRESERVED = new boolean[128];
+
+	static {
+		for (int c = 'a'; c <= 'z'; c++) {
+			UNRESERVED[c] = true;
+		}
+		for (int c = 'A'; c <= 'Z'; c++) {
+			UNRESERVED[c] = true;
+		}
+		for (int c = '0'; c <= '9'; c++) {
+			UNRESERVED[c] = true;
+		}
+		UNRESERVED['-'] = true;
+		UNRESERVED['_'] = true;
+		UNRESERVED['.'] = true;
+		UNRESERVED['*'] = true;
+	}
+
+	private static final ThreadLocal<FormEncoder> ENCODERS = new ThreadLocal<FormEncoder>() {
+		@Override
+		protected FormEncoder initialValue() {
+			return new FormEncoder();
+		}
+	};
+
+	private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+	private int length;
+
+	private FormEncoder() {
+	}
+
+	/**
+	 * @return the empty encoder of the current thread.
+	 */
+	static FormEncoder get() {
+		FormEncoder encoder = ENCODERS.get();
+		if (encoder.buffer.length > MAX_RETAINED_CAPACITY) {
+			encoder.buffer = new byte[INITIAL_CAPACITY];
+		}
+		encoder.length = 0;
+		return encoder;
+	}
+
+	/**
+	 * Adds a parameter. A null value adds the name alone, as {@link org.apache.http.client.utils.URLEncodedUtils}
+	 * does.
+	 *
+	 * @param name
+	 *            Parameter name.
+	 * @param value
+	 *            Parameter value, may be null.
+	 * @return this encoder.
+	 */
+	FormEncoder add(String name, String value) {
+		if (length > 0) {
+			append('&');
+		}
+		encode(name);
+		if (value != null) {
+			append('=');
+			encode(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds all entries of a parameter map, skipping the names in reserved (those are set by the SDK itself).
+	 *
+	 * @param parameters
+	 *            The parameters to add, may be null.
+	 * @param reserved
+	 *            Names that must not be added.
+	 * @return this encoder.
+	 */
+	FormEncoder addAll(Map<String, String> parameters, String[] reserved) {
+		if (parameters == null) {
+			return this;
+		}
+		for (Map.Entry<String, String> entry : parameters.entrySet()) {
+			if (!isReserved(entry.getKey(), reserved)) {
+				add(entry.getKey(), entry.getValue());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Starts a parameter whose value will be written by someone else (e.g. a streamed request body).
+	 *
+	 * @param name
+	 *            Parameter name.
+	 * @return this encoder.
+	 */
+	FormEncoder addName(String name) {
+		if (length > 0) {
+			append('&');
+		}
+		encode(name);
+		append('=');
+		return this;
+	}
+
+	/**
+	 * @return the encoded parameters as a request body, backed by this encoder's buffer.
+	 */
+	HttpEntity toEntity() {
+		ByteArrayEntity entity = new ByteArrayEntity(buffer, 0, length);
+		entity.setContentType(CONTENT_TYPE.toString());
+		return entity;
+	}
+
+	/**
+	 * @return a copy of the encoded bytes.
+	 */
+	byte[] toByteArray() {
+		byte[] copy = new byte[length];
+		System.arraycopy(buffer, 0, copy, 0, length);
+		return copy;
+	}
+
+	/**
+	 * @return the encoded parameters, e.g. for a query string.
+	 */
+	@Override
+	public String toString() {
+		return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Writes the application/x-www-form-urlencoded form of byte b, at most three bytes.
+	 *
+	 * @return the new length of the output.
+	 */
+	static int encode(byte b, byte[] out, int length) {
+		if ((b >= 0) && UNRESERVED[b]) {
+			out[length++] = b;
+		} else if (b == ' ') {
+			out[length++] = '+';
+		} else {
+			out[length++] = '%';
+			out[length++] = HEX[(b >> 4) & 0x0F];
+			out[length++] = HEX[b & 0x0F];
+		}
+		return length;
+	}
+
+	/**
+	 * Encodes the UTF-8 bytes of value without materializing them.
+	 */
+	private void encode(String value) {
+		int n = value.length();
+		// worst case: 3 UTF-8 bytes per char, each percent-encoded
+		ensureCapacity(n * 9);
+		for (int i = 0; i < n; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				length = encode((byte) c, buffer, length);
+			} else if (c < 0x800) {
+				length = encode((byte) (0xC0 | (c >> 6)), buffer, length);
+				length = encode((byte) (0x80 | (c & 0x3F)), buffer, length);
+			} else if (Character.isHighSurrogate(c) && ((i + 1) < n) && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				length = encode((byte) (0xF0 | (codePoint >> 18)), buffer, length);
+				length = encode((byte) (0x80 | ((codePoint >> 12) & 0x3F)), buffer, length);
+				length = encode((byte) (0x80 | ((codePoint >> 6) & 0x3F)), buffer, length);
+				length = encode((byte) (0x80 | (codePoint & 0x3F)), buffer, length);
+			} else if (Character.isSurrogate(c)) {
+				// unpaired surrogate, encoded as '?' like String.getBytes does
+				length = encode((byte) '?', buffer, length);
+			} else {
+				length = encode((byte) (0xE0 | (c >> 12)), buffer, length);
+				length = encode((byte) (0x80 | ((c >> 6) & 0x3F)), buffer, length);
+				length = encode((byte) (0x80 | (c & 0x3F)), buffer, length);
+			}
+		}
+	}
+
+	private void append(char c) {
+		ensureCapacity(1);
+		buffer[length++] = (byte) c;
+	}
+
+	private void ensureCapacity(int additional) {
+		if ((length + additional) > buffer.length) {
+			byte[] grown = new byte[Math.max(buffer.length * 2, length + additional)];
+			System.arraycopy(buffer, 0, grown, 0, length);
+			buffer = grown;
+		}
+	}
+
+	private static boolean isReserved(String name, String[] reserved) {
+		for (String r : reserved) {
+			if (r.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * A username and password in the hashed form sent to Kount Access. Hash the credentials once per login and pass them
+ * to {@link AccessSdk#getVelocity(String, HashedCredentials)}, {@link AccessSdk#getDecision(String, HashedCredentials)}
+ * and {@link AccessSdk#getInfo(int, String, String, HashedCredentials)} instead of hashing them again for every call.
+ * The plain text values are not kept.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author custserv@kount.com
+ */
+public final class HashedCredentials {
+
+	private final boolean hasUsername;
+
+	private final boolean hasPassword;
+
+	private final boolean complete;
+
+	private final String usernameHash;
+
+	private final String passwordHash;
+
+	private final String credentialsHash;
+
+	/**
+	 * Hashes a username and password.
+	 *
+	 * @param username
+	 *            The username of the user.
+	 * @param password
+	 *            The password of the user.
+	 */
+	public HashedCredentials(String username, String password) {
+		this.hasUsername = username != null;
+		this.hasPassword = password != null;
+		this.complete = isPresent(username) && isPresent(password);
+		this.usernameHash = CredentialHasher.hash(username);
+		this.passwordHash = CredentialHasher.hash(password);
+		this.credentialsHash = (hasUsername || hasPassword) ? CredentialHasher.hash(username, password) : null;
+	}
+
+	/**
+	 * @return The hashed username (uh), null if the username was null or empty.
+	 */
+	public String getUsernameHash() {
+		return usernameHash;
+	}
+
+	/**
+	 * @return The hashed password (ph), null if the password was null or empty.
+	 */
+	public String getPasswordHash() {
+		return passwordHash;
+	}
+
+	/**
+	 * @return The hashed <code>username:password</code> (ah), null if neither was given.
+	 */
+	public String getCredentialsHash() {
+		return credentialsHash;
+	}
+
+	/**
+	 * @return true if neither the username nor the password was blank, as the velocity and decision data require.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Adds the uh, ph and ah parameters, exactly as they are sent for a plain username and password.
+	 */
+	void encodeTo(FormEncoder parameters) {
+		if (hasUsername) {
+			parameters.add("uh", usernameHash);
+		}
+		if (hasPassword) {
+			parameters.add("ph", passwordHash);
+		}
+		if (credentialsHash != null) {
+			parameters.add("ah", credentialsHash);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof HashedCredentials)) {
+			return false;
+		}
+		HashedCredentials other = (HashedCredentials) obj;
+		return (hasUsername == other.hasUsername) && (hasPassword == other.hasPassword)
+				&& equal(usernameHash, other.usernameHash) && equal(passwordHash, other.passwordHash)
+				&& equal(credentialsHash, other.credentialsHash);
+	}
+
+	@Override
+	public int hashCode() {
+		return (credentialsHash != null) ? credentialsHash.hashCode() : 0;
+	}
+
+	private static boolean equal(String a, String b) {
+		return (a == null) ? (b == null) : a.equals(b);
+	}
+
+	private static boolean isPresent(String value) {
+		return (value != null) && !value.trim().isEmpty();
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * A {@link MetricsRecorder} that keeps, per endpoint, a {@link LatencyHistogram} of the request latencies, the count
+ * of every response status, the bytes sent and received, and the count of every error type. Recording is lock-free;
+ * {@link #getSnapshot(String)} reads the current values.
+ *
+ * <pre>
+ * InMemoryMetricsRecorder metrics = new InMemoryMetricsRecorder();
+ * sdk.setMetricsRecorder(metrics);
+ * ...
+ * long p99 = metrics.getSnapshot("info").getLatency().getValueAtPercentile(99, TimeUnit.MILLISECONDS);
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class InMemoryMetricsRecorder implements MetricsRecorder {
+
+	private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	@Override
+	public void recordRequest(String endpoint, long latencyNanos, int statusCode, long bytesSent,
+			long bytesReceived, AccessErrorType error) {
+		Endpoint metrics = endpoints.get(endpoint);
+		if (metrics == null) {
+			Endpoint created = new Endpoint();
+			metrics = endpoints.putIfAbsent(endpoint, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		metrics.record(latencyNanos, statusCode, bytesSent, bytesReceived, error);
+	}
+
+	/**
+	 * @return The endpoints with recorded requests, sorted.
+	 */
+	public Set<String> getEndpoints() {
+		return Collections.unmodifiableSet(new TreeSet<>(endpoints.keySet()));
+	}
+
+	/**
+	 * @param endpoint
+	 *            The endpoint, as passed to {@link #recordRequest}.
+	 * @return The metrics of the endpoint, empty if it has no recorded requests.
+	 */
+	public EndpointSnapshot getSnapshot(String endpoint) {
+		Endpoint metrics = endpoints.get(endpoint);
+		return (metrics != null) ? metrics.snapshot(endpoint) : new Endpoint().snapshot(endpoint);
+	}
+
+	/**
+	 * Forgets everything recorded.
+	 */
+	public void reset() {
+		endpoints.clear();
+	}
+
+	/**
+	 * The live counters of one endpoint.
+	 */
+	private static final class Endpoint {
+
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		final ConcurrentMap<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<>();
+
+		final AtomicLongArray errors = new AtomicLongArray(AccessErrorType.values().length);
+
+		final AtomicLong bytesSent = new AtomicLong();
+
+		final AtomicLong bytesReceived = new AtomicLong();
+
+		void record(long latencyNanos, int statusCode, long sent, long received, AccessErrorType error) {
+			latency.record(latencyNanos);
+			AtomicLong statusCount = statusCodes.get(statusCode);
+			if (statusCount == null) {
+				AtomicLong created = new AtomicLong();
+				statusCount = statusCodes.putIfAbsent(statusCode, created);
+				if (statusCount == null) {
+					statusCount = created;
+				}
+			}
+			statusCount.incrementAndGet();
+			if (error != null) {
+				errors.incrementAndGet(error.ordinal());
+			}
+			bytesSent.addAndGet(sent);
+			bytesReceived.addAndGet(received);
+		}
+
+		EndpointSnapshot snapshot(String name) {
+			Map<Integer, Long> statuses = new TreeMap<>();
+			for (Map.Entry<Integer, AtomicLong> status : statusCodes.entrySet()) {
+				statuses.put(status.getKey(), status.getValue().get());
+			}
+			Map<AccessErrorType, Long> errorCounts = new EnumMap<>(AccessErrorType.class);
+			for (AccessErrorType type : AccessErrorType.values()) {
+				long count = errors.get(type.ordinal());
+				if (count > 0) {
+					errorCounts.put(type, count);
+				}
+			}
+			return new EndpointSnapshot(name, latency.snapshot(), statuses, errorCounts, bytesSent.get(),
+					bytesReceived.get());
+		}
+	}
+
+	/**
+	 * The metrics of one endpoint at one point in time.
+	 */
+	public static final class EndpointSnapshot {
+
+		private final String endpoint;
+
+		private final LatencyHistogram.Snapshot latency;
+
+		private final Map<Integer, Long> statusCodes;
+
+		private final Map<AccessErrorType, Long> errors;
+
+		private final long bytesSent;
+
+		private final long bytesReceived;
+
+		EndpointSnapshot(String endpoint, LatencyHistogram.Snapshot latency, Map<Integer, Long> statusCodes,
+				Map<AccessErrorType, Long> errors, long bytesSent, long bytesReceived) {
+			this.endpoint = endpoint;
+			this.latency = latency;
+			this.statusCodes = Collections.unmodifiableMap(statusCodes);
+			this.errors = Collections.unmodifiableMap(errors);
+			this.bytesSent = bytesSent;
+			this.bytesReceived = bytesReceived;
+		}
+
+		/**
+		 * @return The endpoint.
+		 */
+		public String getEndpoint() {
+			return endpoint;
+		}
+
+		/**
+		 * @return The number of requests recorded.
+		 */
+		public long getRequestCount() {
+			return latency.getCount();
+		}
+
+		/**
+		 * @return The request latencies, in nanoseconds.
+		 */
+		public LatencyHistogram.Snapshot getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return The number of responses per HTTP status; requests without a response are counted under 0.
+		 */
+		public Map<Integer, Long> getStatusCodes() {
+			return statusCodes;
+		}
+
+		/**
+		 * @return The number of failed requests per error type.
+		 */
+		public Map<AccessErrorType, Long> getErrors() {
+			return errors;
+		}
+
+		/**
+		 * @return The total size of the request bodies.
+		 */
+		public long getBytesSent() {
+			return bytesSent;
+		}
+
+		/**
+		 * @return The total size of the response bodies.
+		 */
+		public long getBytesReceived() {
+			return bytesReceived;
+		}
+
+		@Override
+		public String toString() {
+			return endpoint + " [" + latency + ", status=" + statusCodes + ", errors=" + errors + ", sent="
+					+ bytesSent + ", received=" + bytesReceived + "]";
+		}
+	}
+}
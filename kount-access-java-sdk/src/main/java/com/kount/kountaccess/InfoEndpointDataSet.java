@@ -5,7 +5,7 @@ package com.kount.kountaccess;
 
 /**
  * Builder for the requested set of data elements for the Info Endpoint (the
- * infoFlag).
+ * infoFlag). See {@link InfoQuery} for the immutable, typed equivalent.
  *
  * @author Stanislav Milev
  * @version 4.0.0
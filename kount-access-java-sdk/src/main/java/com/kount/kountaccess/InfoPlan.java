@@ -0,0 +1,122 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Fuses the data a login needs into as few info endpoint calls as possible. The parts of a login flow declare the
+ * sections they will read with {@link #need(InfoSection...)}; the first {@link #get(InfoSection)} then fetches all
+ * declared sections with a single info call, and every later read is served from that response. A section that was
+ * not declared up front costs one more info call, for the sections still missing only.
+ * <p>
+ * Created with {@link AccessSession#planInfo(String)}.
+ *
+ * <pre>
+ * InfoPlan plan = login.planInfo(uniq).need(InfoSection.DEVICE, InfoSection.VELOCITY, InfoSection.DECISION);
+ * JSONObject device = plan.get(InfoSection.DEVICE); // one call for all three sections
+ * JSONObject decision = plan.get(InfoSection.DECISION); // no call
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class InfoPlan {
+
+	private final AccessSdk sdk;
+
+	private final String session;
+
+	private final String uniq;
+
+	private final HashedCredentials credentials;
+
+	/**
+	 * Declared sections, as an infoFlag.
+	 */
+	private int declared;
+
+	/**
+	 * Sections already requested from the server, as an infoFlag.
+	 */
+	private int fetched;
+
+	private final Map<InfoSection, JSONObject> sections = new EnumMap<>(InfoSection.class);
+
+	private InfoResponse lastResponse;
+
+	InfoPlan(AccessSdk sdk, String session, String uniq, HashedCredentials credentials) {
+		this.sdk = sdk;
+		this.session = session;
+		this.uniq = uniq;
+		this.credentials = credentials;
+	}
+
+	/**
+	 * Declares sections that will be read, so they are fetched together with the first read.
+	 *
+	 * @param needed
+	 *            The sections.
+	 * @return This plan.
+	 */
+	public synchronized InfoPlan need(InfoSection... needed) {
+		declared |= InfoSection.toFlag(needed);
+		return this;
+	}
+
+	/**
+	 * Gets one section, fetching it together with all declared sections that haven't been fetched yet.
+	 *
+	 * @param section
+	 *            The section.
+	 * @return The section, or null if the response did not contain it.
+	 * @throws AccessException
+	 *             Thrown if the declared sections can't be requested for this session (e.g. the uniq is missing) or
+	 *             there was a problem getting a response.
+	 */
+	public synchronized JSONObject get(InfoSection section) throws AccessException {
+		declared |= section.getFlag();
+		if ((fetched & section.getFlag()) == 0) {
+			fetch();
+		}
+		return sections.get(section);
+	}
+
+	/**
+	 * Fetches all declared sections that haven't been fetched yet.
+	 *
+	 * @return The response of the last info call, null if nothing was declared.
+	 * @throws AccessException
+	 *             Thrown if the declared sections can't be requested for this session (e.g. the uniq is missing) or
+	 *             there was a problem getting a response.
+	 */
+	public synchronized InfoResponse execute() throws AccessException {
+		if ((declared & ~fetched) != 0) {
+			fetch();
+		}
+		return lastResponse;
+	}
+
+	/**
+	 * @return The sections declared so far, as an infoFlag.
+	 */
+	public synchronized int getInfoFlag() {
+		return declared;
+	}
+
+	private void fetch() throws AccessException {
+		InfoQuery query = InfoQuery.fromFlag(declared & ~fetched);
+		InfoResponse response = sdk.getInfo(query, session, uniq, credentials);
+		for (InfoSection section : query.sectionArray()) {
+			JSONObject value = response.getSection(section);
+			if (value != null) {
+				sections.put(section, value);
+			}
+		}
+		fetched |= query.getFlag();
+		lastResponse = response;
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * An immutable set of data sets requested from the info endpoint. There is exactly one instance per valid infoFlag
+ * (1 to 31), created up front together with the arguments it requires and the sections expected in its response, so
+ * getting, combining and validating queries never allocates.
+ *
+ * <pre>
+ * InfoQuery query = InfoQuery.of(InfoSection.DEVICE, InfoSection.DECISION);
+ * InfoResponse info = login.getInfo(query, uniq);
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class InfoQuery {
+
+	private static final int MAX_FLAG = 31;
+
+	private static final int UNIQ_SECTIONS = InfoSection.toFlag(InfoSection.TRUSTED, InfoSection.BEHAVIOSEC);
+
+	private static final int CREDENTIALS_SECTIONS = InfoSection.toFlag(InfoSection.VELOCITY, InfoSection.DECISION);
+
+	private static final InfoQuery[] QUERIES = new InfoQuery[MAX_FLAG + 1];
+
+	static {
+		for (int flag = 1; flag <= MAX_FLAG; flag++) {
+			QUERIES[flag] = new InfoQuery(flag);
+		}
+	}
+
+	private final int flag;
+
+	private final Set<InfoSection> sections;
+
+	private final InfoSection[] sectionArray;
+
+	private final boolean requiresUniq;
+
+	private final boolean requiresCredentials;
+
+	private InfoQuery(int flag) {
+		Set<InfoSection> set = EnumSet.noneOf(InfoSection.class);
+		for (InfoSection section : InfoSection.values()) {
+			if ((flag & section.getFlag()) != 0) {
+				set.add(section);
+			}
+		}
+		this.flag = flag;
+		this.sections = Collections.unmodifiableSet(set);
+		this.sectionArray = set.toArray(new InfoSection[set.size()]);
+		this.requiresUniq = (flag & UNIQ_SECTIONS) != 0;
+		this.requiresCredentials = (flag & CREDENTIALS_SECTIONS) != 0;
+	}
+
+	/**
+	 * Gets the query for an infoFlag.
+	 *
+	 * @param infoFlag
+	 *            The infoFlag, e.g. built with {@link InfoEndpointDataSet}.
+	 * @return The query.
+	 * @throws AccessException
+	 *             Thrown if the infoFlag is not between 1 and 31.
+	 */
+	public static InfoQuery fromFlag(int infoFlag) throws AccessException {
+		if ((infoFlag < 1) || (infoFlag > MAX_FLAG)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA,
+					"Invalid infoFlag (" + infoFlag + ").  Must be an integer between 1 and 31 (including).");
+		}
+		return QUERIES[infoFlag];
+	}
+
+	/**
+	 * Gets the query for a set of sections.
+	 *
+	 * @param sections
+	 *            The sections, at least one.
+	 * @return The query.
+	 * @throws AccessException
+	 *             Thrown if no section is given.
+	 */
+	public static InfoQuery of(InfoSection... sections) throws AccessException {
+		return fromFlag(InfoSection.toFlag(sections));
+	}
+
+	/**
+	 * @return The query for all sections.
+	 */
+	public static InfoQuery all() {
+		return QUERIES[MAX_FLAG];
+	}
+
+	/**
+	 * @param more
+	 *            The sections to add.
+	 * @return The query for the sections of this one and the given ones.
+	 */
+	public InfoQuery with(InfoSection... more) {
+		return QUERIES[flag | InfoSection.toFlag(more)];
+	}
+
+	/**
+	 * @param fewer
+	 *            The sections to remove.
+	 * @return The query for the remaining sections, or null if none remain.
+	 */
+	public InfoQuery without(InfoSection... fewer) {
+		return QUERIES[flag & ~InfoSection.toFlag(fewer)];
+	}
+
+	/**
+	 * @return The infoFlag of the query.
+	 */
+	public int getFlag() {
+		return flag;
+	}
+
+	/**
+	 * @return The requested sections, which are also the sections expected in the response.
+	 */
+	public Set<InfoSection> getSections() {
+		return sections;
+	}
+
+	/**
+	 * @param section
+	 *            The section.
+	 * @return true if the section is requested.
+	 */
+	public boolean contains(InfoSection section) {
+		return (flag & section.getFlag()) != 0;
+	}
+
+	/**
+	 * @return true if the query requests trusted device or BehavioSec data, which need the uniq customer identifier.
+	 */
+	public boolean requiresUniq() {
+		return requiresUniq;
+	}
+
+	/**
+	 * @return true if the query requests velocity or decision data, which need the username and password.
+	 */
+	public boolean requiresCredentials() {
+		return requiresCredentials;
+	}
+
+	/**
+	 * The requested sections in declaration order, shared with the caller for iterating without an iterator.
+	 */
+	InfoSection[] sectionArray() {
+		return sectionArray;
+	}
+
+	@Override
+	public String toString() {
+		return "InfoQuery" + sections;
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.json.JSONObject;
+
+/**
+ * An info endpoint response split into its sections. Only the sections of the {@link InfoQuery} are looked up, once,
+ * when the response is created; sections that were requested but are not in the response are reported by
+ * {@link #getMissingSections()}.
+ *
+ * @author custserv@kount.com
+ */
+public final class InfoResponse {
+
+	private final JSONObject response;
+
+	private final InfoQuery query;
+
+	private final Map<InfoSection, JSONObject> sections = new EnumMap<>(InfoSection.class);
+
+	private final Set<InfoSection> missing;
+
+	private final Set<InfoSection> timedOut;
+
+	private final List<RequestPhases> requestPhases;
+
+	/**
+	 * @param response
+	 *            The parsed response.
+	 * @param query
+	 *            The requested data sets.
+	 */
+	InfoResponse(JSONObject response, InfoQuery query) {
+		this(response, query, EnumSet.noneOf(InfoSection.class), Collections.<RequestPhases> emptyList());
+	}
+
+	/**
+	 * @param response
+	 *            The parsed response, merged from the parts that arrived in time.
+	 * @param query
+	 *            The requested data sets.
+	 * @param timedOut
+	 *            The requested sections whose part didn't arrive before the deadline.
+	 * @param requestPhases
+	 *            The phase timings of the info calls that completed.
+	 */
+	InfoResponse(JSONObject response, InfoQuery query, Set<InfoSection> timedOut, List<RequestPhases> requestPhases) {
+		this.response = response;
+		this.query = query;
+		this.timedOut = Collections.unmodifiableSet(timedOut);
+		this.requestPhases = Collections.unmodifiableList(requestPhases);
+		Set<InfoSection> absent = EnumSet.noneOf(InfoSection.class);
+		for (InfoSection section : query.sectionArray()) {
+			JSONObject value = response.optJSONObject(section.getResponseKey());
+			if (value != null) {
+				sections.put(section, value);
+			} else {
+				absent.add(section);
+			}
+		}
+		this.missing = Collections.unmodifiableSet(absent);
+	}
+
+	/**
+	 * Gets one section of the response.
+	 *
+	 * @param section
+	 *            The section.
+	 * @return The section, or null if it was not requested or is not in the response.
+	 */
+	public JSONObject getSection(InfoSection section) {
+		return sections.get(section);
+	}
+
+	/**
+	 * @param section
+	 *            The section.
+	 * @return true if the section was requested and is in the response.
+	 */
+	public boolean hasSection(InfoSection section) {
+		return getSection(section) != null;
+	}
+
+	/**
+	 * @return The requested sections that are not in the response.
+	 */
+	public Set<InfoSection> getMissingSections() {
+		return missing;
+	}
+
+	/**
+	 * @param section
+	 *            The section.
+	 * @return true if the section is missing because its part of a split info call didn't arrive before the deadline.
+	 */
+	public boolean isTimedOut(InfoSection section) {
+		return timedOut.contains(section);
+	}
+
+	/**
+	 * @return The sections missing because their part of a split info call didn't arrive before the deadline.
+	 */
+	public Set<InfoSection> getTimedOutSections() {
+		return timedOut;
+	}
+
+	/**
+	 * @return true if every requested section is in the response.
+	 */
+	public boolean isComplete() {
+		return missing.isEmpty();
+	}
+
+	/**
+	 * @return The device section.
+	 */
+	public JSONObject getDevice() {
+		return getSection(InfoSection.DEVICE);
+	}
+
+	/**
+	 * @return The velocity section.
+	 */
+	public JSONObject getVelocity() {
+		return getSection(InfoSection.VELOCITY);
+	}
+
+	/**
+	 * @return The decision section.
+	 */
+	public JSONObject getDecision() {
+		return getSection(InfoSection.DECISION);
+	}
+
+	/**
+	 * @return The trusted device section.
+	 */
+	public JSONObject getTrusted() {
+		return getSection(InfoSection.TRUSTED);
+	}
+
+	/**
+	 * @return The BehavioSec section.
+	 */
+	public JSONObject getBehavioSec() {
+		return getSection(InfoSection.BEHAVIOSEC);
+	}
+
+	/**
+	 * @return The response id.
+	 */
+	public String getResponseId() {
+		return response.optString("response_id", null);
+	}
+
+	/**
+	 * @return The requested data sets.
+	 */
+	public int getInfoFlag() {
+		return query.getFlag();
+	}
+
+	/**
+	 * @return The requested data sets.
+	 */
+	public InfoQuery getQuery() {
+		return query;
+	}
+
+	/**
+	 * @return The phase timings of the info calls made for the response: one, or one per part of a split query that
+	 *         completed.
+	 */
+	public List<RequestPhases> getRequestPhases() {
+		return requestPhases;
+	}
+
+	/**
+	 * @return The whole response.
+	 */
+	public JSONObject getJSON() {
+		return response;
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * The data sets the info endpoint can return, with their infoFlag bit (see {@link InfoEndpointDataSet}) and the
+ * name of their section in the response.
+ *
+ * @author custserv@kount.com
+ */
+public enum InfoSection {
+
+	/**
+	 * Device information, {@link InfoEndpointDataSet#INFO}.
+	 */
+	DEVICE(InfoEndpointDataSet.INFO, "device"),
+
+	/**
+	 * Velocity data, {@link InfoEndpointDataSet#VELOCITY}. Requires the username and password.
+	 */
+	VELOCITY(InfoEndpointDataSet.VELOCITY, "velocity"),
+
+	/**
+	 * Threshold decision, {@link InfoEndpointDataSet#DECISION}. Requires the username and password.
+	 */
+	DECISION(InfoEndpointDataSet.DECISION, "decision"),
+
+	/**
+	 * Trusted device state, {@link InfoEndpointDataSet#TRUSTED}. Requires the uniq customer identifier.
+	 */
+	TRUSTED(InfoEndpointDataSet.TRUSTED, "trusted"),
+
+	/**
+	 * BehavioSec data, {@link InfoEndpointDataSet#BEHAVIOSEC}. Requires the uniq customer identifier.
+	 */
+	BEHAVIOSEC(InfoEndpointDataSet.BEHAVIOSEC, "behavioSec");
+
+	private final int flag;
+
+	private final String responseKey;
+
+	private InfoSection(int flag, String responseKey) {
+		this.flag = flag;
+		this.responseKey = responseKey;
+	}
+
+	/**
+	 * @return The infoFlag bit of the section.
+	 */
+	public int getFlag() {
+		return flag;
+	}
+
+	/**
+	 * @return The name of the section in the info response.
+	 */
+	public String getResponseKey() {
+		return responseKey;
+	}
+
+	/**
+	 * Combines sections into an infoFlag.
+	 *
+	 * @param sections
+	 *            The sections.
+	 * @return The infoFlag requesting all of them.
+	 */
+	public static int toFlag(InfoSection... sections) {
+		int flag = 0;
+		for (InfoSection section : sections) {
+			flag |= section.flag;
+		}
+		return flag;
+	}
+}
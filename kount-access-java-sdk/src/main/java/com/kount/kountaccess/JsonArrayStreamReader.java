@@ -0,0 +1,232 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Incremental reader for a named array in a top level JSON object (e.g. the "devices" array of a getdevices response).
+ * Elements are returned one at a time as raw JSON text, so only the element currently being read is held in memory.
+ *
+ * @author custserv@kount.com
+ */
+final class JsonArrayStreamReader implements Closeable {
+
+	private final Reader reader;
+
+	private final char[] buffer = new char[4096];
+
+	private int position;
+
+	private int limit;
+
+	/**
+	 * Reused for every element, so it never grows beyond the largest element in the array.
+	 */
+	private final StringBuilder element = new StringBuilder();
+
+	private boolean inArray;
+
+	private boolean elementRead;
+
+	JsonArrayStreamReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Scans the top level object up to the value of the given field.
+	 *
+	 * @param name
+	 *            The name of the array field.
+	 * @return true if the reader is positioned at the first element of the array, false if the field is absent or
+	 *         null.
+	 * @throws IOException
+	 *             Thrown if the stream can't be read or is not a JSON object.
+	 */
+	boolean openArray(String name) throws IOException {
+		if (nextNonWhitespace() != '{') {
+			throw new IOException("Response is not a JSON object");
+		}
+		StringBuilder key = new StringBuilder();
+		while (true) {
+			int c = nextNonWhitespace();
+			if (c == ',') {
+				continue;
+			}
+			if ((c == '}') || (c == -1)) {
+				return false;
+			}
+			if (c != '"') {
+				throw new IOException("Malformed JSON object key");
+			}
+			key.setLength(0);
+			copyString(key);
+			if (nextNonWhitespace() != ':') {
+				throw new IOException("Malformed JSON object");
+			}
+			c = nextNonWhitespace();
+			// the key still holds its closing quote
+			if ((key.length() == (name.length() + 1)) && (key.indexOf(name) == 0)) {
+				if (c == '[') {
+					inArray = true;
+					return true;
+				}
+				copyValue(c, null);
+				return false;
+			}
+			copyValue(c, null);
+		}
+	}
+
+	/**
+	 * Reads the next element of the array.
+	 *
+	 * @return The raw JSON text of the element or null at the end of the array.
+	 * @throws IOException
+	 *             Thrown if the stream can't be read or is malformed.
+	 */
+	String nextElement() throws IOException {
+		if (!advance()) {
+			return null;
+		}
+		element.setLength(0);
+		copyValue(read(), element);
+		return element.toString();
+	}
+
+	/**
+	 * Skips the next element of the array without buffering it.
+	 *
+	 * @return false if the end of the array was reached.
+	 * @throws IOException
+	 *             Thrown if the stream can't be read or is malformed.
+	 */
+	boolean skipElement() throws IOException {
+		if (!advance()) {
+			return false;
+		}
+		copyValue(read(), null);
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		inArray = false;
+		reader.close();
+	}
+
+	/**
+	 * Moves past the element separator, leaving the first character of the next element unread.
+	 */
+	private boolean advance() throws IOException {
+		if (!inArray) {
+			return false;
+		}
+		int c = nextNonWhitespace();
+		if (elementRead && (c == ',')) {
+			c = nextNonWhitespace();
+		}
+		if (c == ']') {
+			inArray = false;
+			return false;
+		}
+		if (c == -1) {
+			throw new EOFException("Unterminated JSON array");
+		}
+		position--;
+		elementRead = true;
+		return true;
+	}
+
+	/**
+	 * Copies (or skips, when out is null) a complete JSON value starting with the character c.
+	 */
+	private void copyValue(int c, StringBuilder out) throws IOException {
+		if (c == '"') {
+			append(out, c);
+			copyString(out);
+			return;
+		}
+		if ((c == '{') || (c == '[')) {
+			int depth = 0;
+			while (true) {
+				if (c == -1) {
+					throw new EOFException("Unterminated JSON value");
+				}
+				append(out, c);
+				if (c == '"') {
+					copyString(out);
+				} else if ((c == '{') || (c == '[')) {
+					depth++;
+				} else if (((c == '}') || (c == ']')) && (--depth == 0)) {
+					return;
+				}
+				c = read();
+			}
+		}
+		// number, true, false or null
+		while ((c != -1) && (c != ',') && (c != '}') && (c != ']') && !isWhitespace(c)) {
+			append(out, c);
+			c = read();
+		}
+		if (c != -1) {
+			position--;
+		}
+	}
+
+	/**
+	 * Copies the rest of a string whose opening quote has already been read, including the closing quote.
+	 */
+	private void copyString(StringBuilder out) throws IOException {
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				throw new EOFException("Unterminated JSON string");
+			}
+			append(out, c);
+			if (c == '\\') {
+				c = read();
+				if (c == -1) {
+					throw new EOFException("Unterminated JSON string");
+				}
+				append(out, c);
+			} else if (c == '"') {
+				return;
+			}
+		}
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		int c = read();
+		while (isWhitespace(c)) {
+			c = read();
+		}
+		return c;
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+
+	private static boolean isWhitespace(int c) {
+		return (c == ' ') || (c == '\n') || (c == '\r') || (c == '\t');
+	}
+
+	private static void append(StringBuilder out, int c) {
+		if (out != null) {
+			out.append((char) c);
+		}
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single pass JSON well-formedness check. Unlike parsing with json-lib it builds no object tree and allocates nothing,
+ * which matters for the multi-kilobyte timing payloads passed to
+ * {@link AccessSdk#setBehavioData(String, String, String, String, String)}.
+ *
+ * @author custserv@kount.com
+ */
+final class JsonValidator {
+
+	/**
+	 * Nesting limit, keeps the recursive descent well within the thread stack.
+	 */
+	static final int MAX_DEPTH = 512;
+
+	private static final int INVALID = -1;
+
+	private JsonValidator() {
+	}
+
+	/**
+	 * Checks that the text is exactly one JSON object or array, optionally surrounded by whitespace.
+	 *
+	 * @param text
+	 *            The text to check.
+	 * @return true if the text is well-formed.
+	 */
+	static boolean isWellFormedObjectOrArray(CharSequence text) {
+		int length = text.length();
+		int i = skipWhitespace(text, 0, length);
+		if (i == length) {
+			return false;
+		}
+		char c = text.charAt(i);
+		if ((c != '{') && (c != '[')) {
+			return false;
+		}
+		i = value(text, i, length, 0);
+		return (i != INVALID) && (skipWhitespace(text, i, length) == length);
+	}
+
+	/**
+	 * Checks the UTF-8 encoded bytes between the buffer's position and limit, see
+	 * {@link #isWellFormedObjectOrArray(CharSequence)}. Multi-byte sequences are only valid inside strings, which is
+	 * where the scan accepts any byte above 0x7F.
+	 *
+	 * @param utf8
+	 *            The bytes to check, position and limit are not changed.
+	 * @return true if the bytes are well-formed.
+	 */
+	static boolean isWellFormedObjectOrArray(ByteBuffer utf8) {
+		return isWellFormedObjectOrArray(new ByteSequence(utf8));
+	}
+
+	/**
+	 * @return the index after the value starting at i, or INVALID.
+	 */
+	private static int value(CharSequence s, int i, int n, int depth) {
+		if (i >= n) {
+			return INVALID;
+		}
+		switch (s.charAt(i)) {
+		case '{':
+			return object(s, i + 1, n, depth + 1);
+		case '[':
+			return array(s, i + 1, n, depth + 1);
+		case '"':
+			return string(s, i + 1, n);
+		case 't':
+			return literal(s, i, n, "true");
+		case 'f':
+			return literal(s, i, n, "false");
+		case 'n':
+			return literal(s, i, n, "null");
+		default:
+			return number(s, i, n);
+		}
+	}
+
+	private static int object(CharSequence s, int i, int n, int depth) {
+		if (depth > MAX_DEPTH) {
+			return INVALID;
+		}
+		i = skipWhitespace(s, i, n);
+		if ((i < n) && (s.charAt(i) == '}')) {
+			return i + 1;
+		}
+		while (i < n) {
+			if (s.charAt(i) != '"') {
+				return INVALID;
+			}
+			i = string(s, i + 1, n);
+			if (i == INVALID) {
+				return INVALID;
+			}
+			i = skipWhitespace(s, i, n);
+			if ((i == n) || (s.charAt(i) != ':')) {
+				return INVALID;
+			}
+			i = value(s, skipWhitespace(s, i + 1, n), n, depth);
+			if (i == INVALID) {
+				return INVALID;
+			}
+			i = skipWhitespace(s, i, n);
+			if (i == n) {
+				return INVALID;
+			}
+			char c = s.charAt(i);
+			if (c == '}') {
+				return i + 1;
+			}
+			if (c != ',') {
+				return INVALID;
+			}
+			i = skipWhitespace(s, i + 1, n);
+		}
+		return INVALID;
+	}
+
+	private static int array(CharSequence s, int i, int n, int depth) {
+		if (depth > MAX_DEPTH) {
+			return INVALID;
+		}
+		i = skipWhitespace(s, i, n);
+		if ((i < n) && (s.charAt(i) == ']')) {
+			return i + 1;
+		}
+		while (i < n) {
+			i = value(s, i, n, depth);
+			if (i == INVALID) {
+				return INVALID;
+			}
+			i = skipWhitespace(s, i, n);
+			if (i == n) {
+				return INVALID;
+			}
+			char c = s.charAt(i);
+			if (c == ']') {
+				return i + 1;
+			}
+			if (c != ',') {
+				return INVALID;
+			}
+			i = skipWhitespace(s, i + 1, n);
+		}
+		return INVALID;
+	}
+
+	/**
+	 * @param i
+	 *            index after the opening quote
+	 */
+	private static int string(CharSequence s, int i, int n) {
+		while (i < n) {
+			char c = s.charAt(i);
+			if (c == '"') {
+				return i + 1;
+			}
+			if (c == '\\') {
+				if (++i == n) {
+					return INVALID;
+				}
+				switch (s.charAt(i)) {
+				case '"':
+				case '\\':
+				case '/':
+				case 'b':
+				case 'f':
+				case 'n':
+				case 'r':
+				case 't':
+					i++;
+					break;
+				case 'u':
+					if ((i + 4) >= n) {
+						return INVALID;
+					}
+					for (int j = 1; j <= 4; j++) {
+						if (!isHexDigit(s.charAt(i + j))) {
+							return INVALID;
+						}
+					}
+					i += 5;
+					break;
+				default:
+					return INVALID;
+				}
+			} else if (c < 0x20) {
+				return INVALID;
+			} else {
+				i++;
+			}
+		}
+		return INVALID;
+	}
+
+	private static int number(CharSequence s, int i, int n) {
+		if (s.charAt(i) == '-') {
+			i++;
+		}
+		if (i == n) {
+			return INVALID;
+		}
+		if (s.charAt(i) == '0') {
+			i++;
+		} else {
+			int start = i;
+			i = digits(s, i, n);
+			if (i == start) {
+				return INVALID;
+			}
+		}
+		if ((i < n) && (s.charAt(i) == '.')) {
+			int start = ++i;
+			i = digits(s, i, n);
+			if (i == start) {
+				return INVALID;
+			}
+		}
+		if ((i < n) && ((s.charAt(i) == 'e') || (s.charAt(i) == 'E'))) {
+			i++;
+			if ((i < n) && ((s.charAt(i) == '+') || (s.charAt(i) == '-'))) {
+				i++;
+			}
+			int start = i;
+			i = digits(s, i, n);
+			if (i == start) {
+				return INVALID;
+			}
+		}
+		return i;
+	}
+
+	private static int digits(CharSequence s, int i, int n) {
+		while ((i < n) && (s.charAt(i) >= '0') && (s.charAt(i) <= '9')) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Only ASCII hex digits, where Character.digit would also take e.g. full-width ones.
+	 */
+	private static boolean isHexDigit(char c) {
+		return ((c >= '0') && (c <= '9')) || ((c >= 'a') && (c <= 'f')) || ((c >= 'A') && (c <= 'F'));
+	}
+
+	private static int literal(CharSequence s, int i, int n, String literal) {
+		int end = i + literal.length();
+		if (end > n) {
+			return INVALID;
+		}
+		for (int j = 0; j < literal.length(); j++) {
+			if (s.charAt(i + j) != literal.charAt(j)) {
+				return INVALID;
+			}
+		}
+		return end;
+	}
+
+	private static int skipWhitespace(CharSequence s, int i, int n) {
+		while (i < n) {
+			char c = s.charAt(i);
+			if ((c != ' ') && (c != '\n') && (c != '\r') && (c != '\t')) {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Read-only view of a byte buffer, one char per byte.
+	 */
+	private static final class ByteSequence implements CharSequence {
+
+		private final ByteBuffer bytes;
+
+		private final int offset;
+
+		private final int length;
+
+		ByteSequence(ByteBuffer bytes) {
+			this.bytes = bytes;
+			this.offset = bytes.position();
+			this.length = bytes.remaining();
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (bytes.get(offset + index) & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			throw new UnsupportedOperationException("subSequence");
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of nanosecond latencies with HDR-style log-linear buckets: every power of two is split into 64
+ * equal buckets, so a recorded value is reported with less than 1.6% error over the whole range of a long. Recording
+ * is a few atomic increments and never allocates; reads take a {@link Snapshot}.
+ *
+ * @author custserv@kount.com
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * Values below this are counted exactly.
+	 */
+	private static final int LINEAR_LIMIT = 128;
+
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * 128 exact buckets, then 64 per power of two from 2^7 to 2^62.
+	 */
+	private static final int BUCKETS = LINEAR_LIMIT + ((63 - 7) * SUB_BUCKETS);
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency. Negative values are recorded as 0.
+	 *
+	 * @param nanos
+	 *            The latency in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(index(value));
+		total.addAndGet(value);
+		long current;
+		while ((value < (current = min.get())) && !min.compareAndSet(current, value)) {
+			// retry
+		}
+		while ((value > (current = max.get())) && !max.compareAndSet(current, value)) {
+			// retry
+		}
+	}
+
+	/**
+	 * @return The counts recorded so far. Concurrent records may be partly included.
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+		return new Snapshot(copy, count, (count > 0) ? min.get() : 0, max.get(), total.get());
+	}
+
+	static int index(long value) {
+		if (value < LINEAR_LIMIT) {
+			return (int) value;
+		}
+		int shift = (64 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS + 1);
+		int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+		return LINEAR_LIMIT + ((shift - 1) * SUB_BUCKETS) + subBucket;
+	}
+
+	/**
+	 * @return The largest value counted in a bucket.
+	 */
+	static long highestValue(int index) {
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}
+		int shift = ((index - LINEAR_LIMIT) / SUB_BUCKETS) + 1;
+		long subBucket = ((index - LINEAR_LIMIT) % SUB_BUCKETS) + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * The counts of a histogram at one point in time.
+	 */
+	public static final class Snapshot {
+
+		private final long[] counts;
+
+		private final long count;
+
+		private final long min;
+
+		private final long max;
+
+		private final long total;
+
+		Snapshot(long[] counts, long count, long min, long max, long total) {
+			this.counts = counts;
+			this.count = count;
+			this.min = min;
+			this.max = max;
+			this.total = total;
+		}
+
+		/**
+		 * @return The number of values recorded.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return The smallest value recorded, 0 if none.
+		 */
+		public long getMin() {
+			return min;
+		}
+
+		/**
+		 * @return The largest value recorded, 0 if none.
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * @return The mean of the values recorded, 0 if none.
+		 */
+		public double getMean() {
+			return (count > 0) ? ((double) total / count) : 0;
+		}
+
+		/**
+		 * @param percentile
+		 *            The percentile, from 0 to 100.
+		 * @return The value below or at which the percentile of the recorded values fall, within the bucket error; 0
+		 *         if none was recorded.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			double clamped = Math.min(100, Math.max(0, percentile));
+			long rank = Math.max(1, (long) Math.ceil((clamped / 100) * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.max(min, Math.min(max, highestValue(i)));
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * @return The value at a percentile converted to a unit, see {@link #getValueAtPercentile(double)}.
+		 */
+		public long getValueAtPercentile(double percentile, TimeUnit unit) {
+			return unit.convert(getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + ", min=" + min + ", p50=" + getValueAtPercentile(50) + ", p99="
+					+ getValueAtPercentile(99) + ", max=" + max;
+		}
+	}
+}
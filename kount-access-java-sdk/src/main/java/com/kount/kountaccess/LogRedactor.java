@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * Masks the secrets in what the SDK logs: the session (s) and the credential hashes (uh, ph and ah) of request
+ * parameters and URLs, and API keys. A masked value keeps its first 4 characters, enough to tell requests apart in a
+ * log, unless it is too short to hide anything.
+ *
+ * @author custserv@kount.com
+ */
+final class LogRedactor {
+
+	private static final String[] SECRET_PARAMETERS = { "s", "uh", "ph", "ah" };
+
+	private static final int SHOWN = 4;
+
+	private static final String MASK = "****";
+
+	private LogRedactor() {
+	}
+
+	/**
+	 * @return The value with all but its first characters masked, or null if it is null.
+	 */
+	static String mask(String value) {
+		if (value == null) {
+			return null;
+		}
+		if (value.length() <= (2 * SHOWN)) {
+			return MASK;
+		}
+		return value.substring(0, SHOWN) + MASK;
+	}
+
+	/**
+	 * @param parameters
+	 *            Form encoded parameters, e.g. a request body or a query string, or their encoder.
+	 * @return The parameters with the secret values masked.
+	 */
+	static String parameters(Object parameters) {
+		if (parameters == null) {
+			return null;
+		}
+		String form = parameters.toString();
+		StringBuilder redacted = new StringBuilder(form.length());
+		int start = 0;
+		while (start <= form.length()) {
+			int end = form.indexOf('&', start);
+			if (end < 0) {
+				end = form.length();
+			}
+			if (start > 0) {
+				redacted.append('&');
+			}
+			int equals = form.indexOf('=', start);
+			if ((equals >= 0) && (equals < end) && isSecret(form, start, equals)) {
+				redacted.append(form, start, equals + 1).append(mask(form.substring(equals + 1, end)));
+			} else {
+				redacted.append(form, start, end);
+			}
+			start = end + 1;
+		}
+		return redacted.toString();
+	}
+
+	/**
+	 * @return The URL with the secret values of its query masked.
+	 */
+	static String url(String url) {
+		if (url == null) {
+			return null;
+		}
+		int query = url.indexOf('?');
+		if (query < 0) {
+			return url;
+		}
+		return url.substring(0, query + 1) + parameters(url.substring(query + 1));
+	}
+
+	private static boolean isSecret(String form, int start, int end) {
+		for (String name : SECRET_PARAMETERS) {
+			if (((end - start) == name.length()) && form.startsWith(name, start)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.json.JSONObject;
+
+/**
+ * The combined result of the device, velocity and decision calls of one login, run concurrently by
+ * {@link AccessSession#assess}. Every requested part is either completed, failed with an {@link AccessException}, or
+ * timed out because it didn't complete before the deadline; the last two are reported by
+ * {@link #getMissingSections()}.
+ *
+ * @author custserv@kount.com
+ */
+public final class LoginAssessment {
+
+	private final Set<InfoSection> requested;
+
+	private final Map<InfoSection, JSONObject> results;
+
+	private final Map<InfoSection, AccessException> errors;
+
+	private final Set<InfoSection> timedOut;
+
+	LoginAssessment(Set<InfoSection> requested, Map<InfoSection, JSONObject> results,
+			Map<InfoSection, AccessException> errors, Set<InfoSection> timedOut) {
+		this.requested = Collections.unmodifiableSet(EnumSet.copyOf(requested));
+		this.results = Collections.unmodifiableMap(new EnumMap<>(results));
+		this.errors = Collections.unmodifiableMap(new EnumMap<>(errors));
+		this.timedOut = Collections.unmodifiableSet(timedOut.isEmpty() ? EnumSet.noneOf(InfoSection.class)
+				: EnumSet.copyOf(timedOut));
+	}
+
+	/**
+	 * @return The parts that were requested.
+	 */
+	public Set<InfoSection> getRequestedSections() {
+		return requested;
+	}
+
+	/**
+	 * Gets the response of one call.
+	 *
+	 * @param section
+	 *            {@link InfoSection#DEVICE}, {@link InfoSection#VELOCITY} or {@link InfoSection#DECISION}.
+	 * @return The response of the call, or null if it failed, timed out or was not requested.
+	 */
+	public JSONObject getResult(InfoSection section) {
+		return results.get(section);
+	}
+
+	/**
+	 * @return The getDevice response, or null.
+	 */
+	public JSONObject getDevice() {
+		return results.get(InfoSection.DEVICE);
+	}
+
+	/**
+	 * @return The getVelocity response, or null.
+	 */
+	public JSONObject getVelocity() {
+		return results.get(InfoSection.VELOCITY);
+	}
+
+	/**
+	 * @return The getDecision response, or null.
+	 */
+	public JSONObject getDecision() {
+		return results.get(InfoSection.DECISION);
+	}
+
+	/**
+	 * @param section
+	 *            The part.
+	 * @return The error of the part's call, or null if it didn't fail.
+	 */
+	public AccessException getError(InfoSection section) {
+		return errors.get(section);
+	}
+
+	/**
+	 * @param section
+	 *            The part.
+	 * @return true if the part's call didn't complete before the deadline.
+	 */
+	public boolean isTimedOut(InfoSection section) {
+		return timedOut.contains(section);
+	}
+
+	/**
+	 * @return The requested parts that have no result, because they failed or timed out.
+	 */
+	public Set<InfoSection> getMissingSections() {
+		Set<InfoSection> missing = EnumSet.noneOf(InfoSection.class);
+		for (InfoSection section : requested) {
+			if (!results.containsKey(section)) {
+				missing.add(section);
+			}
+		}
+		return missing;
+	}
+
+	/**
+	 * @return true if every requested part has a result.
+	 */
+	public boolean isComplete() {
+		return results.keySet().containsAll(requested);
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * Receives a measurement for every request the SDK makes, set with
+ * {@link AccessSdk#setMetricsRecorder(MetricsRecorder)}. {@link InMemoryMetricsRecorder} keeps them in per-endpoint
+ * histograms and counters; other implementations can forward them to a metrics library.
+ * <p>
+ * Requests are recorded on the calling thread, right after they complete, so implementations must be thread-safe and
+ * should not block.
+ *
+ * @author custserv@kount.com
+ */
+public interface MetricsRecorder {
+
+	/**
+	 * Records a completed request.
+	 *
+	 * @param endpoint
+	 *            The endpoint called: velocity, decision, device, info, getdevices, getuniques, devicetrustbydevice,
+	 *            devicetrustbysession or behavio.
+	 * @param latencyNanos
+	 *            The time from sending the request to reading the response, in nanoseconds. For the streamed
+	 *            getdevices and getuniques iterators, the time to the response headers.
+	 * @param statusCode
+	 *            The HTTP status of the response, 0 if there was none.
+	 * @param bytesSent
+	 *            The size of the request body, 0 for gets or when unknown.
+	 * @param bytesReceived
+	 *            The size of the response body, 0 when unknown.
+	 * @param error
+	 *            The type of the error the request ended with, or null if it succeeded.
+	 */
+	void recordRequest(String endpoint, long latencyNanos, int statusCode, long bytesSent, long bytesReceived,
+			AccessErrorType error);
+}
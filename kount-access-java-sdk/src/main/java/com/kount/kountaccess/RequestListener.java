@@ -0,0 +1,34 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * Is told where the time of every request the SDK makes went, set with
+ * {@link AccessSdk#setRequestListener(RequestListener)}. Useful to log the phases of the slow requests:
+ *
+ * <pre>
+ * sdk.setRequestListener(new RequestListener() {
+ * 	public void requestCompleted(RequestPhases phases) {
+ * 		if (phases.getTotal(TimeUnit.MILLISECONDS) &gt; 500) {
+ * 			log.warn("slow Kount request " + phases);
+ * 		}
+ * 	}
+ * });
+ * </pre>
+ *
+ * Requests are reported on the calling thread, right after they complete, so implementations must be thread-safe and
+ * should not block.
+ *
+ * @author custserv@kount.com
+ */
+public interface RequestListener {
+
+	/**
+	 * Reports a completed request, successful or not.
+	 *
+	 * @param phases
+	 *            The endpoint, outcome and phase timings of the request.
+	 */
+	void requestCompleted(RequestPhases phases);
+}
@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs a sample of the SDK's requests as structured key=value records, at INFO on the
+ * <code>com.kount.kountaccess.requests</code> logger, e.g.
+ *
+ * <pre>
+ * endpoint=info host=999999.kountaccess.com status=200 error=none attempt=1 reused=true total_us=5120 ...
+ * </pre>
+ *
+ * The records hold no request parameters. Requests that aren't sampled cost one random number.
+ *
+ * @author custserv@kount.com
+ */
+final class RequestLog {
+
+	static final String LOGGER_NAME = "com.kount.kountaccess.requests";
+
+	private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+	private RequestLog() {
+	}
+
+	/**
+	 * @param rate
+	 *            The share of requests logged, from 0 to 1.
+	 * @return true if a request is logged.
+	 */
+	static boolean sampled(double rate) {
+		return (rate >= 1.0) || ((rate > 0.0) && (ThreadLocalRandom.current().nextDouble() < rate));
+	}
+
+	static void log(TracedRequest request, RequestPhases phases) {
+		if (!logger.isInfoEnabled()) {
+			return;
+		}
+		logger.info("endpoint={} host={} status={} error={} attempt={} reused={} total_us={} pool_wait_us={} dns_us={}"
+				+ " connect_us={} tls_us={} ttfb_us={} body_us={} parse_us={} bytes_sent={} bytes_received={}",
+				phases.getEndpoint(), request.getHost(), phases.getStatusCode(),
+				(phases.getError() != null) ? phases.getError() : "none", request.getAttempt(),
+				phases.isConnectionReused(), micros(phases.getTotal()), micros(phases.getPoolWait()),
+				micros(phases.getDns()), micros(phases.getConnect()), micros(phases.getTls()),
+				micros(phases.getTimeToFirstByte()), micros(phases.getBodyRead()), micros(phases.getParse()),
+				request.getBytesSent(), request.getBytesReceived());
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
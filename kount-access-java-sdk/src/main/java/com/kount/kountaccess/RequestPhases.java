@@ -0,0 +1,161 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.concurrent.TimeUnit;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * Where the time of one request went, in nanoseconds. A phase that didn't happen is 0: a request over a kept-alive
+ * connection has no DNS, connect or TLS time, and a plain HTTP request no TLS time. Delivered to the
+ * {@link RequestListener} and attached to typed responses such as {@link InfoResponse#getRequestPhases()}.
+ *
+ * @author custserv@kount.com
+ */
+public final class RequestPhases {
+
+	private final String endpoint;
+
+	private final int statusCode;
+
+	private final AccessErrorType error;
+
+	private final boolean connectionReused;
+
+	private final long poolWait;
+
+	private final long dns;
+
+	private final long connect;
+
+	private final long tls;
+
+	private final long timeToFirstByte;
+
+	private final long bodyRead;
+
+	private final long parse;
+
+	private final long total;
+
+	RequestPhases(String endpoint, int statusCode, AccessErrorType error, boolean connectionReused, long poolWait,
+			long dns, long connect, long tls, long timeToFirstByte, long bodyRead, long parse, long total) {
+		this.endpoint = endpoint;
+		this.statusCode = statusCode;
+		this.error = error;
+		this.connectionReused = connectionReused;
+		this.poolWait = poolWait;
+		this.dns = dns;
+		this.connect = connect;
+		this.tls = tls;
+		this.timeToFirstByte = timeToFirstByte;
+		this.bodyRead = bodyRead;
+		this.parse = parse;
+		this.total = total;
+	}
+
+	/**
+	 * @return The endpoint called, as named for the {@link MetricsRecorder}.
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * @return The HTTP status of the response, 0 if there was none.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return The type of the error the request ended with, or null if it succeeded.
+	 */
+	public AccessErrorType getError() {
+		return error;
+	}
+
+	/**
+	 * @return true if the request was sent over a connection kept alive from an earlier request.
+	 */
+	public boolean isConnectionReused() {
+		return connectionReused;
+	}
+
+	/**
+	 * @return The time waiting for a connection from the pool.
+	 */
+	public long getPoolWait() {
+		return poolWait;
+	}
+
+	/**
+	 * @return The time resolving the host name.
+	 */
+	public long getDns() {
+		return dns;
+	}
+
+	/**
+	 * @return The time opening the TCP connection.
+	 */
+	public long getConnect() {
+		return connect;
+	}
+
+	/**
+	 * @return The time of the TLS handshake.
+	 */
+	public long getTls() {
+		return tls;
+	}
+
+	/**
+	 * @return The time from sending the request to receiving the response headers.
+	 */
+	public long getTimeToFirstByte() {
+		return timeToFirstByte;
+	}
+
+	/**
+	 * @return The time reading the response body.
+	 */
+	public long getBodyRead() {
+		return bodyRead;
+	}
+
+	/**
+	 * @return The time decoding the JSON response, 0 for responses that aren't decoded.
+	 */
+	public long getParse() {
+		return parse;
+	}
+
+	/**
+	 * @return The time of the whole request.
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return The time of the whole request converted to a unit.
+	 */
+	public long getTotal(TimeUnit unit) {
+		return unit.convert(total, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return endpoint + " [status=" + statusCode + ((error != null) ? ", error=" + error : "") + ", total="
+				+ micros(total) + "us, poolWait=" + micros(poolWait) + "us, dns=" + micros(dns) + "us, connect="
+				+ micros(connect) + "us, tls=" + micros(tls) + "us, ttfb=" + micros(timeToFirstByte) + "us, body="
+				+ micros(bodyRead) + "us, parse=" + micros(parse) + "us" + (connectionReused ? ", reused" : "") + "]";
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,359 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * Measures one request for the SDK's {@link MetricsRecorder}, {@link RequestListener} and {@link TracingListener}, and
+ * counts it as in flight for its endpoint until it stops.
+ * <p>
+ * HttpClient runs a request on the calling thread, so the timer is the thread's current one while it runs and the
+ * connection pool, socket factories and request executor of {@link TimedHttpClients} mark the phases on it.
+ *
+ * @author custserv@kount.com
+ */
+final class RequestTimer implements TracedRequest {
+
+	private static final ThreadLocal<RequestTimer> CURRENT = new ThreadLocal<>();
+
+	private static final ThreadLocal<RequestPhases> LAST = new ThreadLocal<>();
+
+	private static final ThreadLocal<Integer> NEXT_ATTEMPT = new ThreadLocal<>();
+
+	private final MetricsRecorder recorder;
+
+	private final RequestListener listener;
+
+	private final TracingListener tracing;
+
+	private final double logSampleRate;
+
+	private final SlowRequestLog slowLog;
+
+	private final HttpEntity sent;
+
+	private String body;
+
+	private final boolean measureSizes;
+
+	private final int attempt;
+
+	private final String endpoint;
+
+	private final AtomicInteger inFlight;
+
+	private final RequestTimer previous;
+
+	private final long startNanos = System.nanoTime();
+
+	private final Object flightEvent = AccessEvents.requestStarted();
+
+	private final long bytesSent;
+
+	private int statusCode;
+
+	private long bytesReceived;
+
+	private AccessErrorType error;
+
+	private AccessException exception;
+
+	private HttpUriRequest request;
+
+	private Object span;
+
+	private long connectingNanos;
+
+	private long socketConnectingNanos;
+
+	private long socketConnectedNanos;
+
+	private long tlsNanos;
+
+	private long sendingNanos;
+
+	private long headersNanos;
+
+	private long bodyNanos;
+
+	private long parseNanos;
+
+	private long markNanos;
+
+	/**
+	 * Starts the timer and makes it the thread's current one.
+	 *
+	 * @param inFlight
+	 *            The in-flight count of the endpoint, incremented until {@link #stop()}.
+	 * @param sent
+	 *            The request body, or null.
+	 * @param logSampleRate
+	 *            The share of requests written to the {@link RequestLog}.
+	 * @param slowLog
+	 *            Keeps the request if it is slow, or null.
+	 */
+	RequestTimer(MetricsRecorder recorder, RequestListener listener, TracingListener tracing, String endpoint,
+			AtomicInteger inFlight, HttpEntity sent, double logSampleRate, SlowRequestLog slowLog) {
+		this.recorder = recorder;
+		this.listener = listener;
+		this.tracing = tracing;
+		this.logSampleRate = logSampleRate;
+		this.slowLog = slowLog;
+		this.sent = sent;
+		this.measureSizes = (recorder != null) || (tracing != TracingListener.NOOP) || (flightEvent != null)
+				|| (logSampleRate > 0);
+		this.endpoint = endpoint;
+		this.inFlight = inFlight;
+		this.bytesSent = ((sent != null) && measureSizes) ? Math.max(0, sent.getContentLength()) : 0;
+		Integer next = NEXT_ATTEMPT.get();
+		if (next != null) {
+			NEXT_ATTEMPT.remove();
+			this.attempt = next;
+			AccessEvents.retry(endpoint, next);
+		} else {
+			this.attempt = 1;
+		}
+		inFlight.incrementAndGet();
+		this.previous = CURRENT.get();
+		CURRENT.set(this);
+	}
+
+	/**
+	 * Tells the tracing listener the request is about to be sent.
+	 */
+	void started(HttpUriRequest sending) {
+		this.request = sending;
+		span = tracing.requestStarted(this);
+	}
+
+	void status(int code) {
+		this.statusCode = code;
+	}
+
+	/**
+	 * Notes the size of the response body, from its length or else from the body read.
+	 */
+	void received(HttpEntity entity, String body) {
+		long length = (entity != null) ? entity.getContentLength() : -1;
+		if ((length < 0) && (body != null) && measureSizes) {
+			length = body.getBytes(StandardCharsets.UTF_8).length;
+		}
+		this.bytesReceived = Math.max(0, length);
+		if (slowLog != null) {
+			this.body = body;
+		}
+	}
+
+	void failed(AccessException ae) {
+		this.exception = ae;
+		this.error = ae.getAccessErrorType();
+	}
+
+	/**
+	 * Marks the start of reading the response body.
+	 */
+	void reading() {
+		markNanos = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of reading the response body.
+	 */
+	void read() {
+		bodyNanos = System.nanoTime() - markNanos;
+	}
+
+	/**
+	 * Marks the start of decoding the response.
+	 */
+	void parsing() {
+		markNanos = System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of decoding the response.
+	 */
+	void parsed() {
+		parseNanos = System.nanoTime() - markNanos;
+	}
+
+	/**
+	 * Records the request and tells the listeners, then restores the thread's previous timer.
+	 */
+	void stop() {
+		long elapsed = System.nanoTime() - startNanos;
+		inFlight.decrementAndGet();
+		if (previous != null) {
+			CURRENT.set(previous);
+		} else {
+			CURRENT.remove();
+		}
+		if (recorder != null) {
+			recorder.recordRequest(endpoint, elapsed, statusCode, bytesSent, bytesReceived, error);
+		}
+		if (flightEvent != null) {
+			AccessEvents.requestEnded(flightEvent, endpoint, statusCode, error, bytesSent, bytesReceived);
+		}
+		RequestPhases phases = phases(elapsed);
+		LAST.set(phases);
+		if (listener != null) {
+			listener.requestCompleted(phases);
+		}
+		if ((logSampleRate > 0) && RequestLog.sampled(logSampleRate)) {
+			RequestLog.log(this, phases);
+		}
+		if ((slowLog != null) && (elapsed >= slowLog.getThresholdNanos())) {
+			slowLog.record(phases, request, sent, body);
+		}
+		if (request != null) {
+			if (exception != null) {
+				tracing.requestFailed(span, this, phases, exception);
+			} else {
+				tracing.requestEnded(span, this, phases);
+			}
+			request = null;
+		}
+	}
+
+	private RequestPhases phases(long elapsed) {
+		boolean connected = connectingNanos != 0;
+		long poolWait = 0;
+		if (connected) {
+			poolWait = connectingNanos - startNanos;
+		} else if (sendingNanos != 0) {
+			poolWait = sendingNanos - startNanos;
+		}
+		long dns = 0;
+		long connect = 0;
+		if (connected && (socketConnectingNanos != 0)) {
+			dns = socketConnectingNanos - connectingNanos;
+			if (socketConnectedNanos != 0) {
+				connect = Math.max(0, socketConnectedNanos - socketConnectingNanos - tlsNanos);
+			}
+		}
+		long timeToFirstByte = ((sendingNanos != 0) && (headersNanos != 0)) ? (headersNanos - sendingNanos) : 0;
+		return new RequestPhases(endpoint, statusCode, error, !connected && (sendingNanos != 0), poolWait, dns,
+				connect, tlsNanos, timeToFirstByte, bodyNanos, parseNanos, elapsed);
+	}
+
+	@Override
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	@Override
+	public String getHost() {
+		return ((request != null) && (request.getURI() != null)) ? request.getURI().getHost() : null;
+	}
+
+	@Override
+	public int getAttempt() {
+		return attempt;
+	}
+
+	@Override
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	@Override
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	@Override
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		if (request != null) {
+			request.setHeader(name, value);
+		}
+	}
+
+	/**
+	 * Numbers the next request started on this thread as a later attempt.
+	 */
+	static void nextAttempt(int next) {
+		NEXT_ATTEMPT.set(next);
+	}
+
+	/**
+	 * @return The phases of the last request completed on this thread and not taken yet, or null.
+	 */
+	static RequestPhases takeLastPhases() {
+		RequestPhases phases = LAST.get();
+		LAST.remove();
+		return phases;
+	}
+
+	/**
+	 * Marks that the current request opens a new connection, once it has one from the pool.
+	 */
+	static void connecting() {
+		RequestTimer timer = CURRENT.get();
+		if ((timer != null) && (timer.connectingNanos == 0)) {
+			timer.connectingNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Marks the start of the TCP connect of the current request, after its host name is resolved.
+	 */
+	static void socketConnecting() {
+		RequestTimer timer = CURRENT.get();
+		if ((timer != null) && (timer.socketConnectingNanos == 0)) {
+			timer.socketConnectingNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Marks the end of the TCP connect, and TLS handshake if any, of the current request.
+	 */
+	static void socketConnected() {
+		RequestTimer timer = CURRENT.get();
+		if (timer != null) {
+			timer.socketConnectedNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Adds a TLS handshake to the current request.
+	 */
+	static void handshake(long nanos) {
+		RequestTimer timer = CURRENT.get();
+		if (timer != null) {
+			timer.tlsNanos += nanos;
+		}
+	}
+
+	/**
+	 * Marks the start of sending the current request.
+	 */
+	static void sending() {
+		RequestTimer timer = CURRENT.get();
+		if (timer != null) {
+			timer.sendingNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Marks the arrival of the response headers of the current request.
+	 */
+	static void headersReceived() {
+		RequestTimer timer = CURRENT.get();
+		if (timer != null) {
+			timer.headersNanos = System.nanoTime();
+		}
+	}
+}
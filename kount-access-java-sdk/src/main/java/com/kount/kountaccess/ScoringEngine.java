@@ -0,0 +1,383 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * The backpressure logic of a stream processor scoring logins, kept free of java.util.concurrent.Flow so it builds for
+ * Java 7. The <code>kount-access-java-flow</code> module adapts it to a Flow.Processor; other reactive libraries can
+ * be adapted the same way, by mapping their subscriptions and subscribers to {@link Upstream} and {@link Downstream}.
+ * <p>
+ * Requests are taken from upstream while fewer than the in-flight limit are received and not yet emitted, so a slow
+ * downstream stops the upstream instead of filling a buffer. Each request is scored with a getInfo call on the SDK's
+ * executor and its response is emitted once the downstream has demand, in completion order. With session ordering,
+ * the requests of a session are scored one after the other and their responses are emitted in the order they were
+ * received. A failed call is emitted as a response with its error; an upstream error is passed on after the responses
+ * in flight.
+ * <p>
+ * Signals follow the Reactive Streams rules: emissions to the downstream are serial, and a non-positive request is
+ * answered with an error.
+ *
+ * @author custserv@kount.com
+ */
+public final class ScoringEngine {
+
+	/**
+	 * The largest in-flight limit.
+	 */
+	public static final int MAX_IN_FLIGHT = 1024;
+
+	/**
+	 * The subscription to the source of requests.
+	 */
+	public interface Upstream {
+
+		/**
+		 * @param n
+		 *            The number of requests more the engine can take.
+		 */
+		void request(long n);
+
+		/**
+		 * Stops the source.
+		 */
+		void cancel();
+	}
+
+	/**
+	 * The subscriber to the responses, signalled serially.
+	 */
+	public interface Downstream {
+
+		/**
+		 * @param response
+		 *            The response to a request, failed calls included.
+		 */
+		void onNext(ScoringResponse response);
+
+		/**
+		 * @param error
+		 *            The error that ended the stream.
+		 */
+		void onError(Throwable error);
+
+		/**
+		 * The stream ended after its last response.
+		 */
+		void onComplete();
+	}
+
+	private final AccessSdk sdk;
+
+	private final int maxInFlight;
+
+	private final boolean sessionOrder;
+
+	private final ArrayDeque<ScoringResponse> ready = new ArrayDeque<>();
+
+	/**
+	 * The requests waiting behind the one being scored, per session with one being scored.
+	 */
+	private final Map<String, ArrayDeque<ScoringRequest>> sessions = new HashMap<>();
+
+	private Upstream upstream;
+
+	private Downstream downstream;
+
+	/**
+	 * Requests received and not emitted yet.
+	 */
+	private int inFlight;
+
+	private long demand;
+
+	private boolean upstreamDone;
+
+	private Throwable upstreamError;
+
+	/**
+	 * An error for the downstream that doesn't wait for the responses in flight.
+	 */
+	private Throwable failure;
+
+	/**
+	 * Whether the downstream has its subscription, and so can be signalled.
+	 */
+	private boolean started;
+
+	private boolean emitting;
+
+	private boolean terminated;
+
+	private boolean cancelled;
+
+	/**
+	 * @param sdk
+	 *            The SDK that scores the requests.
+	 * @param maxInFlight
+	 *            The most requests received and not emitted yet, up to {@link #MAX_IN_FLIGHT}.
+	 * @param sessionOrder
+	 *            true to emit the responses of a session in the order its requests were received.
+	 * @throws AccessException
+	 *             Thrown if the in-flight limit is out of range.
+	 */
+	public ScoringEngine(AccessSdk sdk, int maxInFlight, boolean sessionOrder) throws AccessException {
+		if ((maxInFlight < 1) || (maxInFlight > MAX_IN_FLIGHT)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA,
+					"Invalid maxInFlight (" + maxInFlight + ").  Must be between 1 and " + MAX_IN_FLIGHT + ".");
+		}
+		this.sdk = sdk;
+		this.maxInFlight = maxInFlight;
+		this.sessionOrder = sessionOrder;
+	}
+
+	/**
+	 * Takes the source of requests, or cancels it if there already is one.
+	 *
+	 * @param subscription
+	 *            The subscription to the source.
+	 */
+	public void onSubscribe(Upstream subscription) {
+		synchronized (this) {
+			if ((upstream == null) && !cancelled) {
+				upstream = subscription;
+				subscription = null;
+			}
+		}
+		if (subscription != null) {
+			subscription.cancel();
+		} else {
+			upstream.request(maxInFlight);
+		}
+	}
+
+	/**
+	 * Scores a request from the source.
+	 *
+	 * @param request
+	 *            The request, not null.
+	 */
+	public void onNext(ScoringRequest request) {
+		synchronized (this) {
+			if (upstreamDone || cancelled) {
+				return;
+			}
+			inFlight++;
+			if (sessionOrder && (request.getSession() != null)) {
+				ArrayDeque<ScoringRequest> waiting = sessions.get(request.getSession());
+				if (waiting != null) {
+					waiting.add(request);
+					return;
+				}
+				sessions.put(request.getSession(), new ArrayDeque<ScoringRequest>());
+			}
+		}
+		score(request);
+	}
+
+	/**
+	 * Ends the stream with an error of the source, passed on after the responses in flight.
+	 *
+	 * @param error
+	 *            The error, not null.
+	 */
+	public void onError(Throwable error) {
+		synchronized (this) {
+			if (upstreamDone) {
+				return;
+			}
+			upstreamDone = true;
+			upstreamError = error;
+		}
+		drain();
+	}
+
+	/**
+	 * Ends the stream after the responses in flight.
+	 */
+	public void onComplete() {
+		synchronized (this) {
+			upstreamDone = true;
+		}
+		drain();
+	}
+
+	/**
+	 * Attaches the subscriber to the responses. It is signalled once {@link #start()} is called.
+	 *
+	 * @param subscriber
+	 *            The subscriber.
+	 * @return false if there already is one.
+	 */
+	public synchronized boolean subscribe(Downstream subscriber) {
+		if (downstream != null) {
+			return false;
+		}
+		downstream = subscriber;
+		return true;
+	}
+
+	/**
+	 * Starts signalling the downstream, once it has its subscription. A stream that already ended completes without
+	 * demand.
+	 */
+	public void start() {
+		synchronized (this) {
+			started = true;
+		}
+		drain();
+	}
+
+	/**
+	 * Adds downstream demand.
+	 *
+	 * @param n
+	 *            The number of responses more the downstream can take; a non-positive number ends the stream with an
+	 *            {@link IllegalArgumentException}.
+	 */
+	public void request(long n) {
+		synchronized (this) {
+			if (n <= 0) {
+				failure = new IllegalArgumentException("Non-positive request (" + n + ")");
+			} else {
+				demand = ((demand + n) < 0) ? Long.MAX_VALUE : (demand + n);
+			}
+		}
+		drain();
+	}
+
+	/**
+	 * Stops the stream: the upstream is cancelled and responses not emitted yet are dropped.
+	 */
+	public void cancel() {
+		Upstream subscription;
+		synchronized (this) {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			ready.clear();
+			subscription = upstream;
+		}
+		if (subscription != null) {
+			subscription.cancel();
+		}
+	}
+
+	/**
+	 * Emits what the downstream has demand for, and the end of the stream once everything is emitted. Only one thread
+	 * emits at a time; the others leave their changes to it.
+	 */
+	private void drain() {
+		synchronized (this) {
+			if (emitting) {
+				return;
+			}
+			emitting = true;
+		}
+		while (true) {
+			Downstream target;
+			ScoringResponse next = null;
+			Throwable error = null;
+			Upstream requestUpstream = null;
+			Upstream cancelUpstream = null;
+			synchronized (this) {
+				target = downstream;
+				if (!started || terminated || cancelled) {
+					emitting = false;
+					return;
+				}
+				if (failure != null) {
+					error = failure;
+					terminated = true;
+					cancelUpstream = upstreamDone ? null : upstream;
+				} else if ((demand > 0) && !ready.isEmpty()) {
+					next = ready.poll();
+					demand--;
+					inFlight--;
+					requestUpstream = upstreamDone ? null : upstream;
+				} else if (upstreamDone && (inFlight == 0)) {
+					error = upstreamError;
+					terminated = true;
+				} else {
+					emitting = false;
+					return;
+				}
+			}
+			if (next != null) {
+				target.onNext(next);
+				if (requestUpstream != null) {
+					requestUpstream.request(1);
+				}
+				continue;
+			}
+			if (cancelUpstream != null) {
+				cancelUpstream.cancel();
+			}
+			if (error != null) {
+				target.onError(error);
+			} else {
+				target.onComplete();
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Scores a request on the SDK's executor.
+	 */
+	private void score(final ScoringRequest request) {
+		try {
+			sdk.getExecutor().execute(new Runnable() {
+				@Override
+				public void run() {
+					ScoringResponse response;
+					try {
+						response = new ScoringResponse(request, sdk.getInfo(request.getQuery(), request.getSession(),
+								request.getUniq(), request.getCredentials()), null);
+					} catch (AccessException ae) {
+						response = new ScoringResponse(request, null, ae);
+					} catch (RuntimeException re) {
+						response = new ScoringResponse(request, null,
+								new AccessException(AccessErrorType.INTERNAL_ERROR, "Scoring failed", re));
+					}
+					scored(response);
+				}
+			});
+		} catch (RejectedExecutionException ree) {
+			scored(new ScoringResponse(request, null,
+					new AccessException(AccessErrorType.INTERNAL_ERROR, "The SDK executor is shut down.")));
+		}
+	}
+
+	/**
+	 * Queues a response for the downstream and starts the next request of its session, if any.
+	 */
+	private void scored(ScoringResponse response) {
+		ScoringRequest next = null;
+		synchronized (this) {
+			if (!cancelled) {
+				ready.add(response);
+			}
+			String session = response.getRequest().getSession();
+			if (sessionOrder && (session != null)) {
+				ArrayDeque<ScoringRequest> waiting = sessions.get(session);
+				next = waiting.poll();
+				if (next == null) {
+					sessions.remove(session);
+				}
+			}
+		}
+		if (next != null) {
+			score(next);
+		}
+		drain();
+	}
+}
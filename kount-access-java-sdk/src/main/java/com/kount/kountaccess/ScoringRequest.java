@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * One login to score in a stream: the arguments of
+ * {@link AccessSdk#getInfo(InfoQuery, String, String, HashedCredentials)}. The request is checked when it is scored;
+ * invalid values come back as the error of its {@link ScoringResponse}.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author custserv@kount.com
+ */
+public final class ScoringRequest {
+
+	private final InfoQuery query;
+
+	private final String session;
+
+	private final String uniq;
+
+	private final HashedCredentials credentials;
+
+	/**
+	 * @param query
+	 *            The requested data sets.
+	 * @param session
+	 *            The Session ID generated for the Data Collector service.
+	 * @param uniq
+	 *            customer identifier
+	 * @param credentials
+	 *            The hashed username and password of the user, may be null if neither velocity nor decision is
+	 *            requested.
+	 */
+	public ScoringRequest(InfoQuery query, String session, String uniq, HashedCredentials credentials) {
+		this.query = query;
+		this.session = session;
+		this.uniq = uniq;
+		this.credentials = credentials;
+	}
+
+	/**
+	 * @return The requested data sets.
+	 */
+	public InfoQuery getQuery() {
+		return query;
+	}
+
+	/**
+	 * @return The Session ID.
+	 */
+	public String getSession() {
+		return session;
+	}
+
+	/**
+	 * @return The customer identifier.
+	 */
+	public String getUniq() {
+		return uniq;
+	}
+
+	/**
+	 * @return The hashed credentials, or null.
+	 */
+	public HashedCredentials getCredentials() {
+		return credentials;
+	}
+
+	@Override
+	public String toString() {
+		return "ScoringRequest [session=" + session + ", query=" + query + "]";
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * The outcome of a {@link ScoringRequest}: its info response, or the error of its call.
+ *
+ * @author custserv@kount.com
+ */
+public final class ScoringResponse {
+
+	private final ScoringRequest request;
+
+	private final InfoResponse info;
+
+	private final AccessException error;
+
+	ScoringResponse(ScoringRequest request, InfoResponse info, AccessException error) {
+		this.request = request;
+		this.info = info;
+		this.error = error;
+	}
+
+	/**
+	 * @return The request scored.
+	 */
+	public ScoringRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * @return The info response, or null if the call failed.
+	 */
+	public InfoResponse getInfo() {
+		return info;
+	}
+
+	/**
+	 * @return The error of the call, or null if it succeeded.
+	 */
+	public AccessException getError() {
+		return error;
+	}
+
+	/**
+	 * @return true if the call succeeded.
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * A request kept by a {@link SlowRequestLog}: when it completed, its redacted parameters, its phase timings and the
+ * start of its response.
+ *
+ * @author custserv@kount.com
+ */
+public final class SlowRequest {
+
+	private final long sequence;
+
+	private final long timestamp;
+
+	private final String parameters;
+
+	private final RequestPhases phases;
+
+	private final String response;
+
+	SlowRequest(long sequence, long timestamp, String parameters, RequestPhases phases, String response) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.parameters = parameters;
+		this.phases = phases;
+		this.response = response;
+	}
+
+	long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return When the request completed, in milliseconds since the epoch.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return The endpoint called.
+	 */
+	public String getEndpoint() {
+		return phases.getEndpoint();
+	}
+
+	/**
+	 * @return The HTTP status of the response, or 0 if there was none.
+	 */
+	public int getStatusCode() {
+		return phases.getStatusCode();
+	}
+
+	/**
+	 * @return The error the request failed with, or null.
+	 */
+	public AccessErrorType getError() {
+		return phases.getError();
+	}
+
+	/**
+	 * @return The query or form parameters sent, with sessions and credential hashes masked, truncated; or null if
+	 *         they could not be read again.
+	 */
+	public String getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * @return The phase timings of the request.
+	 */
+	public RequestPhases getPhases() {
+		return phases;
+	}
+
+	/**
+	 * @return The response body, truncated, or null if none was read.
+	 */
+	public String getResponse() {
+		return response;
+	}
+
+	@Override
+	public String toString() {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		return format.format(new Date(timestamp)) + " " + phases + " parameters = " + parameters + ", response = "
+				+ response;
+	}
+}
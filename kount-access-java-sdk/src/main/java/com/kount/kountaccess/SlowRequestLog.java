@@ -0,0 +1,290 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * Keeps the last requests slower than a threshold, with what is needed to look into one of them: endpoint, redacted
+ * parameters, status, phase timings and the start of the response. Set with
+ * {@link AccessSdk#setSlowRequestLog(SlowRequestLog)}.
+ * <p>
+ * The requests are kept in a ring that requests write to without locking; reading it with {@link #getSlowRequests()}
+ * or {@link #dump()}, also from the SDK's MXBean, doesn't stop them. With a latency SLO set, a request slower than the
+ * SLO dumps the ring, to the {@link BreachListener} or else to the log, at most once per interval.
+ *
+ * <pre>
+ * SlowRequestLog slow = new SlowRequestLog(100, 500, TimeUnit.MILLISECONDS);
+ * slow.setSlo(2, TimeUnit.SECONDS, 1, TimeUnit.MINUTES);
+ * sdk.setSlowRequestLog(slow);
+ * </pre>
+ *
+ * @author custserv@kount.com
+ */
+public final class SlowRequestLog {
+
+	/**
+	 * Is told when a request is slower than the SLO.
+	 */
+	public interface BreachListener {
+
+		/**
+		 * @param breach
+		 *            The request slower than the SLO.
+		 * @param recent
+		 *            The slow requests kept, oldest first, the breach included.
+		 */
+		void sloBreached(SlowRequest breach, List<SlowRequest> recent);
+	}
+
+	/**
+	 * The default length parameters and responses are truncated to.
+	 */
+	public static final int DEFAULT_MAX_TEXT_LENGTH = 1024;
+
+	private static final Logger logger = LoggerFactory.getLogger(SlowRequestLog.class);
+
+	private static final Comparator<SlowRequest> OLDEST_FIRST = new Comparator<SlowRequest>() {
+		@Override
+		public int compare(SlowRequest r1, SlowRequest r2) {
+			return (r1.getSequence() < r2.getSequence()) ? -1 : ((r1.getSequence() == r2.getSequence()) ? 0 : 1);
+		}
+	};
+
+	private final AtomicReferenceArray<SlowRequest> slots;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final long thresholdNanos;
+
+	private final int maxTextLength;
+
+	private volatile long sloNanos;
+
+	private volatile long dumpIntervalNanos;
+
+	private volatile BreachListener breachListener;
+
+	/**
+	 * When the ring was last dumped for a breach, 0 if never
+	 */
+	private final AtomicLong lastDump = new AtomicLong();
+
+	/**
+	 * Truncates parameters and responses to {@link #DEFAULT_MAX_TEXT_LENGTH}.
+	 *
+	 * @param capacity
+	 *            The number of slow requests kept.
+	 * @param threshold
+	 *            The latency from which a request is kept.
+	 * @param unit
+	 *            The unit of the threshold.
+	 * @throws AccessException
+	 *             Thrown if the capacity or threshold is out of range.
+	 */
+	public SlowRequestLog(int capacity, long threshold, TimeUnit unit) throws AccessException {
+		this(capacity, threshold, unit, DEFAULT_MAX_TEXT_LENGTH);
+	}
+
+	/**
+	 * @param capacity
+	 *            The number of slow requests kept.
+	 * @param threshold
+	 *            The latency from which a request is kept.
+	 * @param unit
+	 *            The unit of the threshold.
+	 * @param maxTextLength
+	 *            The length parameters and responses are truncated to.
+	 * @throws AccessException
+	 *             Thrown if the capacity, threshold or length is out of range.
+	 */
+	public SlowRequestLog(int capacity, long threshold, TimeUnit unit, int maxTextLength) throws AccessException {
+		if ((capacity < 1) || (capacity > (1 << 16))) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid capacity (" + capacity + ").");
+		}
+		if ((threshold < 0) || (unit == null)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid threshold (" + threshold + ").");
+		}
+		if (maxTextLength < 0) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid text length (" + maxTextLength + ").");
+		}
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.thresholdNanos = unit.toNanos(threshold);
+		this.maxTextLength = maxTextLength;
+	}
+
+	/**
+	 * Dumps the slow requests when a request is slower than the SLO, at most once per interval.
+	 *
+	 * @param latency
+	 *            The SLO latency, at least the threshold, or 0 to stop dumping.
+	 * @param unit
+	 *            The unit of the latency.
+	 * @param interval
+	 *            The least time between two dumps.
+	 * @param intervalUnit
+	 *            The unit of the interval.
+	 * @throws AccessException
+	 *             Thrown if the latency is below the threshold or the interval is negative.
+	 */
+	public void setSlo(long latency, TimeUnit unit, long interval, TimeUnit intervalUnit) throws AccessException {
+		long slo = unit.toNanos(latency);
+		if ((latency != 0) && (slo < thresholdNanos)) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "SLO latency below the threshold.");
+		}
+		if (interval < 0) {
+			throw new AccessException(AccessErrorType.INVALID_DATA, "Invalid interval (" + interval + ").");
+		}
+		this.dumpIntervalNanos = intervalUnit.toNanos(interval);
+		this.sloNanos = slo;
+	}
+
+	/**
+	 * Sets who is told of SLO breaches, instead of the log.
+	 *
+	 * @param listener
+	 *            The listener, or null to log breaches at WARN.
+	 */
+	public void setBreachListener(BreachListener listener) {
+		this.breachListener = listener;
+	}
+
+	/**
+	 * @return The latency from which a request is kept, in nanoseconds.
+	 */
+	public long getThresholdNanos() {
+		return thresholdNanos;
+	}
+
+	/**
+	 * @return The number of slow requests recorded, including those no longer kept.
+	 */
+	public long getRecordedCount() {
+		return sequence.get();
+	}
+
+	/**
+	 * @return The slow requests kept, oldest first.
+	 */
+	public List<SlowRequest> getSlowRequests() {
+		List<SlowRequest> requests = new ArrayList<>(slots.length());
+		for (int i = 0; i < slots.length(); i++) {
+			SlowRequest request = slots.get(i);
+			if (request != null) {
+				requests.add(request);
+			}
+		}
+		Collections.sort(requests, OLDEST_FIRST);
+		return requests;
+	}
+
+	/**
+	 * @return The slow requests kept, oldest first, one per line.
+	 */
+	public String dump() {
+		return dump(getSlowRequests());
+	}
+
+	/**
+	 * Forgets the slow requests kept.
+	 */
+	public void clear() {
+		for (int i = 0; i < slots.length(); i++) {
+			slots.set(i, null);
+		}
+	}
+
+	/**
+	 * Keeps a request that took at least the threshold.
+	 */
+	void record(RequestPhases phases, HttpUriRequest request, HttpEntity sent, String response) {
+		long number = sequence.getAndIncrement();
+		SlowRequest slow = new SlowRequest(number, System.currentTimeMillis(), parametersOf(request, sent),
+				phases, truncate(response));
+		int slot = (int) (number % slots.length());
+		// a writer delayed between its sequence and its store must not replace a newer request
+		SlowRequest previous;
+		do {
+			previous = slots.get(slot);
+		} while (((previous == null) || (previous.getSequence() < number))
+				&& !slots.compareAndSet(slot, previous, slow));
+
+		long slo = sloNanos;
+		if ((slo > 0) && (phases.getTotal() >= slo)) {
+			breached(slow);
+		}
+	}
+
+	private void breached(SlowRequest breach) {
+		long now = System.nanoTime();
+		long last = lastDump.get();
+		if (((last != 0) && ((now - last) < dumpIntervalNanos)) || !lastDump.compareAndSet(last, now)) {
+			return;
+		}
+		List<SlowRequest> recent = getSlowRequests();
+		BreachListener listener = breachListener;
+		if (listener != null) {
+			listener.sloBreached(breach, recent);
+		} else if (logger.isWarnEnabled()) {
+			logger.warn("Latency SLO of {} ms breached by {}, slow requests:{}", TimeUnit.NANOSECONDS.toMillis(sloNanos),
+					breach.getPhases(), dump(recent));
+		}
+	}
+
+	private static String dump(List<SlowRequest> requests) {
+		StringBuilder dump = new StringBuilder();
+		for (SlowRequest request : requests) {
+			dump.append(System.lineSeparator()).append(request);
+		}
+		return dump.toString();
+	}
+
+	/**
+	 * @return The redacted parameters of the query, or of the body if it can be read again.
+	 */
+	private String parametersOf(HttpUriRequest request, HttpEntity sent) {
+		if (sent != null) {
+			if (!sent.isRepeatable() || (sent.getContentEncoding() != null)) {
+				return null;
+			}
+			byte[] start = new byte[maxTextLength];
+			int length = 0;
+			try (InputStream content = sent.getContent()) {
+				int read;
+				while ((length < start.length) && ((read = content.read(start, length, start.length - length)) > 0)) {
+					length += read;
+				}
+			} catch (IOException | RuntimeException e) {
+				return null;
+			}
+			return LogRedactor.parameters(new String(start, 0, length, StandardCharsets.UTF_8));
+		}
+		URI uri = (request != null) ? request.getURI() : null;
+		if ((uri == null) || (uri.getRawQuery() == null)) {
+			return null;
+		}
+		return truncate(LogRedactor.parameters(uri.getRawQuery()));
+	}
+
+	private String truncate(String text) {
+		return ((text != null) && (text.length() > maxTextLength)) ? text.substring(0, maxTextLength) : text;
+	}
+}
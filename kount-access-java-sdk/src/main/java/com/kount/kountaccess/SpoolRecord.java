@@ -0,0 +1,174 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * One write that can be kept in a {@link WriteSpool}: a device trust update by device or by session, or behavio data.
+ * It knows how to send itself and how to be encoded into and decoded from a spool segment.
+ * <p>
+ * Encoded as the kind byte, the number of fields as a short, then every field as an int length (-1 for null) and its
+ * UTF-8 bytes; behavio data ends with the timing bytes, also length-prefixed. The additional parameters follow the
+ * kind's own fields as name/value pairs.
+ *
+ * @author custserv@kount.com
+ */
+final class SpoolRecord {
+
+	static final byte DEVICE_TRUST = 1;
+
+	static final byte SESSION_TRUST = 2;
+
+	static final byte BEHAVIO_DATA = 3;
+
+	private final byte kind;
+
+	/**
+	 * deviceId, uniq and trustedState; session, uniq and trustedState; or host, environment, session and uniq.
+	 */
+	private final String[] fields;
+
+	private final Map<String, String> additionalParameters;
+
+	private final ByteBuffer timing;
+
+	private SpoolRecord(byte kind, String[] fields, Map<String, String> additionalParameters, ByteBuffer timing) {
+		this.kind = kind;
+		this.fields = fields;
+		this.additionalParameters = additionalParameters;
+		this.timing = timing;
+	}
+
+	static SpoolRecord deviceTrust(String deviceId, String uniq, String trustedState,
+			Map<String, String> additionalParameters) {
+		return new SpoolRecord(DEVICE_TRUST, new String[] { deviceId, uniq, trustedState }, additionalParameters,
+				null);
+	}
+
+	static SpoolRecord sessionTrust(String session, String uniq, String trustedState,
+			Map<String, String> additionalParameters) {
+		return new SpoolRecord(SESSION_TRUST, new String[] { session, uniq, trustedState }, additionalParameters,
+				null);
+	}
+
+	static SpoolRecord behavioData(String host, String environment, String session, String uniq, ByteBuffer timing,
+			Map<String, String> additionalParameters) {
+		return new SpoolRecord(BEHAVIO_DATA, new String[] { host, environment, session, uniq }, additionalParameters,
+				timing);
+	}
+
+	/**
+	 * Sends the write, bypassing any spool.
+	 */
+	void send(AccessSdk sdk, CloseableHttpClient client) throws AccessException {
+		switch (kind) {
+		case DEVICE_TRUST:
+			sdk.postDeviceTrust(client, fields[0], fields[1], fields[2], additionalParameters);
+			break;
+		case SESSION_TRUST:
+			sdk.postDeviceTrustBySession(client, fields[0], fields[1], fields[2], additionalParameters);
+			break;
+		default:
+			sdk.postBehavioData(client, fields[0], fields[1], fields[2], fields[3], timing, null,
+					additionalParameters);
+		}
+	}
+
+	/**
+	 * @return The key of a trust update, which a later update with the same key replaces, or null for behavio data.
+	 */
+	String trustKey() {
+		if (kind == BEHAVIO_DATA) {
+			return null;
+		}
+		return kind + "\n" + fields[0] + "\n" + fields[1];
+	}
+
+	/**
+	 * @return The encoded record.
+	 */
+	byte[] encode() {
+		int pairs = (additionalParameters != null) ? additionalParameters.size() : 0;
+		byte[][] values = new byte[fields.length + (2 * pairs)][];
+		int size = 3 + ((timing != null) ? 4 + timing.remaining() : 0);
+		int i = 0;
+		for (String field : fields) {
+			values[i++] = utf8(field);
+		}
+		if (pairs > 0) {
+			for (Map.Entry<String, String> parameter : additionalParameters.entrySet()) {
+				values[i++] = utf8(parameter.getKey());
+				values[i++] = utf8(parameter.getValue());
+			}
+		}
+		for (byte[] value : values) {
+			size += 4 + ((value != null) ? value.length : 0);
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(size);
+		out.put(kind).putShort((short) values.length);
+		for (byte[] value : values) {
+			if (value == null) {
+				out.putInt(-1);
+			} else {
+				out.putInt(value.length).put(value);
+			}
+		}
+		if (timing != null) {
+			out.putInt(timing.remaining()).put(timing.duplicate());
+		}
+		return out.array();
+	}
+
+	/**
+	 * Decodes a record.
+	 *
+	 * @param in
+	 *            The encoded record, from its position to its limit.
+	 * @return The record.
+	 */
+	static SpoolRecord decode(ByteBuffer in) {
+		byte kind = in.get();
+		int count = in.getShort() & 0xffff;
+		int fieldCount = (kind == BEHAVIO_DATA) ? 4 : 3;
+		String[] fields = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			fields[i] = readString(in);
+		}
+		Map<String, String> additional = null;
+		for (int i = fieldCount; i < count; i += 2) {
+			if (additional == null) {
+				additional = new LinkedHashMap<>();
+			}
+			additional.put(readString(in), readString(in));
+		}
+		ByteBuffer timing = null;
+		if (kind == BEHAVIO_DATA) {
+			byte[] bytes = new byte[in.getInt()];
+			in.get(bytes);
+			timing = ByteBuffer.wrap(bytes);
+		}
+		return new SpoolRecord(kind, fields, additional, timing);
+	}
+
+	private static byte[] utf8(String value) {
+		return (value != null) ? value.getBytes(StandardCharsets.UTF_8) : null;
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
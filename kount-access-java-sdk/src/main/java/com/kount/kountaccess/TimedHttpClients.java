@@ -0,0 +1,156 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Set;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.apache.http.ssl.SSLContexts;
+
+/**
+ * Builds the SDK's HttpClients, which mark the phases of every request on its {@link RequestTimer}: the wait for a
+ * pooled connection, DNS, TCP connect, TLS handshake and time to the response headers. They are otherwise configured
+ * like {@link HttpClients#createDefault()}.
+ *
+ * @author custserv@kount.com
+ */
+final class TimedHttpClients {
+
+	private TimedHttpClients() {
+	}
+
+	/**
+	 * @param pools
+	 *            The set the client's pool stays in until the client is closed, or null.
+	 * @param maxConnections
+	 *            The connections the client keeps, or 0 for the HttpClient defaults.
+	 * @return The client.
+	 */
+	static CloseableHttpClient create(Set<PoolingHttpClientConnectionManager> pools, int maxConnections) {
+		Registry<ConnectionSocketFactory> sockets = RegistryBuilder.<ConnectionSocketFactory> create()
+				.register("http", new TimedPlainSockets()).register("https", new TimedSslSockets()).build();
+		PoolingHttpClientConnectionManager connections = new TimedConnectionPool(sockets, pools);
+		if (maxConnections > 0) {
+			connections.setMaxTotal(maxConnections);
+			connections.setDefaultMaxPerRoute(maxConnections);
+		}
+		if (pools != null) {
+			pools.add(connections);
+		}
+		return HttpClients.custom().setConnectionManager(connections).setRequestExecutor(new TimedRequestExecutor())
+				.build();
+	}
+
+	/**
+	 * Marks the start of opening a new connection, and leaves its set of open pools when the client is closed.
+	 */
+	private static final class TimedConnectionPool extends PoolingHttpClientConnectionManager {
+
+		private final Set<PoolingHttpClientConnectionManager> pools;
+
+		TimedConnectionPool(Registry<ConnectionSocketFactory> sockets, Set<PoolingHttpClientConnectionManager> pools) {
+			super(sockets);
+			this.pools = pools;
+		}
+
+		@Override
+		public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout,
+				HttpContext context) throws IOException {
+			RequestTimer.connecting();
+			super.connect(managedConn, route, connectTimeout, context);
+		}
+
+		@Override
+		public void shutdown() {
+			if (pools != null) {
+				pools.remove(this);
+			}
+			super.shutdown();
+		}
+	}
+
+	/**
+	 * Times the TCP connect of http connections.
+	 */
+	private static final class TimedPlainSockets extends PlainConnectionSocketFactory {
+
+		@Override
+		public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+				InetSocketAddress localAddress, HttpContext context) throws IOException {
+			RequestTimer.socketConnecting();
+			Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+			RequestTimer.socketConnected();
+			return connected;
+		}
+	}
+
+	/**
+	 * Times the TCP connect and the TLS handshake of https connections.
+	 */
+	private static final class TimedSslSockets extends SSLConnectionSocketFactory {
+
+		TimedSslSockets() {
+			super(SSLContexts.createDefault(), getDefaultHostnameVerifier());
+		}
+
+		@Override
+		public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+				InetSocketAddress localAddress, HttpContext context) throws IOException {
+			RequestTimer.socketConnecting();
+			Socket connected = super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+			RequestTimer.socketConnected();
+			return connected;
+		}
+
+		@Override
+		public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+				throws IOException {
+			long start = System.nanoTime();
+			try {
+				return super.createLayeredSocket(socket, target, port, context);
+			} finally {
+				RequestTimer.handshake(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Marks sending the request and receiving the response headers.
+	 */
+	private static final class TimedRequestExecutor extends HttpRequestExecutor {
+
+		@Override
+		protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+				throws IOException, HttpException {
+			RequestTimer.sending();
+			return super.doSendRequest(request, conn, context);
+		}
+
+		@Override
+		protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+				throws HttpException, IOException {
+			HttpResponse response = super.doReceiveResponse(request, conn, context);
+			RequestTimer.headersReceived();
+			return response;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * A request the SDK makes, as seen by a {@link TracingListener}.
+ *
+ * @author custserv@kount.com
+ */
+public interface TracedRequest {
+
+	/**
+	 * @return The endpoint called, as named for the {@link MetricsRecorder}.
+	 */
+	String getEndpoint();
+
+	/**
+	 * @return The host the request is sent to, or null if unknown.
+	 */
+	String getHost();
+
+	/**
+	 * @return 1 for the first send of a request, higher for the replays of a write kept in the {@link WriteSpool}.
+	 */
+	int getAttempt();
+
+	/**
+	 * @return The size of the request body, 0 for gets or when unknown.
+	 */
+	long getBytesSent();
+
+	/**
+	 * @return The size of the response body once it is read, 0 before or when unknown.
+	 */
+	long getBytesReceived();
+
+	/**
+	 * @return The HTTP status of the response once it arrived, 0 before or if there was none.
+	 */
+	int getStatusCode();
+
+	/**
+	 * Sets a header of the outgoing request, e.g. to propagate the trace context. Only effective in
+	 * {@link TracingListener#requestStarted(TracedRequest)}.
+	 *
+	 * @param name
+	 *            The header name.
+	 * @param value
+	 *            The header value.
+	 */
+	void setHeader(String name, String value);
+}
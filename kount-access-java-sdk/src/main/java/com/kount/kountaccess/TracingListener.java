@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+/**
+ * Traces the requests the SDK makes, set with {@link AccessSdk#setTracingListener(TracingListener)}. A request is
+ * started right before it is sent, so a listener can start a span and inject its context into the request headers, and
+ * then either ended or failed with its phase timings. The kount-access-java-opentelemetry module has an OpenTelemetry
+ * implementation.
+ * <p>
+ * The callbacks run on the calling thread, so implementations must be thread-safe and should not block. The default,
+ * {@link #NOOP}, costs no allocation.
+ *
+ * @author custserv@kount.com
+ */
+public interface TracingListener {
+
+	/**
+	 * Traces nothing.
+	 */
+	TracingListener NOOP = new TracingListener() {
+
+		@Override
+		public Object requestStarted(TracedRequest request) {
+			return null;
+		}
+
+		@Override
+		public void requestEnded(Object span, TracedRequest request, RequestPhases phases) {
+			// nothing traced
+		}
+
+		@Override
+		public void requestFailed(Object span, TracedRequest request, RequestPhases phases, AccessException error) {
+			// nothing traced
+		}
+	};
+
+	/**
+	 * Called right before a request is sent.
+	 *
+	 * @param request
+	 *            The request, whose headers can be set.
+	 * @return The span or other state of the request, handed back to {@link #requestEnded} or
+	 *         {@link #requestFailed}; may be null.
+	 */
+	Object requestStarted(TracedRequest request);
+
+	/**
+	 * Called when a request succeeded.
+	 *
+	 * @param span
+	 *            The value returned by {@link #requestStarted(TracedRequest)}.
+	 * @param request
+	 *            The request.
+	 * @param phases
+	 *            The phase timings of the request.
+	 */
+	void requestEnded(Object span, TracedRequest request, RequestPhases phases);
+
+	/**
+	 * Called when a request that was sent failed.
+	 *
+	 * @param span
+	 *            The value returned by {@link #requestStarted(TracedRequest)}.
+	 * @param request
+	 *            The request.
+	 * @param phases
+	 *            The phase timings of the request.
+	 * @param error
+	 *            The error the request failed with.
+	 */
+	void requestFailed(Object span, TracedRequest request, RequestPhases phases, AccessException error);
+}
@@ -0,0 +1,749 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+/**
+ * A write-ahead spool that keeps device trust and behavio data writes on disk while Kount is unreachable and replays
+ * them in order once it answers again.
+ * <p>
+ * Writes go straight to the service while the circuit is closed and nothing is spooled. A write that fails with a
+ * network error (no response, a 5xx, 408 or 429) opens the circuit and is journaled; while the circuit is open or
+ * older writes are still spooled, new writes are journaled without being tried, so they are replayed after the older
+ * ones. A background thread replays the journal in order, retrying the oldest write after the retry interval while the
+ * service is down, and closes the circuit once the journal is empty. A replayed write the service rejects (4xx) or that
+ * can't be decoded is logged and skipped. A trust update replaced by a later spooled update for the same device (or
+ * session) and uniq is skipped without being sent.
+ * <p>
+ * The journal is a series of append-only segment files named <code>spool-&lt;n&gt;.log</code>, written with plain
+ * file I/O. Every record has its length, a CRC32 of its content and a replayed flag; after a crash, a record
+ * with a bad CRC ends its segment. Segments are rotated when full and closed and deleted once all their records are
+ * replayed, so their disk space is given back at once, and new writes fail with their network error when the segments
+ * would exceed the disk limit. Every record is forced to disk before its write returns, unless
+ * {@link #setForceEachWrite(boolean)} turns that off, in which case records are forced when their segment is rotated
+ * and when the spool is closed. The replayed flag isn't forced, so a write replayed just before a crash may be sent
+ * again.
+ * <p>
+ * Opened with {@link AccessSdk#openWriteSpool(File, int, long)}.
+ *
+ * @author custserv@kount.com
+ */
+public final class WriteSpool implements Closeable {
+
+	/**
+	 * The smallest segment size.
+	 */
+	static final int MIN_SEGMENT_BYTES = 4096;
+
+	/**
+	 * Record length, CRC32 and replayed flag.
+	 */
+	private static final int HEADER_BYTES = 9;
+
+	private static final int CRC_OFFSET = 4;
+
+	private static final int STATE_OFFSET = 8;
+
+	private static final byte PENDING = 0;
+
+	private static final byte REPLAYED = 1;
+
+	private static final long DEFAULT_RETRY_MILLIS = 5000;
+
+	private static final Pattern SEGMENT_NAME = Pattern.compile("spool-(\\d{16})\\.log");
+
+	private static final Logger logger = LoggerFactory.getLogger(WriteSpool.class);
+
+	private final AccessSdk sdk;
+
+	private final File directory;
+
+	private final int segmentBytes;
+
+	private final long maxBytes;
+
+	private final CloseableHttpClient client;
+
+	/**
+	 * The segments with records, oldest first; new records are appended to the last one.
+	 */
+	private final Deque<Segment> segments = new ArrayDeque<>();
+
+	/**
+	 * The position of the latest spooled update per trust key.
+	 */
+	private final Map<String, Long> latestTrust = new HashMap<>();
+
+	private final CRC32 crc = new CRC32();
+
+	private final Thread replayer;
+
+	private long nextSegmentIndex;
+
+	private int pendingRecords;
+
+	private boolean circuitOpen;
+
+	private long retryAt;
+
+	private long retryNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_RETRY_MILLIS);
+
+	private boolean forceEachWrite = true;
+
+	private volatile boolean closed;
+
+	private final AtomicLong spooled = new AtomicLong();
+
+	private final AtomicLong replayed = new AtomicLong();
+
+	private final AtomicLong skipped = new AtomicLong();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	WriteSpool(AccessSdk sdk, File directory, int segmentBytes, long maxBytes) throws AccessException {
+		this.sdk = sdk;
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.maxBytes = maxBytes;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Unable to create spool directory ("
+					+ directory + ")");
+		}
+		try {
+			recover();
+		} catch (IOException ioe) {
+			throw new AccessException(AccessErrorType.INTERNAL_ERROR, "Unable to read spool directory ("
+					+ directory + ")", ioe);
+		}
+		this.client = sdk.getPooledHttpClient(1);
+		this.replayer = new AccessThreadFactory("spool").newThread(new Replayer());
+		this.replayer.start();
+	}
+
+	/**
+	 * Sets how long the replay waits before retrying while the service is unreachable. 5 seconds by default.
+	 *
+	 * @param interval
+	 *            The retry interval.
+	 * @param unit
+	 *            The unit of the interval.
+	 */
+	public synchronized void setRetryInterval(long interval, TimeUnit unit) {
+		this.retryNanos = unit.toNanos(interval);
+		this.retryAt = Math.min(retryAt, System.nanoTime() + retryNanos);
+		notifyAll();
+	}
+
+	/**
+	 * Sets whether every spooled record is forced to disk before the write returns. On by default; turned off, records
+	 * are only forced when their segment is rotated and when the spool is closed, so the writes spooled since then can
+	 * be lost if the machine crashes, in exchange for not waiting on the disk.
+	 *
+	 * @param force
+	 *            true to force every write to disk.
+	 */
+	public synchronized void setForceEachWrite(boolean force) {
+		this.forceEachWrite = force;
+	}
+
+	/**
+	 * @return The number of spooled writes not replayed yet.
+	 */
+	public synchronized int getPendingCount() {
+		return pendingRecords;
+	}
+
+	/**
+	 * @return true while writes are journaled without being tried, because the service was unreachable.
+	 */
+	public synchronized boolean isCircuitOpen() {
+		return circuitOpen;
+	}
+
+	/**
+	 * @return The disk space taken by the segment files.
+	 */
+	public synchronized long getDiskBytes() {
+		long bytes = 0;
+		for (Segment segment : segments) {
+			bytes += segment.size;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return The number of writes journaled.
+	 */
+	public long getSpooledCount() {
+		return spooled.get();
+	}
+
+	/**
+	 * @return The number of spooled writes sent by the replay.
+	 */
+	public long getReplayedCount() {
+		return replayed.get();
+	}
+
+	/**
+	 * @return The number of spooled writes skipped by the replay, because a later trust update replaced them or the
+	 *         service rejected them.
+	 */
+	public long getSkippedCount() {
+		return skipped.get();
+	}
+
+	/**
+	 * @return The number of writes that failed because the spool was full.
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Stops the replay, flushes the segments to disk and detaches the spool from the SDK. Writes not replayed yet stay
+	 * on disk and are replayed by the next spool opened on the directory.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notifyAll();
+		}
+		sdk.detachWriteSpool(this);
+		boolean interrupted = false;
+		while (replayer.isAlive()) {
+			try {
+				replayer.join();
+			} catch (InterruptedException ie) {
+				// the replay stops after its current write, the interrupt is restored below
+				interrupted = true;
+			}
+		}
+		synchronized (this) {
+			for (Segment segment : segments) {
+				try {
+					segment.force();
+				} catch (IOException ioe) {
+					logger.warn("Unable to flush spool segment {}", segment.file, ioe);
+				}
+				segment.close();
+			}
+		}
+		try {
+			client.close();
+		} catch (IOException ioe) {
+			logger.warn("Unable to release spool connections", ioe);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Sends a write, or journals it if the service is unreachable or older writes are still spooled.
+	 *
+	 * @throws AccessException
+	 *             Thrown if the write failed with anything but a network error, or couldn't be journaled.
+	 */
+	void write(SpoolRecord record, CloseableHttpClient sendClient) throws AccessException {
+		boolean direct;
+		synchronized (this) {
+			direct = closed || (!circuitOpen && (pendingRecords == 0));
+		}
+		if (direct) {
+			try {
+				record.send(sdk, sendClient);
+				return;
+			} catch (AccessException ae) {
+				if (closed || !isRetryable(ae)) {
+					throw ae;
+				}
+				synchronized (this) {
+					// the circuit is only opened with a record to replay, which closes it again
+					if (append(record)) {
+						openCircuit();
+						return;
+					}
+				}
+				AccessEvents.queueOverflow("write-spool", "REJECT", getPendingCount());
+				throw ae;
+			}
+		}
+		if (!append(record)) {
+			AccessEvents.queueOverflow("write-spool", "REJECT", getPendingCount());
+			throw new AccessException(AccessErrorType.NETWORK_ERROR,
+					"Kount Access is unreachable and the write spool is full.");
+		}
+	}
+
+	/**
+	 * @return true if the error may go away by retrying later.
+	 */
+	private static boolean isRetryable(AccessException ae) {
+		if (ae.getAccessErrorType() != AccessErrorType.NETWORK_ERROR) {
+			return false;
+		}
+		int status = ae.getStatusCode();
+		return (status == 0) || (status >= 500) || (status == 408) || (status == 429);
+	}
+
+	private void openCircuit() {
+		if (!circuitOpen) {
+			logger.warn("Kount Access is unreachable, spooling writes in {}", directory);
+		}
+		backOff();
+	}
+
+	/**
+	 * Holds new writes and the replay until the retry interval has passed.
+	 */
+	private void backOff() {
+		circuitOpen = true;
+		retryAt = System.nanoTime() + retryNanos;
+	}
+
+	/**
+	 * Journals a record.
+	 *
+	 * @return false if it doesn't fit in the disk limit or the spool is closed.
+	 */
+	private synchronized boolean append(SpoolRecord record) {
+		byte[] content = record.encode();
+		int size = HEADER_BYTES + content.length;
+		if (closed || (size > segmentBytes)) {
+			rejected.incrementAndGet();
+			return false;
+		}
+		Segment segment = segments.peekLast();
+		try {
+			if ((segment == null) || (segment.writePosition > (segmentBytes - size))) {
+				if ((segment != null) && (segment.pendingRecords == 0)) {
+					segments.removeLast();
+					discard(segment);
+				}
+				if ((getDiskBytes() + segmentBytes) > maxBytes) {
+					rejected.incrementAndGet();
+					return false;
+				}
+				segment = rotate();
+			}
+		} catch (IOException ioe) {
+			logger.warn("Unable to create a spool segment in {}", directory, ioe);
+			rejected.incrementAndGet();
+			return false;
+		}
+
+		int position = segment.writePosition;
+		crc.reset();
+		crc.update(content, 0, content.length);
+		byte[] bytes = new byte[size];
+		ByteBuffer.wrap(bytes).putInt(content.length).putInt((int) crc.getValue()).put(PENDING).put(content);
+		try {
+			// a torn record fails its CRC and ends the segment when it is recovered
+			segment.write(position, bytes);
+			if (forceEachWrite) {
+				segment.force();
+			}
+		} catch (IOException ioe) {
+			logger.warn("Unable to write to spool segment {}", segment.file, ioe);
+			rejected.incrementAndGet();
+			return false;
+		}
+		segment.writePosition += size;
+		segment.pendingRecords++;
+		pendingRecords++;
+		String trustKey = record.trustKey();
+		if (trustKey != null) {
+			latestTrust.put(trustKey, segment.position(position));
+		}
+		spooled.incrementAndGet();
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Flushes the last segment and starts a new one.
+	 */
+	private Segment rotate() throws IOException {
+		Segment last = segments.peekLast();
+		if (last != null) {
+			last.force();
+		}
+		File file = new File(directory, String.format("spool-%016d.log", nextSegmentIndex));
+		Segment segment = new Segment(nextSegmentIndex++, file, segmentBytes);
+		segments.addLast(segment);
+		return segment;
+	}
+
+	/**
+	 * Opens the segments left by an earlier run, finds their pending records and deletes the fully replayed ones.
+	 */
+	private void recover() throws IOException {
+		File[] files = directory.listFiles();
+		List<File> found = new ArrayList<>();
+		if (files != null) {
+			for (File file : files) {
+				if (SEGMENT_NAME.matcher(file.getName()).matches()) {
+					found.add(file);
+				}
+			}
+		}
+		Collections.sort(found);
+		for (File file : found) {
+			Matcher name = SEGMENT_NAME.matcher(file.getName());
+			name.matches();
+			long index = Long.parseLong(name.group(1));
+			nextSegmentIndex = Math.max(nextSegmentIndex, index + 1);
+			if (file.length() < HEADER_BYTES) {
+				delete(file);
+				continue;
+			}
+			Segment segment = new Segment(index, file, (int) Math.min(file.length(), Integer.MAX_VALUE));
+			try {
+				scan(segment);
+			} catch (IOException ioe) {
+				segment.close();
+				throw ioe;
+			}
+			if (segment.pendingRecords == 0) {
+				discard(segment);
+			} else {
+				segments.addLast(segment);
+				pendingRecords += segment.pendingRecords;
+			}
+		}
+		// new records go to a new segment, after everything recovered
+		if (pendingRecords > 0) {
+			logger.info("Replaying {} spooled writes from {}", pendingRecords, directory);
+		}
+	}
+
+	/**
+	 * Finds the valid records of a recovered segment; a torn or corrupt record ends it.
+	 */
+	private void scan(Segment segment) throws IOException {
+		int size = segment.size;
+		int position = 0;
+		while ((position + HEADER_BYTES) <= size) {
+			ByteBuffer header = segment.read(position, HEADER_BYTES);
+			int length = header.getInt(0);
+			if ((length <= 0) || ((position + HEADER_BYTES + length) > size)) {
+				break;
+			}
+			byte[] content = segment.read(position + HEADER_BYTES, length).array();
+			crc.reset();
+			crc.update(content, 0, length);
+			if ((int) crc.getValue() != header.getInt(CRC_OFFSET)) {
+				logger.warn("Corrupt spool record in {} at {}, ignoring the rest", segment.file, position);
+				break;
+			}
+			if (header.get(STATE_OFFSET) == PENDING) {
+				segment.pendingRecords++;
+				try {
+					String trustKey = SpoolRecord.decode(ByteBuffer.wrap(content)).trustKey();
+					if (trustKey != null) {
+						latestTrust.put(trustKey, segment.position(position));
+					}
+				} catch (RuntimeException re) {
+					// replayed and skipped like any undecodable record
+				}
+			}
+			position += HEADER_BYTES + length;
+		}
+		// the file may be larger than this spool's segments, if it was written with a larger segment size
+		segment.writePosition = Integer.MAX_VALUE;
+		segment.limit = position;
+	}
+
+	private static void delete(File file) {
+		if (!file.delete()) {
+			logger.warn("Unable to delete spool segment {}", file);
+		}
+	}
+
+	/**
+	 * Closes and deletes a segment without pending records.
+	 */
+	private static void discard(Segment segment) {
+		segment.close();
+		delete(segment.file);
+	}
+
+	/**
+	 * Finds the oldest pending record, waiting until there is one and the circuit allows a try.
+	 *
+	 * @return The record's position, or -1 once the spool is closed.
+	 */
+	private synchronized long awaitNext() throws InterruptedException, IOException {
+		while (!closed) {
+			if (pendingRecords > 0) {
+				long wait = circuitOpen ? (retryAt - System.nanoTime()) : 0;
+				if (wait <= 0) {
+					return nextPending();
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, wait);
+			} else {
+				wait();
+			}
+		}
+		return -1;
+	}
+
+	private long nextPending() throws IOException {
+		for (Segment segment : segments) {
+			int limit = Math.min(segment.limit, segment.writePosition);
+			while (segment.readPosition < limit) {
+				int position = segment.readPosition;
+				ByteBuffer header = segment.read(position, HEADER_BYTES);
+				if (header.get(STATE_OFFSET) == PENDING) {
+					return segment.position(position);
+				}
+				segment.readPosition += HEADER_BYTES + header.getInt(0);
+			}
+		}
+		// not reached while pendingRecords is right
+		pendingRecords = 0;
+		circuitOpen = false;
+		return -1;
+	}
+
+	private synchronized SpoolRecord read(long position) throws IOException {
+		Segment segment = find(position);
+		int offset = (int) position;
+		int length = segment.read(offset, 4).getInt(0);
+		return SpoolRecord.decode(ByteBuffer.wrap(segment.read(offset + HEADER_BYTES, length).array()));
+	}
+
+	/**
+	 * @return true if a later spooled trust update replaces the one at the position.
+	 */
+	private synchronized boolean isReplaced(long position, SpoolRecord record) {
+		String trustKey = record.trustKey();
+		if (trustKey == null) {
+			return false;
+		}
+		Long latest = latestTrust.get(trustKey);
+		return (latest != null) && (latest.longValue() != position);
+	}
+
+	/**
+	 * Marks a record replayed, deletes its segment once it has no pending records, and closes the circuit once the
+	 * journal is empty.
+	 */
+	private synchronized void markReplayed(long position, SpoolRecord record) throws IOException {
+		Segment segment = find(position);
+		int offset = (int) position;
+		int length = segment.read(offset, 4).getInt(0);
+		segment.write(offset + STATE_OFFSET, new byte[] { REPLAYED });
+		segment.readPosition = offset + HEADER_BYTES + length;
+		segment.pendingRecords--;
+		pendingRecords--;
+		String trustKey = (record != null) ? record.trustKey() : null;
+		if ((trustKey != null) && Long.valueOf(position).equals(latestTrust.get(trustKey))) {
+			latestTrust.remove(trustKey);
+		}
+		// the last segment is kept while records can still be appended to it
+		if ((segment.pendingRecords == 0)
+				&& ((segment != segments.peekLast()) || (segment.writePosition >= segmentBytes))) {
+			segments.remove(segment);
+			discard(segment);
+		}
+		if (pendingRecords == 0) {
+			circuitOpen = false;
+		} else {
+			retryAt = System.nanoTime();
+		}
+	}
+
+	private Segment find(long position) {
+		long index = position >>> 32;
+		for (Segment segment : segments) {
+			if (segment.index == index) {
+				return segment;
+			}
+		}
+		throw new IllegalStateException("No spool segment " + index);
+	}
+
+	/**
+	 * Replays the journal in order.
+	 */
+	private final class Replayer implements Runnable {
+
+		/**
+		 * The position last replayed, and how often it was sent including the first try
+		 */
+		private long lastPosition = -1;
+
+		private int attempt;
+
+		@Override
+		public void run() {
+			while (true) {
+				try {
+					long position = awaitNext();
+					if (position < 0) {
+						if (closed) {
+							return;
+						}
+						continue;
+					}
+					replay(position);
+				} catch (InterruptedException ie) {
+					// only close() stops the replay
+				} catch (IOException ioe) {
+					// the record is tried again after the retry interval
+					logger.warn("Unable to access the spool segments in {}", directory, ioe);
+					synchronized (WriteSpool.this) {
+						backOff();
+					}
+				}
+			}
+		}
+
+		private void replay(long position) throws IOException {
+			SpoolRecord record;
+			try {
+				record = read(position);
+			} catch (RuntimeException re) {
+				logger.warn("Skipping undecodable spool record", re);
+				skipped.incrementAndGet();
+				markReplayed(position, null);
+				return;
+			}
+			if (isReplaced(position, record)) {
+				skipped.incrementAndGet();
+				markReplayed(position, record);
+				return;
+			}
+			attempt = (position == lastPosition) ? (attempt + 1) : 2;
+			lastPosition = position;
+			try {
+				RequestTimer.nextAttempt(attempt);
+				record.send(sdk, client);
+				replayed.incrementAndGet();
+				markReplayed(position, record);
+			} catch (AccessException ae) {
+				if (isRetryable(ae)) {
+					synchronized (WriteSpool.this) {
+						openCircuit();
+					}
+				} else {
+					logger.warn("Skipping spooled write rejected by Kount Access: {}", ae.getMessage());
+					skipped.incrementAndGet();
+					markReplayed(position, record);
+				}
+			}
+		}
+	}
+
+	/**
+	 * One segment file, only read and written under the spool's lock. It uses a RandomAccessFile rather than a
+	 * FileChannel, which an interrupted writer would close.
+	 */
+	private static final class Segment {
+
+		final long index;
+
+		final File file;
+
+		final RandomAccessFile raf;
+
+		final int size;
+
+		/**
+		 * Where the next record is appended; {@link Integer#MAX_VALUE} for recovered segments, which are never appended
+		 * to.
+		 */
+		int writePosition;
+
+		/**
+		 * The end of the valid records of a recovered segment.
+		 */
+		int limit = Integer.MAX_VALUE;
+
+		/**
+		 * No pending record is before this position.
+		 */
+		int readPosition;
+
+		int pendingRecords;
+
+		Segment(long index, File file, int size) throws IOException {
+			this.index = index;
+			this.file = file;
+			this.size = size;
+			this.raf = new RandomAccessFile(file, "rw");
+			try {
+				if (raf.length() < size) {
+					raf.setLength(size);
+				}
+			} catch (IOException ioe) {
+				raf.close();
+				throw ioe;
+			}
+		}
+
+		/**
+		 * @return The bytes at an offset.
+		 */
+		ByteBuffer read(int offset, int length) throws IOException {
+			byte[] bytes = new byte[length];
+			raf.seek(offset);
+			raf.readFully(bytes);
+			return ByteBuffer.wrap(bytes);
+		}
+
+		void write(int offset, byte[] bytes) throws IOException {
+			raf.seek(offset);
+			raf.write(bytes);
+		}
+
+		void force() throws IOException {
+			raf.getFD().sync();
+		}
+
+		/**
+		 * @return The position of an offset in this segment, unique across segments.
+		 */
+		long position(int offset) {
+			return (index << 32) | offset;
+		}
+
+		void close() {
+			try {
+				raf.close();
+			} catch (IOException ioe) {
+				logger.warn("Unable to close spool segment {}", file, ioe);
+			}
+		}
+	}
+}
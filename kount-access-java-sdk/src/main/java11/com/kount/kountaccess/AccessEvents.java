@@ -0,0 +1,208 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emits the SDK's Java Flight Recorder events:
+ * <ul>
+ * <li><code>com.kount.kountaccess.AccessRequest</code>, a request slower than its threshold, 100 ms by default, with
+ * endpoint, status, error and bytes</li>
+ * <li><code>com.kount.kountaccess.AccessRetry</code>, a replay of a spooled write</li>
+ * <li><code>com.kount.kountaccess.AccessCacheHit</code> (disabled by default) and
+ * <code>com.kount.kountaccess.AccessCacheMiss</code>, lookups of the behavio endpoint cache</li>
+ * <li><code>com.kount.kountaccess.AccessQueueOverflow</code>, a submission to a full behavio data pipeline or write
+ * spool</li>
+ * </ul>
+ * The thresholds and what is enabled are set like for the JDK's events, in the recording's settings.
+ * <p>
+ * Only on Java 11 and later, from the multi-release JAR.
+ *
+ * @author custserv@kount.com
+ */
+final class AccessEvents {
+
+	private static final String CATEGORY = "Kount Access";
+
+	/**
+	 * Check whether each event is recorded without allocating an event per call.
+	 */
+	private static final RequestEvent REQUEST = new RequestEvent();
+
+	private static final RetryEvent RETRY = new RetryEvent();
+
+	private static final CacheHitEvent CACHE_HIT = new CacheHitEvent();
+
+	private static final CacheMissEvent CACHE_MISS = new CacheMissEvent();
+
+	private static final QueueOverflowEvent QUEUE_OVERFLOW = new QueueOverflowEvent();
+
+	private AccessEvents() {
+	}
+
+	@Name("com.kount.kountaccess.AccessRequest")
+	@Label("Kount Access Request")
+	@Description("A request to Kount Access that took longer than the threshold")
+	@Category(CATEGORY)
+	@Threshold("100 ms")
+	@StackTrace(false)
+	static final class RequestEvent extends Event {
+
+		@Label("Endpoint")
+		String endpoint;
+
+		@Label("Status")
+		int status;
+
+		@Label("Error")
+		String error;
+
+		@Label("Bytes Sent")
+		@DataAmount
+		long bytesSent;
+
+		@Label("Bytes Received")
+		@DataAmount
+		long bytesReceived;
+	}
+
+	@Name("com.kount.kountaccess.AccessRetry")
+	@Label("Kount Access Retry")
+	@Description("A write sent again from the write spool")
+	@Category(CATEGORY)
+	static final class RetryEvent extends Event {
+
+		@Label("Endpoint")
+		String endpoint;
+
+		@Label("Attempt")
+		int attempt;
+	}
+
+	@Name("com.kount.kountaccess.AccessCacheHit")
+	@Label("Kount Access Cache Hit")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static final class CacheHitEvent extends Event {
+
+		@Label("Cache")
+		String cache;
+
+		@Label("Key")
+		String key;
+	}
+
+	@Name("com.kount.kountaccess.AccessCacheMiss")
+	@Label("Kount Access Cache Miss")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class CacheMissEvent extends Event {
+
+		@Label("Cache")
+		String cache;
+
+		@Label("Key")
+		String key;
+	}
+
+	@Name("com.kount.kountaccess.AccessQueueOverflow")
+	@Label("Kount Access Queue Overflow")
+	@Description("A submission to a full queue")
+	@Category(CATEGORY)
+	static final class QueueOverflowEvent extends Event {
+
+		@Label("Queue")
+		String queue;
+
+		@Label("Policy")
+		String policy;
+
+		@Label("Depth")
+		long depth;
+	}
+
+	static Object requestStarted() {
+		if (!REQUEST.isEnabled()) {
+			return null;
+		}
+		RequestEvent event = new RequestEvent();
+		event.begin();
+		return event;
+	}
+
+	static void requestEnded(Object started, String endpoint, int status, AccessErrorType error, long bytesSent,
+			long bytesReceived) {
+		RequestEvent event = (RequestEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			event.endpoint = endpoint;
+			event.status = status;
+			event.error = (error != null) ? error.name() : null;
+			event.bytesSent = bytesSent;
+			event.bytesReceived = bytesReceived;
+			event.commit();
+		}
+	}
+
+	static void retry(String endpoint, int attempt) {
+		if (!RETRY.isEnabled()) {
+			return;
+		}
+		RetryEvent event = new RetryEvent();
+		if (event.shouldCommit()) {
+			event.endpoint = endpoint;
+			event.attempt = attempt;
+			event.commit();
+		}
+	}
+
+	static void cacheHit(String cache, String key) {
+		if (!CACHE_HIT.isEnabled()) {
+			return;
+		}
+		CacheHitEvent event = new CacheHitEvent();
+		if (event.shouldCommit()) {
+			event.cache = cache;
+			event.key = key;
+			event.commit();
+		}
+	}
+
+	static void cacheMiss(String cache, String key) {
+		if (!CACHE_MISS.isEnabled()) {
+			return;
+		}
+		CacheMissEvent event = new CacheMissEvent();
+		if (event.shouldCommit()) {
+			event.cache = cache;
+			event.key = key;
+			event.commit();
+		}
+	}
+
+	static void queueOverflow(String queue, String policy, long depth) {
+		if (!QUEUE_OVERFLOW.isEnabled()) {
+			return;
+		}
+		QueueOverflowEvent event = new QueueOverflowEvent();
+		if (event.shouldCommit()) {
+			event.queue = queue;
+			event.policy = policy;
+			event.depth = depth;
+			event.commit();
+		}
+	}
+}
@@ -55,6 +55,20 @@ public class AccessSDKTest {
 		}
 	}
 
+	/**
+	 * Test method for {@link com.kount.kountaccess.AccessSdk#AccessSdk(java.lang.String, int, java.lang.String)}.
+	 */
+	@Test
+	public void testConstructorAccessSDKInvalidHost() {
+		try {
+			new AccessSdk("not a host", merchantId, apiKey);
+			fail("Should have failed host");
+
+		} catch (AccessException ae) {
+			assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+		}
+	}
+
 	/**
 	 * Test method for {@link com.kount.kountaccess.AccessSdk#AccessSdk(java.lang.String, int, java.lang.String)}.
 	 */
@@ -0,0 +1,93 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Unit Tests around the lock-free ring queue.
+ *
+ * @author custserv@kount.com
+ */
+public class BoundedRingQueueTest {
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.BoundedRingQueue#offer(Object)} on a full queue and
+	 * {@link com.kount.kountaccess.BoundedRingQueue#poll()} on an empty one.
+	 */
+	@Test
+	public void testFullAndEmpty() {
+		BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(3);
+		assertEquals(4, queue.capacity());
+		assertNull(queue.poll());
+		for (int lap = 0; lap < 3; lap++) {
+			for (int i = 0; i < 4; i++) {
+				assertTrue(queue.offer(i));
+			}
+			assertFalse(queue.offer(4));
+			assertEquals(4, queue.size());
+			for (int i = 0; i < 4; i++) {
+				assertEquals(Integer.valueOf(i), queue.poll());
+			}
+			assertNull(queue.poll());
+		}
+		assertEquals(2, new BoundedRingQueue<Integer>(1).capacity());
+	}
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.BoundedRingQueue} with concurrent producers and consumers.
+	 */
+	@Test
+	public void testConcurrentProducersAndConsumers() throws InterruptedException {
+		final int producers = 4;
+		final int perProducer = 20000;
+		final BoundedRingQueue<Integer> queue = new BoundedRingQueue<>(64);
+		final AtomicLong sum = new AtomicLong();
+		final AtomicInteger received = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(producers + 2);
+		for (int p = 0; p < producers; p++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 1; i <= perProducer; i++) {
+						while (!queue.offer(i)) {
+							Thread.yield();
+						}
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+		for (int c = 0; c < 2; c++) {
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while (received.get() < (producers * perProducer)) {
+						Integer value = queue.poll();
+						if (value != null) {
+							sum.addAndGet(value);
+							received.incrementAndGet();
+						} else {
+							Thread.yield();
+						}
+					}
+					done.countDown();
+				}
+			}).start();
+		}
+		done.await();
+		assertEquals(producers * perProducer, received.get());
+		assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+		assertNull(queue.poll());
+	}
+}
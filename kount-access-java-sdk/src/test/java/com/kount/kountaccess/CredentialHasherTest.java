@@ -0,0 +1,96 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.junit.Test;
+
+/**
+ * Unit Tests around the credential hashing.
+ *
+ * @author custserv@kount.com
+ */
+public class CredentialHasherTest {
+
+	/**
+	 * The hashing the SDK has always done, the new hasher must produce the same values.
+	 */
+	private static String legacyHash(String value) throws Exception {
+		MessageDigest md = MessageDigest.getInstance("SHA-256");
+		md.update(value.getBytes(StandardCharsets.UTF_8), 0, value.length());
+		StringBuilder hex = new StringBuilder();
+		for (byte b : md.digest()) {
+			hex.append(String.format("%02x", b & 0xFF));
+		}
+		return hex.toString();
+	}
+
+	@Test
+	public void testHashMatchesLegacyHashing() throws Exception {
+		String[] values = { "greg@test.com", "password", "p", "Jörg", "日本語のパスワード", "😀 smile", "\ud800 unpaired",
+				new String(new char[5000]).replace('\0', 'x') };
+		for (String value : values) {
+			assertEquals(value, legacyHash(value), CredentialHasher.hash(value));
+		}
+	}
+
+	@Test
+	public void testJoinedHashMatchesConcatenation() throws Exception {
+		assertEquals(legacyHash("greg@test.com:password"), CredentialHasher.hash("greg@test.com", "password"));
+		assertEquals(legacyHash("Jörg:日本"), CredentialHasher.hash("Jörg", "日本"));
+		assertEquals(legacyHash("greg@test.com:null"), CredentialHasher.hash("greg@test.com", null));
+		assertEquals(legacyHash("null:password"), CredentialHasher.hash(null, "password"));
+	}
+
+	@Test
+	public void testBufferWipedAfterHashing() throws Exception {
+		CredentialHasher.hash("greg@test.com", "correct horse battery staple");
+		Field hashers = CredentialHasher.class.getDeclaredField("HASHERS");
+		hashers.setAccessible(true);
+		Object hasher = ((ThreadLocal<?>) hashers.get(null)).get();
+		Field buffer = CredentialHasher.class.getDeclaredField("buffer");
+		buffer.setAccessible(true);
+		for (byte b : (byte[]) buffer.get(hasher)) {
+			assertEquals(0, b);
+		}
+	}
+
+	@Test
+	public void testEmptyValues() {
+		assertNull(CredentialHasher.hash(null));
+		assertNull(CredentialHasher.hash(""));
+	}
+
+	@Test
+	public void testHashedCredentials() throws Exception {
+		HashedCredentials credentials = new HashedCredentials("greg@test.com", "password");
+		assertEquals(legacyHash("greg@test.com"), credentials.getUsernameHash());
+		assertEquals(legacyHash("password"), credentials.getPasswordHash());
+		assertEquals(legacyHash("greg@test.com:password"), credentials.getCredentialsHash());
+		assertTrue(credentials.isComplete());
+		assertEquals(credentials, new HashedCredentials("greg@test.com", "password"));
+		assertFalse(credentials.equals(new HashedCredentials("greg@test.com", "other")));
+
+		assertFalse(new HashedCredentials("greg@test.com", " ").isComplete());
+		assertNull(new HashedCredentials(null, null).getCredentialsHash());
+		assertEquals("v=0400&uh=" + legacyHash("greg@test.com") + "&ah=" + legacyHash("greg@test.com:null"),
+				encode(new HashedCredentials("greg@test.com", null)));
+		assertEquals("v=0400&uh&ph=" + legacyHash("password") + "&ah=" + legacyHash(":password"),
+				encode(new HashedCredentials("", "password")));
+	}
+
+	private static String encode(HashedCredentials credentials) {
+		FormEncoder encoder = FormEncoder.get().add("v", "0400");
+		credentials.encodeTo(encoder);
+		return encoder.toString();
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import static junit.framework.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+/**
+ * Unit Tests around the form and query string encoder.
+ *
+ * @author custserv@kount.com
+ */
+public class FormEncoderTest {
+
+	@Test
+	public void testEncodingMatchesUrlEncodedUtils() {
+		String[] values = { "plain", "with space", "a&b=c", "~!@#$%^*()_+-.", "Jörg", "日本",
+				"😀" };
+		for (String value : values) {
+			String expected = URLEncodedUtils.format(Arrays.asList(new BasicNameValuePair("k", value)),
+					StandardCharsets.UTF_8);
+			assertEquals(expected, FormEncoder.get().add("k", value).toString());
+		}
+	}
+
+	@Test
+	public void testNullValueAndReservedNames() throws Exception {
+		Map<String, String> additional = new LinkedHashMap<>();
+		additional.put("uniq", "ignored");
+		additional.put("extra", "1");
+		FormEncoder encoder = FormEncoder.get().add("v", "0400").add("uh", null).add("uniq", "u");
+		encoder.addAll(additional, new String[] { "uniq" });
+		assertEquals("v=0400&uh&uniq=u&extra=1", encoder.toString());
+		assertEquals("v=0400&uh&uniq=u&extra=1", EntityUtils.toString(encoder.toEntity()));
+	}
+
+	@Test
+	public void testEncoderIsResetAndGrows() {
+		StringBuilder large = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			large.append("é");
+		}
+		assertEquals(60000 + 2, FormEncoder.get().add("k", large.toString()).toString().length());
+		assertEquals("k=v", FormEncoder.get().add("k", "v").toString());
+	}
+
+}
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
 import java.io.IOException;
+import java.net.URI;
 
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -81,7 +82,7 @@ public class GetDecisionTest {
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn(decisionJSON).when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
 			doReturn(200).when(mockStatus).getStatusCode();
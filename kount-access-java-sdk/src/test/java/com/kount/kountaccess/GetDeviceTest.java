@@ -10,8 +10,11 @@ import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -19,6 +22,7 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.log4j.Logger;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import net.sf.json.JSONObject;
 
@@ -87,4 +91,40 @@ public class GetDeviceTest {
 		}
 	}
 
+	/**
+	 * Test that additional parameters are URL-encoded in the query string for
+	 * {@link com.kount.kountaccess.AccessSdk#getDevice(java.lang.String, java.util.Map)}.
+	 */
+	@Test
+	public void testGetDeviceEncodesAdditionalParameters() {
+		try {
+			// class to test
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			// mock responses
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
+			doReturn(deviceJSON).when(sdk).getResponseAsString(mockResponse);
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			// test method
+			Map<String, String> additionalParameters = new LinkedHashMap<>();
+			additionalParameters.put("note", "a&b=c d");
+			additionalParameters.put("name", "J\u00f6rg");
+			sdk.getDevice(session, additionalParameters);
+			ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+			verify(mockHttpClient).execute(request.capture());
+			assertEquals("v=0400&s=" + session + "&note=a%26b%3Dc+d&name=J%C3%B6rg",
+					request.getValue().getURI().getRawQuery());
+
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
 }
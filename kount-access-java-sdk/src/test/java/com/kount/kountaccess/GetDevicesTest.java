@@ -4,21 +4,38 @@
 package com.kount.kountaccess;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.log4j.Logger;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.kount.kountaccess.AccessException.AccessErrorType;
 
@@ -162,4 +179,269 @@ public class GetDevicesTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#getDevicesIterator(java.lang.String, int, int)}.
+	 */
+	@Test
+	public void testGetDevicesIteratorHappyPath() {
+		try {
+			// class to test
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			// mock responses
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
+			doReturn(new StringEntity(devicesJSON, ContentType.APPLICATION_JSON)).when(mockResponse).getEntity();
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			// test method
+			AccessResultIterator devices = sdk.getDevicesIterator(uniq, 0, 0);
+			assertTrue(devices.hasNext());
+			JSONObject device1 = devices.next();
+			assertEquals(fingerprint, device1.get("deviceid"));
+			assertEquals(trustedState, device1.get("truststate"));
+			assertTrue(devices.hasNext());
+			JSONObject device2 = devices.next();
+			assertEquals(fingerprint2, device2.get("deviceid"));
+			assertFalse(devices.hasNext());
+			verify(mockResponse).close();
+
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test offset and limit for
+	 * {@link com.kount.kountaccess.AccessSdk#getDevicesIterator(java.lang.String, int, int)}.
+	 */
+	@Test
+	public void testGetDevicesIteratorOffsetAndLimit() {
+		try {
+			// class to test
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			// mock responses
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
+			doReturn(new StringEntity(devicesJSON, ContentType.APPLICATION_JSON)).when(mockResponse).getEntity();
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			// test method
+			AccessResultIterator devices = sdk.getDevicesIterator(uniq, 1, 1);
+			assertTrue(devices.hasNext());
+			assertEquals(fingerprint2, devices.next().get("deviceid"));
+			assertFalse(devices.hasNext());
+			verify(mockResponse).close();
+
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test early termination for
+	 * {@link com.kount.kountaccess.AccessSdk#getDevicesIterator(java.lang.String, int, int)}.
+	 */
+	@Test
+	public void testGetDevicesIteratorEarlyClose() {
+		try {
+			// class to test
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			// mock responses
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
+			doReturn(new StringEntity(devicesJSON, ContentType.APPLICATION_JSON)).when(mockResponse).getEntity();
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			// test method
+			try (AccessResultIterator devices = sdk.getDevicesIterator(uniq, 0, 0)) {
+				assertEquals(fingerprint, devices.next().get("deviceid"));
+			}
+			verify(mockResponse).close();
+			verify(mockHttpClient).close();
+
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test negative offset for
+	 * {@link com.kount.kountaccess.AccessSdk#getDevicesIterator(java.lang.String, int, int)}.
+	 */
+	@Test
+	public void testGetDevicesIteratorNegativeOffset() {
+		try {
+			// class to test
+			AccessSdk sdk = new AccessSdk(host, merchantId, apiKey);
+			// test method
+			sdk.getDevicesIterator(uniq, -1, 0);
+			fail("Exception Not thrown");
+		} catch (AccessException ae) {
+			assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+		}
+	}
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.AccessSdk#getDevicesBulk(java.util.Collection, int)} with a
+	 * duplicate and a failing uniq.
+	 */
+	@Test
+	public void testGetDevicesBulk() {
+		try {
+			// class to test
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			final Map<String, CloseableHttpResponse> responses = new HashMap<>();
+			for (String key : Arrays.asList("alice", "bob")) {
+				CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+				StatusLine mockStatus = mock(StatusLine.class);
+				doReturn(mockStatus).when(mockResponse).getStatusLine();
+				doReturn(200).when(mockStatus).getStatusCode();
+				doReturn(devicesJSON.replace(responseId, key)).when(sdk).getResponseAsString(mockResponse);
+				responses.put("uniq=" + key, mockResponse);
+			}
+			final AtomicInteger running = new AtomicInteger();
+			final AtomicInteger maxRunning = new AtomicInteger();
+			final AtomicInteger requests = new AtomicInteger();
+			// mock responses
+			doReturn(mockHttpClient).when(sdk).getPooledHttpClient(anyInt());
+			doAnswer(new Answer<Object>() {
+				@Override
+				public Object answer(InvocationOnMock invocation) throws Exception {
+					requests.incrementAndGet();
+					int now = running.incrementAndGet();
+					try {
+						synchronized (maxRunning) {
+							maxRunning.set(Math.max(maxRunning.get(), now));
+						}
+						Thread.sleep(20);
+						String query = ((HttpGet) invocation.getArguments()[0]).getURI().getQuery();
+						CloseableHttpResponse response = responses.get(query.substring(query.indexOf("uniq=")));
+						if (response == null) {
+							throw new IOException("connection reset");
+						}
+						return response;
+					} finally {
+						running.decrementAndGet();
+					}
+				}
+			}).when(mockHttpClient).execute((HttpGet) anyObject());
+			// test method
+			Map<String, BulkLookupResult> results = new HashMap<>();
+			try (BulkLookupIterator devices = sdk.getDevicesBulk(
+					Arrays.asList("alice", "bob", "alice", "carol"), 2)) {
+				assertEquals(3, devices.size());
+				while (devices.hasNext()) {
+					BulkLookupResult result = devices.next();
+					results.put(result.getKey(), result);
+				}
+			}
+			assertEquals(3, results.size());
+			assertEquals(3, requests.get());
+			assertTrue(maxRunning.get() <= 2);
+			assertEquals("alice", results.get("alice").getResponse().get("response_id"));
+			assertEquals("bob", results.get("bob").getResponse().get("response_id"));
+			assertFalse(results.get("carol").isSuccess());
+			assertEquals(AccessErrorType.NETWORK_ERROR, results.get("carol").getError().getAccessErrorType());
+			verify(mockHttpClient).close();
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.AccessSdk#getDevicesBulk(java.util.Collection, int)} with an
+	 * executor rejecting the lookups, which fails every key instead of leaving the iterator waiting.
+	 */
+	@Test
+	public void testGetDevicesBulkRejected() {
+		ExecutorService rejecting = Executors.newSingleThreadExecutor();
+		rejecting.shutdown();
+		try {
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			doReturn(mockHttpClient).when(sdk).getPooledHttpClient(anyInt());
+			sdk.setExecutor(rejecting);
+			int failed = 0;
+			try (BulkLookupIterator devices = sdk.getDevicesBulk(Arrays.asList("alice", "bob", "carol"), 1)) {
+				while (devices.hasNext()) {
+					BulkLookupResult result = devices.next(1, TimeUnit.SECONDS);
+					assertNotNull(result);
+					assertFalse(result.isSuccess());
+					assertEquals(AccessErrorType.INTERNAL_ERROR, result.getError().getAccessErrorType());
+					failed++;
+				}
+			}
+			assertEquals(3, failed);
+			verify(mockHttpClient).close();
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (InterruptedException ie) {
+			fail("Exception:" + ie.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.BulkLookupIterator#next()} interrupted while waiting, which keeps
+	 * the interrupt.
+	 */
+	@Test
+	public void testGetDevicesBulkInterrupted() {
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService busy = Executors.newSingleThreadExecutor();
+		busy.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			doReturn(mock(CloseableHttpClient.class)).when(sdk).getPooledHttpClient(anyInt());
+			sdk.setExecutor(busy);
+			try (BulkLookupIterator devices = sdk.getDevicesBulk(Arrays.asList("alice"), 1)) {
+				Thread.currentThread().interrupt();
+				try {
+					devices.next();
+					fail("Exception Not thrown");
+				} catch (IllegalStateException ise) {
+					assertTrue(ise.getCause() instanceof AccessException);
+				}
+				assertTrue(Thread.interrupted());
+			}
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		} finally {
+			release.countDown();
+			busy.shutdown();
+		}
+	}
 }
@@ -4,21 +4,31 @@
 package com.kount.kountaccess;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.kount.kountaccess.AccessException.AccessErrorType;
 
@@ -89,7 +99,7 @@ public class GetInfoTest {
 			StatusLine mockStatus = mock(StatusLine.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
 			doReturn(infoJSONFull).when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
@@ -135,7 +145,7 @@ public class GetInfoTest {
 			StatusLine mockStatus = mock(StatusLine.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
 			doReturn(infoJSONDevice).when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
@@ -172,7 +182,7 @@ public class GetInfoTest {
 			StatusLine mockStatus = mock(StatusLine.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
 			doReturn(infoJSONDecisionVelocity).when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
@@ -208,7 +218,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withInfo().build();
 			// test method
@@ -233,7 +243,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withInfo().build();
 			// test method
@@ -259,7 +269,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withInfo().build();
 			// test method
@@ -285,7 +295,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withInfo().build();
 			// test method
@@ -311,7 +321,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withInfo().build();
 			// test method
@@ -337,7 +347,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -363,7 +373,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -389,7 +399,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -415,7 +425,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -440,7 +450,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -466,7 +476,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -492,7 +502,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -517,7 +527,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -543,7 +553,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withVelocity().build();
 			// test method
@@ -569,7 +579,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withDecision().build();
 			// test method
@@ -595,7 +605,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withDecision().build();
 			// test method
@@ -621,7 +631,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withDecision().build();
 			// test method
@@ -646,7 +656,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withDecision().build();
 			// test method
@@ -672,7 +682,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withDecision().build();
 			// test method
@@ -697,7 +707,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withDecision().build();
 			// test method
@@ -723,7 +733,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withTrustedDevice().build();
 			// test method
@@ -749,7 +759,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withTrustedDevice().build();
 			// test method
@@ -775,7 +785,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withTrustedDevice().build();
 			// test method
@@ -801,7 +811,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withTrustedDevice().build();
 			// test method
@@ -827,7 +837,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withTrustedDevice().build();
 			// test method
@@ -853,7 +863,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withBehavioSec().build();
 			// test method
@@ -879,7 +889,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withBehavioSec().build();
 			// test method
@@ -905,7 +915,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withBehavioSec().build();
 			// test method
@@ -931,7 +941,7 @@ public class GetInfoTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			// mock responses
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 
 			int infoFlag = new InfoEndpointDataSet().withBehavioSec().build();
 			// test method
@@ -942,4 +952,53 @@ public class GetInfoTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#getInfo(InfoQuery, String, String, HashedCredentials, long, TimeUnit)}
+	 * with a BehavioSec part that misses the deadline.
+	 */
+	@Test
+	public void testGetInfoPartialResult() {
+		final CountDownLatch behavioSecReleased = new CountDownLatch(1);
+		try (AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey))) {
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			final CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			// mock responses, the BehavioSec part waits for the test
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doAnswer(new Answer<Object>() {
+				@Override
+				public Object answer(InvocationOnMock invocation) throws Exception {
+					HttpPost post = (HttpPost) invocation.getArguments()[0];
+					if (EntityUtils.toString(post.getEntity()).contains("i=16")) {
+						behavioSecReleased.await(2, TimeUnit.SECONDS);
+					}
+					return mockResponse;
+				}
+			}).when(mockHttpClient).execute((HttpPost) anyObject());
+			doReturn(infoJSONFull).when(sdk).getResponseAsString(mockResponse);
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			// test method
+			InfoResponse info = sdk.getInfo(InfoQuery.of(InfoSection.DEVICE, InfoSection.DECISION,
+					InfoSection.BEHAVIOSEC), session, uniq, new HashedCredentials(user, pass), 300,
+					TimeUnit.MILLISECONDS);
+			assertEquals(fingerprint, info.getDevice().get("id"));
+			assertEquals("A", info.getDecision().getJSONObject("reply").getJSONObject("ruleEvents").get("decision"));
+			assertNull(info.getBehavioSec());
+			assertNull(info.getJSON().opt("trusted"));
+			assertTrue(info.isTimedOut(InfoSection.BEHAVIOSEC));
+			assertEquals(EnumSet.of(InfoSection.BEHAVIOSEC), info.getMissingSections());
+			assertEquals(responseId, info.getResponseId());
+
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		} finally {
+			behavioSecReleased.countDown();
+		}
+	}
+
 }
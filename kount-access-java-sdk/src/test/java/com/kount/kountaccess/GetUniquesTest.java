@@ -4,18 +4,24 @@
 package com.kount.kountaccess;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.log4j.Logger;
 import org.junit.Test;
@@ -159,4 +165,107 @@ public class GetUniquesTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#getUniquesIterator(java.lang.String, int, int)}.
+	 */
+	@Test
+	public void testGetUniquesIteratorHappyPath() {
+		try {
+			// class to test
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			// mock responses
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
+			doReturn(new StringEntity(uniquesJSON, ContentType.APPLICATION_JSON)).when(mockResponse).getEntity();
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			// test method
+			AccessResultIterator uniques = sdk.getUniquesIterator(fingerprint, 0, 0);
+			assertTrue(uniques.hasNext());
+			JSONObject unique = uniques.next();
+			assertEquals(uniq, unique.get("unique"));
+			assertEquals(trustedState, unique.get("truststate"));
+			assertFalse(uniques.hasNext());
+			verify(mockResponse).close();
+
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test missing uniques array for
+	 * {@link com.kount.kountaccess.AccessSdk#getUniquesIterator(java.lang.String, int, int)}.
+	 */
+	@Test
+	public void testGetUniquesIteratorNoUniques() {
+		try {
+			// class to test
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			// mock objects
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			// mock responses
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpGet) anyObject());
+			doReturn(new StringEntity("{\"response_id\":\"" + responseId + "\"}", ContentType.APPLICATION_JSON))
+					.when(mockResponse).getEntity();
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			// test method
+			AccessResultIterator uniques = sdk.getUniquesIterator(fingerprint, 0, 0);
+			assertFalse(uniques.hasNext());
+			verify(mockResponse).close();
+
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test invalid values for
+	 * {@link com.kount.kountaccess.AccessSdk#getUniquesBulk(java.util.Collection, int)}, which are rejected before any
+	 * request is made.
+	 */
+	@Test
+	public void testGetUniquesBulkInvalid() {
+		try {
+			// class to test
+			AccessSdk sdk = new AccessSdk(host, merchantId, apiKey);
+			try {
+				sdk.getUniquesBulk(Arrays.asList(fingerprint, " "));
+				fail("Exception Not thrown");
+			} catch (AccessException ae) {
+				assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+			}
+			try {
+				sdk.getUniquesBulk(null);
+				fail("Exception Not thrown");
+			} catch (AccessException ae) {
+				assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+			}
+			try {
+				sdk.getUniquesBulk(Arrays.asList(fingerprint), 0);
+				fail("Exception Not thrown");
+			} catch (AccessException ae) {
+				assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+			}
+			// nothing to look up
+			try (BulkLookupIterator uniques = sdk.getUniquesBulk(Collections.<String> emptyList())) {
+				assertFalse(uniques.hasNext());
+			}
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
 }
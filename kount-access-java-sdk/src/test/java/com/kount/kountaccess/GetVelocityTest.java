@@ -12,9 +12,12 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -26,7 +29,9 @@ import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.kount.kountaccess.AccessException.AccessErrorType;
 
@@ -90,7 +95,7 @@ public class GetVelocityTest {
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn(velocityJSON).when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
 			doReturn(200).when(mockStatus).getStatusCode();
@@ -121,6 +126,43 @@ public class GetVelocityTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#getVelocity(java.lang.String, com.kount.kountaccess.HashedCredentials)}.
+	 */
+	@Test
+	public void testGetVelocityHashedCredentials() {
+
+		try {
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn(velocityJSON).when(sdk).getResponseAsString(mockResponse);
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			HashedCredentials credentials = new HashedCredentials(user, password);
+			ArgumentCaptor<HttpPost> request = ArgumentCaptor.forClass(HttpPost.class);
+
+			sdk.getVelocity(session, user, password);
+			verify(mockHttpClient).execute(request.capture());
+			String plainBody = EntityUtils.toString(request.getValue().getEntity());
+			JSONObject accessInfo = sdk.getVelocity(session, credentials);
+			verify(mockHttpClient, times(2)).execute(request.capture());
+			String hashedBody = EntityUtils.toString(request.getValue().getEntity());
+
+			assertNotNull(accessInfo);
+			assertEquals(plainBody, hashedBody);
+			assertTrue(hashedBody.contains("&ah=" + credentials.getCredentialsHash()));
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
 	/**
 	 * Test IllegalArgumentException Test method for
 	 * {@link com.kount.kountaccess.AccessSdk#getVelocity(java.lang.String, java.lang.String, java.lang.String)}.
@@ -133,7 +175,7 @@ public class GetVelocityTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk("whetever is bad", merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.getVelocity(session, user, password);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -154,7 +196,7 @@ public class GetVelocityTest {
 			doThrow(new ClientProtocolException()).when(mockHttpClient).execute((HttpPost) anyObject());
 			AccessSdk sdk = spy(new AccessSdk("gty://bad.host.com", merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.getVelocity(session, user, password);
 			fail("AccessException Not thrown");
 		} catch (AccessException ae) {
@@ -179,7 +221,7 @@ public class GetVelocityTest {
 			doThrow(new IOException()).when(mockHttpClient).execute((HttpPost) anyObject());
 			AccessSdk sdk = spy(new AccessSdk("bad.host.com", merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.getVelocity(session, user, password);
 			fail("AccessException Not thrown");
 		} catch (AccessException ae) {
@@ -203,7 +245,7 @@ public class GetVelocityTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk("bad.host.com", merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			when(mockHttpClient.execute((HttpPost) anyObject())).thenThrow(new UnknownHostException());
 			sdk.getVelocity(session, user, password);
 			fail("AccessException Not thrown");
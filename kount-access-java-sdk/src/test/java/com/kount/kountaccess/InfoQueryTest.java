@@ -0,0 +1,98 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Unit Tests around the typed info queries.
+ *
+ * @author custserv@kount.com
+ */
+public class InfoQueryTest {
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.InfoQuery#fromFlag(int)}.
+	 */
+	@Test
+	public void testQueriesAreInterned() {
+		try {
+			for (int flag = 1; flag <= 31; flag++) {
+				InfoQuery query = InfoQuery.fromFlag(flag);
+				assertEquals(flag, query.getFlag());
+				assertSame(query, InfoQuery.fromFlag(flag));
+			}
+			InfoQuery query = InfoQuery.of(InfoSection.DEVICE, InfoSection.DECISION);
+			assertSame(InfoQuery.fromFlag(new InfoEndpointDataSet().withInfo().withDecision().build()), query);
+			assertSame(InfoQuery.all(), query.with(InfoSection.VELOCITY, InfoSection.TRUSTED, InfoSection.BEHAVIOSEC));
+			assertEquals(EnumSet.of(InfoSection.DEVICE, InfoSection.DECISION), query.getSections());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.InfoQuery#fromFlag(int)}.
+	 */
+	@Test
+	public void testInvalidFlag() {
+		for (int flag : new int[] { 0, 32, -1 }) {
+			try {
+				InfoQuery.fromFlag(flag);
+				fail("Exception Not thrown");
+			} catch (AccessException ae) {
+				assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.InfoQuery#requiresUniq()} and
+	 * {@link com.kount.kountaccess.InfoQuery#requiresCredentials()}.
+	 */
+	@Test
+	public void testRequirements() {
+		try {
+			assertFalse(InfoQuery.of(InfoSection.DEVICE).requiresUniq());
+			assertFalse(InfoQuery.of(InfoSection.DEVICE).requiresCredentials());
+			assertTrue(InfoQuery.of(InfoSection.DEVICE, InfoSection.TRUSTED).requiresUniq());
+			assertTrue(InfoQuery.of(InfoSection.BEHAVIOSEC).requiresUniq());
+			assertFalse(InfoQuery.of(InfoSection.BEHAVIOSEC).requiresCredentials());
+			assertTrue(InfoQuery.of(InfoSection.VELOCITY).requiresCredentials());
+			assertTrue(InfoQuery.of(InfoSection.DECISION).requiresCredentials());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.InfoResponse} only exposing the sections of its query.
+	 */
+	@Test
+	public void testResponseProjection() {
+		try {
+			JSONObject json = JSONObject.fromObject("{\"device\":{\"id\":\"abc\"},\"trusted\":{\"state\":\"banned\"}}");
+			InfoResponse response = new InfoResponse(json, InfoQuery.of(InfoSection.DEVICE, InfoSection.VELOCITY));
+			assertEquals("abc", response.getDevice().get("id"));
+			assertNull(response.getTrusted());
+			assertEquals(EnumSet.of(InfoSection.VELOCITY), response.getMissingSections());
+			assertEquals(3, response.getInfoFlag());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit Tests around the structural JSON validator used for behavio timing data.
+ *
+ * @author custserv@kount.com
+ */
+public class JsonValidatorTest {
+
+	@Test
+	public void testWellFormedObjectsAndArrays() {
+		assertTrue(JsonValidator.isWellFormedObjectOrArray("{\"valid\":\"json\"}"));
+		assertTrue(JsonValidator.isWellFormedObjectOrArray(" [ ] "));
+		assertTrue(JsonValidator.isWellFormedObjectOrArray("{}"));
+		assertTrue(JsonValidator.isWellFormedObjectOrArray(
+				"[{\"k\":65,\"d\":-12.5e+3,\"u\":0},{\"k\":\"\\u00e9\\n\",\"t\":[true,false,null]}]"));
+		assertTrue(JsonValidator.isWellFormedObjectOrArray("{\"a\" : {\"b\" : [1, 2, {\"c\" : \"\\\"\"}]}}"));
+	}
+
+	@Test
+	public void testMalformedInput() {
+		assertFalse(JsonValidator.isWellFormedObjectOrArray(""));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("not a json"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("\"string\""));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("123"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{\"a\":1"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{\"a\":1,}"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("[1,]"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{a:1}"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{\"a\":01}"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{\"a\":\"\\x\"}"));
+		assertTrue(JsonValidator.isWellFormedObjectOrArray("{\"a\":\"\\u09aF\"}"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{\"a\":\"\\u00g9\"}"));
+		// full-width digits and letters are hex digits to Character.digit, not to JSON
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{\"a\":\"\\u\uff10\uff10\uff25\uff19\"}"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{\"a\":tru}"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("{} {}"));
+		assertFalse(JsonValidator.isWellFormedObjectOrArray("[\"unterminated]"));
+	}
+
+	@Test
+	public void testNestingLimit() {
+		StringBuilder deep = new StringBuilder();
+		for (int i = 0; i <= JsonValidator.MAX_DEPTH; i++) {
+			deep.append('[');
+		}
+		for (int i = 0; i <= JsonValidator.MAX_DEPTH; i++) {
+			deep.append(']');
+		}
+		assertFalse(JsonValidator.isWellFormedObjectOrArray(deep));
+		assertTrue(JsonValidator.isWellFormedObjectOrArray(deep.substring(1, deep.length() - 1)));
+	}
+
+}
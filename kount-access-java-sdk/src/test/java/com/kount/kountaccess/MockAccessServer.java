@@ -0,0 +1,702 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+
+/**
+ * An embeddable stand-in for the Kount Access API, answering the SDK's requests over real sockets on the loopback
+ * interface, with keep-alive connections, so that pooling, retries and timeouts can be tested end to end. Every
+ * endpoint answers with a recorded response, and can be made slow, failing, slow to send its body or resetting its
+ * connections. Shipped in the SDK's test-jar.
+ *
+ * <pre>
+ * try (MockAccessServer server = new MockAccessServer()) {
+ * 	server.setLatency(null, MockAccessServer.logNormalLatency(20, 250));
+ * 	server.setErrorRate("decision", 0.05, 503);
+ * 	server.setResetRate("info", 0.01);
+ * 	AccessSdk sdk = server.newSdk(999999, apiKey);
+ * 	sdk.getDecision(session, username, password);
+ * }
+ * </pre>
+ *
+ * The server speaks plain HTTP, so {@link #newSdk(int, String)} returns an SDK sending its requests there instead of
+ * to https endpoints.
+ *
+ * @author custserv@kount.com
+ */
+public class MockAccessServer implements Closeable {
+
+	/**
+	 * The latency of the responses of an endpoint.
+	 */
+	public interface Latency {
+
+		/**
+		 * @param random
+		 *            The random numbers of the connection answered.
+		 * @return The time to wait before answering, in milliseconds.
+		 */
+		long nextMillis(Random random);
+	}
+
+	/**
+	 * The endpoints answered, named as in {@link RequestPhases#getEndpoint()}.
+	 */
+	public static final List<String> ENDPOINTS = Collections.unmodifiableList(Arrays.asList("velocity", "decision",
+			"device", "info", "getdevices", "getuniques", "devicetrustbydevice", "devicetrustbysession", "behavio"));
+
+	private static final String BEHAVIO_DATA_PATH = "/behavio/data";
+
+	private static final String DEVICE = "\"device\":{\"id\":\"75012bd5e5b264c4b324f5c95a769541\","
+			+ "\"ipAddress\":\"64.128.91.251\",\"ipGeo\":\"US\",\"mobile\":1,\"proxy\":0,\"tor\":0,\"region\":\"ID\","
+			+ "\"country\":\"US\",\"geoLat\":43.6135,\"geoLong\":-116.2034}";
+
+	private static final String RESPONSE_ID = "\"response_id\":\"bf10cd20cf61286669e87342d029e405\"";
+
+	private static final String VELOCITY = "\"velocity\":{\"account\":{\"dlh\":1,\"dlm\":1,\"iplh\":1,\"iplm\":1,"
+			+ "\"plh\":1,\"plm\":1,\"ulh\":1,\"ulm\":1},\"device\":{\"alh\":1,\"alm\":1,\"iplh\":1,\"iplm\":1,\"plh\":1,"
+			+ "\"plm\":1,\"ulh\":1,\"ulm\":1},\"ip_address\":{\"alh\":1,\"alm\":1,\"dlh\":1,\"dlm\":1,\"plh\":1,"
+			+ "\"plm\":1,\"ulh\":1,\"ulm\":1},\"password\":{\"alh\":1,\"alm\":1,\"dlh\":1,\"dlm\":1,\"iplh\":1,"
+			+ "\"iplm\":1,\"ulh\":1,\"ulm\":1},\"user\":{\"alh\":1,\"alm\":1,\"dlh\":1,\"dlm\":1,\"iplh\":1,\"iplm\":1,"
+			+ "\"plh\":1,\"plm\":1}}";
+
+	private static final String DECISION = "\"decision\":{\"errors\":[],\"warnings\":[],\"reply\":{\"ruleEvents\":{"
+			+ "\"decision\":\"A\",\"total\":0,\"ruleEvents\":[]}}}";
+
+	private static final Map<String, String> RESPONSES = new HashMap<>();
+
+	static {
+		RESPONSES.put("velocity", "{" + DEVICE + "," + RESPONSE_ID + "," + VELOCITY + "}");
+		RESPONSES.put("decision", "{" + DECISION + "," + DEVICE + "," + RESPONSE_ID + "," + VELOCITY + "}");
+		RESPONSES.put("device", "{" + DEVICE + "," + RESPONSE_ID + "}");
+		RESPONSES.put("info", "{\"behavioSec\":{\"isBot\":false,\"isTrained\":true,\"score\":87,\"confidence\":92,"
+				+ "\"policyId\":4}," + DECISION + "," + DEVICE + "," + RESPONSE_ID
+				+ ",\"trusted\":{\"state\":\"trusted\"}," + VELOCITY + "}");
+		RESPONSES.put("getdevices", "{" + RESPONSE_ID + ",\"devices\":[{\"deviceid\":\"75012bd5e5b264c4b324f5c95a769541\","
+				+ "\"truststate\":\"trusted\",\"datefirstseen\":\"2018-08-21T13:04:38.396Z\",\"friendlyname\":\"\"}]}");
+		RESPONSES.put("getuniques", "{" + RESPONSE_ID + ",\"uniques\":[{\"unique\":\"abc111@abc.com\","
+				+ "\"datelastseen\":\"2018-08-22T10:20:15.025Z\",\"truststate\":\"trusted\"}]}");
+		RESPONSES.put("devicetrustbydevice", "");
+		RESPONSES.put("devicetrustbysession", "");
+		RESPONSES.put("behavio", "");
+	}
+
+	/**
+	 * What an endpoint answers, and how.
+	 */
+	private static final class Endpoint {
+
+		volatile String response;
+
+		volatile Latency latency;
+
+		volatile double errorRate;
+
+		volatile int errorStatus;
+
+		volatile double resetRate;
+
+		volatile int dripChunkBytes;
+
+		volatile long dripDelayMillis;
+
+		volatile String lastParameters;
+
+		final AtomicInteger requests = new AtomicInteger();
+
+		Endpoint(String response) {
+			this.response = response;
+		}
+	}
+
+	private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+	/**
+	 * Seeds the random numbers of every connection, in accept order; only used by the accepting thread
+	 */
+	private final Random seeds;
+
+	private final ServerSocket serverSocket;
+
+	private final ExecutorService connectionThreads = Executors
+			.newCachedThreadPool(new AccessThreadFactory("mock-server"));
+
+	private final Set<Socket> connections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+
+	private final AtomicInteger connectionCount = new AtomicInteger();
+
+	private volatile boolean closed;
+
+	/**
+	 * Starts a server on a free port of the loopback interface.
+	 *
+	 * @throws IOException
+	 *             Thrown if no port could be bound.
+	 */
+	public MockAccessServer() throws IOException {
+		this(42);
+	}
+
+	/**
+	 * Starts a server on a free port of the loopback interface.
+	 *
+	 * @param seed
+	 *            The seed of the latencies and faults, for repeatable runs. Every connection draws from its own random
+	 *            numbers, seeded from this one in the order the connections are accepted, so that concurrent
+	 *            connections don't change each other's draws.
+	 * @throws IOException
+	 *             Thrown if no port could be bound.
+	 */
+	public MockAccessServer(long seed) throws IOException {
+		this.seeds = new Random(seed);
+		for (String name : ENDPOINTS) {
+			endpoints.put(name, new Endpoint(RESPONSES.get(name)));
+		}
+		serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+		connectionThreads.execute(new Runnable() {
+			@Override
+			public void run() {
+				accept();
+			}
+		});
+	}
+
+	/**
+	 * @param millis
+	 *            The latency of every response.
+	 * @return A constant latency.
+	 */
+	public static Latency fixedLatency(final long millis) {
+		return new Latency() {
+			@Override
+			public long nextMillis(Random random) {
+				return millis;
+			}
+		};
+	}
+
+	/**
+	 * @param minMillis
+	 *            The least latency.
+	 * @param maxMillis
+	 *            The greatest latency.
+	 * @return A latency spread evenly between the two.
+	 */
+	public static Latency uniformLatency(final long minMillis, final long maxMillis) {
+		if ((minMillis < 0) || (maxMillis < minMillis)) {
+			throw new IllegalArgumentException("Invalid latency range (" + minMillis + ", " + maxMillis + ").");
+		}
+		return new Latency() {
+			@Override
+			public long nextMillis(Random random) {
+				return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+			}
+		};
+	}
+
+	/**
+	 * A long tailed latency, as seen from real services: most responses near the median, a few much slower.
+	 *
+	 * @param medianMillis
+	 *            The median latency.
+	 * @param p99Millis
+	 *            The 99th percentile latency.
+	 * @return A log-normal latency.
+	 */
+	public static Latency logNormalLatency(long medianMillis, long p99Millis) {
+		if ((medianMillis <= 0) || (p99Millis < medianMillis)) {
+			throw new IllegalArgumentException("Invalid latency percentiles (" + medianMillis + ", " + p99Millis + ").");
+		}
+		final double mu = Math.log(medianMillis);
+		// 2.326 is the 99th percentile of the standard normal distribution
+		final double sigma = Math.log((double) p99Millis / medianMillis) / 2.326;
+		return new Latency() {
+			@Override
+			public long nextMillis(Random random) {
+				return Math.round(Math.exp(mu + (sigma * random.nextGaussian())));
+			}
+		};
+	}
+
+	/**
+	 * @return The base URI of the server, e.g. http://127.0.0.1:49152/
+	 */
+	public URI getUri() {
+		return URI.create("http://" + serverSocket.getInetAddress().getHostAddress() + ":" + serverSocket.getLocalPort()
+				+ "/");
+	}
+
+	/**
+	 * Creates an SDK sending all its requests, behavio data included, to this server.
+	 *
+	 * @param merchantId
+	 *            The merchant id.
+	 * @param apiKey
+	 *            The API key.
+	 * @return The SDK.
+	 * @throws AccessException
+	 *             Thrown if the merchant id or API key is invalid.
+	 */
+	public AccessSdk newSdk(int merchantId, String apiKey) throws AccessException {
+		return new LoopbackAccessSdk(getUri(), merchantId, apiKey);
+	}
+
+	/**
+	 * Sets what an endpoint answers.
+	 *
+	 * @param endpoint
+	 *            One of {@link #ENDPOINTS}, or null for all of them.
+	 * @param json
+	 *            The response body.
+	 */
+	public void setResponse(String endpoint, String json) {
+		for (Endpoint target : endpoints(endpoint)) {
+			target.response = json;
+		}
+	}
+
+	/**
+	 * Delays the responses of an endpoint.
+	 *
+	 * @param endpoint
+	 *            One of {@link #ENDPOINTS}, or null for all of them.
+	 * @param latency
+	 *            The latency, or null to answer at once.
+	 */
+	public void setLatency(String endpoint, Latency latency) {
+		for (Endpoint target : endpoints(endpoint)) {
+			target.latency = latency;
+		}
+	}
+
+	/**
+	 * Fails a share of the requests to an endpoint with an error status.
+	 *
+	 * @param endpoint
+	 *            One of {@link #ENDPOINTS}, or null for all of them.
+	 * @param rate
+	 *            The share of requests failed, from 0 to 1.
+	 * @param status
+	 *            The status they fail with, e.g. 503.
+	 */
+	public void setErrorRate(String endpoint, double rate, int status) {
+		checkRate(rate);
+		for (Endpoint target : endpoints(endpoint)) {
+			target.errorStatus = status;
+			target.errorRate = rate;
+		}
+	}
+
+	/**
+	 * Resets the connection of a share of the requests to an endpoint, after their latency and without a response.
+	 *
+	 * @param endpoint
+	 *            One of {@link #ENDPOINTS}, or null for all of them.
+	 * @param rate
+	 *            The share of requests reset, from 0 to 1.
+	 */
+	public void setResetRate(String endpoint, double rate) {
+		checkRate(rate);
+		for (Endpoint target : endpoints(endpoint)) {
+			target.resetRate = rate;
+		}
+	}
+
+	/**
+	 * Sends the response bodies of an endpoint a few bytes at a time, e.g. to run into socket timeouts.
+	 *
+	 * @param endpoint
+	 *            One of {@link #ENDPOINTS}, or null for all of them.
+	 * @param chunkBytes
+	 *            The bytes sent at a time, or 0 to send bodies at once.
+	 * @param chunkDelayMillis
+	 *            The time between two chunks.
+	 */
+	public void setDripBody(String endpoint, int chunkBytes, long chunkDelayMillis) {
+		if ((chunkBytes < 0) || (chunkDelayMillis < 0)) {
+			throw new IllegalArgumentException("Invalid drip (" + chunkBytes + ", " + chunkDelayMillis + ").");
+		}
+		for (Endpoint target : endpoints(endpoint)) {
+			target.dripDelayMillis = chunkDelayMillis;
+			target.dripChunkBytes = chunkBytes;
+		}
+	}
+
+	/**
+	 * Puts every endpoint back to its recorded response, without latency or faults, and forgets the requests.
+	 */
+	public void clear() {
+		for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+			Endpoint endpoint = entry.getValue();
+			endpoint.response = RESPONSES.get(entry.getKey());
+			endpoint.latency = null;
+			endpoint.errorRate = 0;
+			endpoint.resetRate = 0;
+			endpoint.dripChunkBytes = 0;
+			endpoint.lastParameters = null;
+			endpoint.requests.set(0);
+		}
+		connectionCount.set(0);
+	}
+
+	/**
+	 * @param endpoint
+	 *            One of {@link #ENDPOINTS}, or null for all of them.
+	 * @return The requests received, faulted ones included.
+	 */
+	public int getRequestCount(String endpoint) {
+		int count = 0;
+		for (Endpoint target : endpoints(endpoint)) {
+			count += target.requests.get();
+		}
+		return count;
+	}
+
+	/**
+	 * @param endpoint
+	 *            One of {@link #ENDPOINTS}.
+	 * @return The query or form parameters of the last request to the endpoint, or null if none.
+	 */
+	public String getLastParameters(String endpoint) {
+		if (endpoint == null) {
+			throw new IllegalArgumentException("Missing endpoint.");
+		}
+		return endpoints(endpoint)[0].lastParameters;
+	}
+
+	/**
+	 * @return The connections accepted, so many requests over few connections show that they are kept alive.
+	 */
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	/**
+	 * Stops the server and closes its connections.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		closeQuietly(serverSocket);
+		for (Socket connection : connections) {
+			closeQuietly(connection);
+		}
+		connectionThreads.shutdownNow();
+	}
+
+	private Endpoint[] endpoints(String endpoint) {
+		if (endpoint == null) {
+			return endpoints.values().toArray(new Endpoint[endpoints.size()]);
+		}
+		Endpoint target = endpoints.get(endpoint);
+		if (target == null) {
+			throw new IllegalArgumentException("Unknown endpoint (" + endpoint + ").");
+		}
+		return new Endpoint[] { target };
+	}
+
+	private static void checkRate(double rate) {
+		if (!((rate >= 0) && (rate <= 1))) {
+			throw new IllegalArgumentException("Invalid rate (" + rate + ").");
+		}
+	}
+
+	private static boolean chance(Random random, double rate) {
+		return (rate > 0) && (random.nextDouble() < rate);
+	}
+
+	private void accept() {
+		while (!closed) {
+			final Socket connection;
+			try {
+				connection = serverSocket.accept();
+			} catch (IOException e) {
+				return;
+			}
+			connections.add(connection);
+			connectionCount.incrementAndGet();
+			final Random random = new Random(seeds.nextLong());
+			try {
+				connectionThreads.execute(new Runnable() {
+					@Override
+					public void run() {
+						serve(connection, random);
+					}
+				});
+			} catch (RejectedExecutionException ree) {
+				connections.remove(connection);
+				closeQuietly(connection);
+			}
+		}
+	}
+
+	/**
+	 * Answers the requests of a connection until either side closes it.
+	 */
+	private void serve(Socket connection, Random random) {
+		try {
+			connection.setTcpNoDelay(true);
+			InputStream in = new BufferedInputStream(connection.getInputStream());
+			OutputStream out = new BufferedOutputStream(connection.getOutputStream());
+			String requestLine;
+			while (!closed && ((requestLine = readLine(in)) != null)) {
+				if (requestLine.isEmpty()) {
+					continue;
+				}
+				String[] request = requestLine.split(" ");
+				if (request.length != 3) {
+					respond(out, 400, "{\"error\":\"bad request\"}", false, null);
+					return;
+				}
+				Map<String, String> headers = readHeaders(in);
+				byte[] body = readBody(in, headers);
+				boolean keepAlive = "HTTP/1.1".equals(request[2]) && !"close".equalsIgnoreCase(headers.get("connection"));
+
+				String target = request[1];
+				int query = target.indexOf('?');
+				String path = (query >= 0) ? target.substring(0, query) : target;
+				Endpoint endpoint = endpoints.get(endpointOf(path));
+				if (endpoint == null) {
+					respond(out, 404, "{\"error\":\"not found\"}", keepAlive, null);
+				} else if (!answer(connection, random, out, endpoint, request[0], target, query, body, keepAlive)) {
+					return;
+				}
+				if (!keepAlive) {
+					return;
+				}
+			}
+		} catch (IOException e) {
+			// the client went away or the server is closing
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		} finally {
+			connections.remove(connection);
+			closeQuietly(connection);
+		}
+	}
+
+	/**
+	 * Answers a request to an endpoint, with its latency and faults.
+	 *
+	 * @return False if the connection was reset.
+	 */
+	private boolean answer(Socket connection, Random random, OutputStream out, Endpoint endpoint, String method,
+			String target, int query, byte[] body, boolean keepAlive) throws IOException, InterruptedException {
+		endpoint.requests.incrementAndGet();
+		endpoint.lastParameters = "POST".equals(method) ? new String(body, StandardCharsets.UTF_8)
+				: ((query >= 0) ? target.substring(query + 1) : null);
+
+		Latency latency = endpoint.latency;
+		if (latency != null) {
+			long millis = latency.nextMillis(random);
+			if (millis > 0) {
+				Thread.sleep(millis);
+			}
+		}
+		if (chance(random, endpoint.resetRate)) {
+			// an RST rather than a FIN
+			connection.setSoLinger(true, 0);
+			connection.close();
+			return false;
+		}
+		if (chance(random, endpoint.errorRate)) {
+			respond(out, endpoint.errorStatus, "{\"error\":\"injected\"}", keepAlive, null);
+		} else {
+			respond(out, 200, endpoint.response, keepAlive, endpoint);
+		}
+		return true;
+	}
+
+	private static void respond(OutputStream out, int status, String json, boolean keepAlive, Endpoint drip)
+			throws IOException, InterruptedException {
+		byte[] body = ((json != null) ? json : "").getBytes(StandardCharsets.UTF_8);
+		String head = "HTTP/1.1 " + status + " " + reasonOf(status) + "\r\nContent-Type: application/json\r\n"
+				+ "Content-Length: " + body.length + "\r\n" + (keepAlive ? "" : "Connection: close\r\n") + "\r\n";
+		out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+		int chunk = (drip != null) ? drip.dripChunkBytes : 0;
+		if (chunk <= 0) {
+			out.write(body);
+			out.flush();
+			return;
+		}
+		long delay = drip.dripDelayMillis;
+		out.flush();
+		for (int offset = 0; offset < body.length; offset += chunk) {
+			Thread.sleep(delay);
+			out.write(body, offset, Math.min(chunk, body.length - offset));
+			out.flush();
+		}
+	}
+
+	private static String reasonOf(int status) {
+		switch (status) {
+		case 200:
+			return "OK";
+		case 400:
+			return "Bad Request";
+		case 401:
+			return "Unauthorized";
+		case 404:
+			return "Not Found";
+		case 429:
+			return "Too Many Requests";
+		case 500:
+			return "Internal Server Error";
+		case 502:
+			return "Bad Gateway";
+		case 503:
+			return "Service Unavailable";
+		case 504:
+			return "Gateway Timeout";
+		default:
+			return "Error";
+		}
+	}
+
+	/**
+	 * @return The endpoint name of a path, as the SDK names it.
+	 */
+	private static String endpointOf(String path) {
+		if (path.endsWith(BEHAVIO_DATA_PATH)) {
+			return "behavio";
+		}
+		if (!path.startsWith("/api/")) {
+			return null;
+		}
+		return path.substring("/api/".length());
+	}
+
+	private static Map<String, String> readHeaders(InputStream in) throws IOException {
+		Map<String, String> headers = new HashMap<>();
+		String line;
+		while (((line = readLine(in)) != null) && !line.isEmpty()) {
+			int colon = line.indexOf(':');
+			if (colon > 0) {
+				headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+			}
+		}
+		return headers;
+	}
+
+	private static byte[] readBody(InputStream in, Map<String, String> headers) throws IOException {
+		if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			while (true) {
+				String size = readLine(in);
+				if (size == null) {
+					throw new EOFException();
+				}
+				int extension = size.indexOf(';');
+				int length = Integer.parseInt(((extension >= 0) ? size.substring(0, extension) : size).trim(), 16);
+				if (length == 0) {
+					readHeaders(in);
+					return body.toByteArray();
+				}
+				body.write(readFully(in, length));
+				readLine(in);
+			}
+		}
+		String contentLength = headers.get("content-length");
+		return (contentLength != null) ? readFully(in, Integer.parseInt(contentLength)) : new byte[0];
+	}
+
+	private static byte[] readFully(InputStream in, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int read = in.read(bytes, offset, length - offset);
+			if (read < 0) {
+				throw new EOFException();
+			}
+			offset += read;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return A line without its CRLF, or null at the end of the stream.
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+		int b;
+		while ((b = in.read()) >= 0) {
+			if (b == '\n') {
+				byte[] bytes = line.toByteArray();
+				int length = ((bytes.length > 0) && (bytes[bytes.length - 1] == '\r')) ? bytes.length - 1
+						: bytes.length;
+				return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+			}
+			line.write(b);
+		}
+		return null;
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// already closed
+		}
+	}
+
+	/**
+	 * Sends every request to the mock server, keeping its path and query.
+	 */
+	private static final class LoopbackAccessSdk extends AccessSdk {
+
+		private final URI server;
+
+		LoopbackAccessSdk(URI server, int merchantId, String apiKey) throws AccessException {
+			super(server.getHost() + ":" + server.getPort(), merchantId, apiKey);
+			this.server = server;
+		}
+
+		@Override
+		HttpPost getHttpPost(URI uri) {
+			return super.getHttpPost(toServer(uri));
+		}
+
+		@Override
+		HttpGet getHttpGet(String url) throws IllegalArgumentException {
+			return super.getHttpGet(toServer(URI.create(url)).toString());
+		}
+
+		private URI toServer(URI uri) {
+			String path = uri.getRawPath();
+			String query = uri.getRawQuery();
+			return server.resolve((query != null) ? path + "?" + query : path);
+		}
+	}
+}
@@ -4,20 +4,34 @@
 package com.kount.kountaccess;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.http.HttpEntity;
 import org.apache.http.StatusLine;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.kount.kountaccess.AccessException.AccessErrorType;
 
@@ -55,7 +69,7 @@ public class SetBehavioDataTest {
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn("").when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
 			doReturn(200).when(mockStatus).getStatusCode();
@@ -78,7 +92,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(null, environment, session, timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -98,7 +112,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData("", environment, session, timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -117,7 +131,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(" ", environment, session, timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -136,7 +150,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, null, session, timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -156,7 +170,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, "", session, timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -175,7 +189,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, " ", session, timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -194,7 +208,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, null, timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -214,7 +228,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, "", timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -233,7 +247,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, " ", timing, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -252,7 +266,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, session, null, uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -272,7 +286,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, session, "", uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -291,7 +305,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, session, " ", uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -299,6 +313,43 @@ public class SetBehavioDataTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#setBehavioDataStream(String, String, String, java.io.InputStream, String)}
+	 * closing the stream when nothing is sent.
+	 */
+	@Test
+	public void testSetBehavioDataStreamClosedOnFailure() {
+		try {
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			doThrow(new IOException("refused")).when(mockHttpClient).execute((HttpPost) anyObject());
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+
+			InputStream stream = spy(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)));
+			try {
+				sdk.setBehavioDataStream(behavioHost, environment, "bad session", stream, uniq);
+				fail("Exception Not thrown");
+			} catch (AccessException ae) {
+				assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+			}
+			verify(stream).close();
+
+			stream = spy(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)));
+			try {
+				sdk.setBehavioDataStream(behavioHost, environment, session, stream, uniq);
+				fail("Exception Not thrown");
+			} catch (AccessException ae) {
+				assertEquals(AccessErrorType.NETWORK_ERROR, ae.getAccessErrorType());
+			}
+			verify(stream).close();
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
 	/**
 	 * Test IllegalArgumentException with not a json for timing Test method for
 	 * {@link com.kount.kountaccess.AccessSdk#setBehavioData(String, String, String, String, String)}
@@ -310,7 +361,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, session, "not a json", uniq);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -329,7 +380,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, session, timing, null);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -349,7 +400,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, session, timing, "");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -368,7 +419,7 @@ public class SetBehavioDataTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setBehavioData(behavioHost, environment, session, timing, " ");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -376,4 +427,107 @@ public class SetBehavioDataTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#setBehavioDataBytes(String, String, String, byte[], String)}
+	 */
+	@Test
+	public void testSetBehavioDataBytesHappyPath() {
+		try {
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn("").when(sdk).getResponseAsString(mockResponse);
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			sdk.setBehavioDataBytes(behavioHost, environment, session, timing.getBytes(StandardCharsets.UTF_8), uniq);
+
+			ArgumentCaptor<HttpPost> request = ArgumentCaptor.forClass(HttpPost.class);
+			verify(mockHttpClient).execute(request.capture());
+			assertEquals("https://" + behavioHost + "/" + environment + "/behavio/data",
+					request.getValue().getURI().toString());
+			String body = EntityUtils.toString(request.getValue().getEntity());
+			assertTrue(body.contains("s=" + session));
+			assertTrue(body.contains("uniq=customer+identifier"));
+			assertTrue(body.contains("m=" + merchantId));
+			assertTrue(body.endsWith("&timing=%7B%22valid%22%3A%22json%22%7D"));
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#setBehavioDataStream(String, String, String, java.io.InputStream, String)}
+	 * with a compressed request body.
+	 */
+	@Test
+	public void testSetBehavioDataStreamCompressed() {
+		try {
+			CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+			CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+			StatusLine mockStatus = mock(StatusLine.class);
+			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
+			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
+			doReturn(mockHttpClient).when(sdk).getHttpClient();
+			doReturn("").when(sdk).getResponseAsString(mockResponse);
+			doReturn(mockStatus).when(mockResponse).getStatusLine();
+			doReturn(200).when(mockStatus).getStatusCode();
+			sdk.setBehavioDataCompression(true);
+			InputStream stream = new ByteArrayInputStream("[\"\u00e9 \"]".getBytes(StandardCharsets.UTF_8));
+			sdk.setBehavioDataStream(behavioHost, environment, session, stream, uniq);
+
+			ArgumentCaptor<HttpPost> request = ArgumentCaptor.forClass(HttpPost.class);
+			verify(mockHttpClient).execute(request.capture());
+			HttpEntity entity = request.getValue().getEntity();
+			assertEquals("gzip", entity.getContentEncoding().getValue());
+			assertTrue(entity.isChunked());
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			entity.writeTo(compressed);
+			String body = EntityUtils.toString(
+					new GzipDecompressingEntity(new ByteArrayEntity(compressed.toByteArray())), StandardCharsets.UTF_8);
+			assertTrue(body.endsWith("&timing=%5B%22%C3%A9+%22%5D"));
+		} catch (IOException ioe) {
+			fail("Exception:" + ioe.getMessage());
+		} catch (AccessException ae) {
+			fail("Exception:" + ae.getMessage());
+		}
+	}
+
+	/**
+	 * Test IllegalArgumentException with not a json for timing Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#setBehavioDataBytes(String, String, String, java.nio.ByteBuffer, String)}
+	 */
+	@Test
+	public void testSetBehavioDataByteBufferNotJSONTiming() {
+		try {
+			AccessSdk sdk = new AccessSdk(host, merchantId, apiKey);
+			ByteBuffer notJson = ByteBuffer.wrap("{\"truncated\":".getBytes(StandardCharsets.UTF_8));
+			sdk.setBehavioDataBytes(behavioHost, environment, session, notJson, uniq);
+			fail("Exception Not thrown");
+		} catch (AccessException ae) {
+			assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+		}
+	}
+
+	/**
+	 * Test IllegalArgumentException for missing timing Test method for
+	 * {@link com.kount.kountaccess.AccessSdk#setBehavioDataBytes(String, String, String, byte[], String)}
+	 */
+	@Test
+	public void testSetBehavioDataBytesMissingTiming() {
+		try {
+			AccessSdk sdk = new AccessSdk(host, merchantId, apiKey);
+			sdk.setBehavioDataBytes(behavioHost, environment, session, new byte[0], uniq);
+			fail("Exception Not thrown");
+		} catch (AccessException ae) {
+			assertEquals(AccessErrorType.INVALID_DATA, ae.getAccessErrorType());
+		}
+	}
+
 }
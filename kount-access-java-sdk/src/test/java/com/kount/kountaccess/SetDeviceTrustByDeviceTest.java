@@ -11,6 +11,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
 import java.io.IOException;
+import java.net.URI;
 
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -51,7 +52,7 @@ public class SetDeviceTrustByDeviceTest {
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn("").when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
 			doReturn(200).when(mockStatus).getStatusCode();
@@ -75,7 +76,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(null, uniq, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -95,7 +96,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice("", uniq, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -115,7 +116,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(" ", uniq, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -135,7 +136,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(fingerprint, null, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -155,7 +156,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(fingerprint, "", AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -175,7 +176,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(fingerprint, " ", AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -194,7 +195,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(fingerprint, uniq, null);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -213,7 +214,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(fingerprint, uniq, "");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -232,7 +233,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(fingerprint, uniq, " ");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -251,7 +252,7 @@ public class SetDeviceTrustByDeviceTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustByDevice(fingerprint, uniq, "some random text");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
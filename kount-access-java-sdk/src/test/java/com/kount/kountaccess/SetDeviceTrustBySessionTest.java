@@ -11,6 +11,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
 import java.io.IOException;
+import java.net.URI;
 
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -51,7 +52,7 @@ public class SetDeviceTrustBySessionTest {
 			doReturn(mockResponse).when(mockHttpClient).execute((HttpPost) anyObject());
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			doReturn("").when(sdk).getResponseAsString(mockResponse);
 			doReturn(mockStatus).when(mockResponse).getStatusLine();
 			doReturn(200).when(mockStatus).getStatusCode();
@@ -74,7 +75,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(null, uniq, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -93,7 +94,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession("", uniq, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -112,7 +113,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(" ", uniq, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -132,7 +133,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(session, null, AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -152,7 +153,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(session, "", AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -172,7 +173,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(session, " ", AccessSdk.TRUSTED_STATE_TRUSTED);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -191,7 +192,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(session, uniq, null);
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -210,7 +211,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(session, uniq, "");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -229,7 +230,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(session, uniq, " ");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
@@ -248,7 +249,7 @@ public class SetDeviceTrustBySessionTest {
 			HttpPost mockPost = mock(HttpPost.class);
 			AccessSdk sdk = spy(new AccessSdk(host, merchantId, apiKey));
 			doReturn(mockHttpClient).when(sdk).getHttpClient();
-			doReturn(mockPost).when(sdk).getHttpPost(accessUrl);
+			doReturn(mockPost).when(sdk).getHttpPost(URI.create(accessUrl));
 			sdk.setDeviceTrustBySession(session, uniq, "some random text");
 			fail("Exception Not thrown");
 		} catch (AccessException ae) {
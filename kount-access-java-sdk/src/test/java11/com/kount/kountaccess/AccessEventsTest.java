@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package com.kount.kountaccess;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.kount.kountaccess.AccessException.AccessErrorType;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Unit Tests around the Java Flight Recorder events. Run by the java11-multi-release profile against the classes of
+ * META-INF/versions/11.
+ *
+ * @author custserv@kount.com
+ */
+public class AccessEventsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Test method for {@link com.kount.kountaccess.AccessEvents} committing the enabled events to a recording.
+	 */
+	@Test
+	public void testEventsRecorded() throws IOException {
+		assertNull(AccessEvents.requestStarted());
+
+		Path dump = folder.newFile("events.jfr").toPath();
+		try (Recording recording = new Recording()) {
+			recording.enable("com.kount.kountaccess.AccessRequest").withThreshold(Duration.ZERO);
+			recording.enable("com.kount.kountaccess.AccessRetry");
+			recording.enable("com.kount.kountaccess.AccessCacheMiss");
+			recording.enable("com.kount.kountaccess.AccessQueueOverflow");
+			// AccessCacheHit is left disabled, as by default
+			recording.start();
+			Object request = AccessEvents.requestStarted();
+			assertNotNull(request);
+			AccessEvents.requestEnded(request, "info", 503, AccessErrorType.NETWORK_ERROR, 120, 64);
+			AccessEvents.retry("devicetrustbydevice", 2);
+			AccessEvents.cacheHit("behavio-endpoints", "api.behavio.kaptcha.com");
+			AccessEvents.cacheMiss("behavio-endpoints", "api.behavio.kaptcha.com");
+			AccessEvents.queueOverflow("write-spool", "REJECT", 7);
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		Map<String, RecordedEvent> events = new HashMap<>();
+		for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+			events.put(event.getEventType().getName(), event);
+		}
+		assertFalse(events.containsKey("com.kount.kountaccess.AccessCacheHit"));
+		assertEquals(4, events.size());
+
+		RecordedEvent request = events.get("com.kount.kountaccess.AccessRequest");
+		assertEquals("info", request.getString("endpoint"));
+		assertEquals(503, request.getInt("status"));
+		assertEquals("NETWORK_ERROR", request.getString("error"));
+		assertEquals(120, request.getLong("bytesSent"));
+		assertEquals(64, request.getLong("bytesReceived"));
+		RecordedEvent retry = events.get("com.kount.kountaccess.AccessRetry");
+		assertEquals("devicetrustbydevice", retry.getString("endpoint"));
+		assertEquals(2, retry.getInt("attempt"));
+		assertEquals("api.behavio.kaptcha.com", events.get("com.kount.kountaccess.AccessCacheMiss").getString("key"));
+		RecordedEvent overflow = events.get("com.kount.kountaccess.AccessQueueOverflow");
+		assertEquals("write-spool", overflow.getString("queue"));
+		assertEquals("REJECT", overflow.getString("policy"));
+		assertEquals(7, overflow.getLong("depth"));
+	}
+}